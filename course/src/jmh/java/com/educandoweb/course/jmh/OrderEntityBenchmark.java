@@ -0,0 +1,53 @@
+package com.educandoweb.course.jmh;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.educandoweb.course.entities.Order;
+
+/*
+ * Custo do total do Order: o total gravado (getTotal) contra o total
+ * recalculado a partir dos items (recalculateTotal).
+ * */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderEntityBenchmark {
+
+	@Param({ "1", "10", "100" })
+	private int items;
+
+	private Order order;
+
+	@Setup
+	public void setup() {
+		order = Orders.newOrder(1L, Instant.parse("2020-01-01T00:00:00Z"), items);
+	}
+
+	@Benchmark
+	public BigDecimal getTotal() {
+		return order.getTotal();
+	}
+
+	@Benchmark
+	public BigDecimal recalculateTotal() {
+		order.recalculateTotal();
+		return order.getTotal();
+	}
+}
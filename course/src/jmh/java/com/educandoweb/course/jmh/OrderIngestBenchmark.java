@@ -0,0 +1,153 @@
+package com.educandoweb.course.jmh;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.h2.tools.Server;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.educandoweb.course.CourseApplication;
+import com.educandoweb.course.entities.Order;
+import com.educandoweb.course.entities.OrderItem;
+import com.educandoweb.course.entities.Product;
+import com.educandoweb.course.entities.User;
+import com.educandoweb.course.entities.enums.OrderStatus;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/*
+ * Vazão de inserção de Orders com ITEMS_PER_ORDER OrderItems cada, em
+ * transações de CHUNK Orders, com flush e clear do contexto de
+ * persistência a cada transação. Cada chamada conta CHUNK * (1 +
+ * ITEMS_PER_ORDER) operações, então o JMH reporta linhas por segundo.
+ *
+ * O contador statements soma os comandos preparados pelo Hibernate na
+ * iteração (Statistics), dividido pelas linhas ele mostra o efeito do
+ * JDBC batch (application.properties). Os inserts do outbox, feitos por
+ * JDBC, não entram nessa conta.
+ *
+ * O H2 roda em modo servidor (TCP) para que cada comando enviado ao
+ * banco de dados pague uma ida e volta pela rede, como num banco de
+ * dados de produção, e não em modo embarcado.
+ *
+ *   mvn verify -Pbenchmark -DskipTests -Djmh.include=OrderIngestBenchmark
+ * */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class OrderIngestBenchmark {
+
+	private static final int ITEMS_PER_ORDER = 3;
+	private static final int CHUNK = 1000;
+	private static final int PRODUCTS = 100;
+	private static final int ROWS_PER_CHUNK = CHUNK * (1 + ITEMS_PER_ORDER);
+
+	private static final Instant MOMENT = Instant.parse("2024-01-01T00:00:00Z");
+
+	private Server server;
+	private ConfigurableApplicationContext context;
+	private EntityManager entityManager;
+	private TransactionTemplate transactionTemplate;
+	private Statistics statistics;
+
+	private final List<Long> productIds = new ArrayList<>();
+	private Long clientId;
+	private long next;
+
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	@State(Scope.Thread)
+	public static class Counters {
+		public long statements;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			statements = 0;
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setup() throws SQLException {
+		server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+		context = new SpringApplicationBuilder(CourseApplication.class)
+				.web(WebApplicationType.NONE)
+				.run("--spring.datasource.url=jdbc:h2:tcp://localhost:" + server.getPort()
+						+ "/mem:benchmark;DB_CLOSE_DELAY=-1",
+						"--spring.jpa.hibernate.ddl-auto=create-drop",
+						"--spring.jpa.properties.hibernate.generate_statistics=true",
+						"--spring.h2.console.enabled=false",
+						"--logging.level.root=warn");
+		entityManager = context.getBean(EntityManager.class);
+		transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+		statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+		transactionTemplate.executeWithoutResult(status -> {
+			for (int i = 0; i < PRODUCTS; i++) {
+				Product product = new Product(null, "Product " + i, "Benchmark product", 10.0 + i, "");
+				entityManager.persist(product);
+				productIds.add(product.getId());
+			}
+			User client = new User(null, "Benchmark Client", "bench@gmail.com", "999999999", "123456");
+			entityManager.persist(client);
+			clientId = client.getId();
+		});
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+		server.stop();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS_PER_CHUNK)
+	public void ingestChunk(Counters counters) {
+		long before = statistics.getPrepareStatementCount();
+		long from = next;
+		next += CHUNK;
+		transactionTemplate.executeWithoutResult(status -> {
+			User client = entityManager.getReference(User.class, clientId);
+			for (long i = from; i < from + CHUNK; i++) {
+				Order order = new Order(null, MOMENT.plusSeconds(i), OrderStatus.PAID, client);
+				for (int k = 0; k < ITEMS_PER_ORDER; k++) {
+					Product product = entityManager.getReference(Product.class,
+							productIds.get((int) ((i + k) % PRODUCTS)));
+					new OrderItem(order, product, 1 + k, 10.0 + k);
+				}
+				entityManager.persist(order);
+				for (OrderItem item : order.getItems()) {
+					entityManager.persist(item);
+				}
+			}
+			entityManager.flush();
+			entityManager.clear();
+		});
+		counters.statements += statistics.getPrepareStatementCount() - before;
+	}
+}
@@ -0,0 +1,99 @@
+package com.educandoweb.course.jmh;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.educandoweb.course.services.analytics.OrderItemColumns;
+import com.educandoweb.course.services.analytics.OrderItemColumns.Filter;
+import com.educandoweb.course.services.analytics.OrderItemColumns.GroupBy;
+
+/*
+ * Varreduras das colunas de OrderItems de rows linhas (um ano de Orders
+ * de 1 a 4 items, 5% das linhas apagadas), com threads threads: o total
+ * de um trimestre de Orders PAID, a receita por status e a receita por
+ * product (10 mil products). Linhas por segundo = rows / tempo.
+ * */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+@State(Scope.Benchmark)
+public class OrderItemScanBenchmark {
+
+	private static final long YEAR_START = 1_672_531_200L;
+
+	@Param({ "10000000" })
+	private int rows;
+
+	@Param({ "1", "4" })
+	private int threads;
+
+	private OrderItemColumns columns;
+	private ForkJoinPool pool;
+	private Filter quarterPaid;
+
+	@Setup
+	public void setup() {
+		columns = new OrderItemColumns();
+		SplittableRandom random = new SplittableRandom(42);
+		long orderId = 0;
+		int written = 0;
+		while (written < rows) {
+			int items = 1 + random.nextInt(4);
+			long[] products = new long[items];
+			long[] prices = new long[items];
+			int[] units = new int[items];
+			for (int i = 0; i < items; i++) {
+				products[i] = 1 + random.nextInt(10_000);
+				prices[i] = 100 + random.nextInt(500_000);
+				units[i] = 1 + random.nextInt(5);
+			}
+			columns.put(++orderId, YEAR_START + random.nextInt(365 * 86_400), random.nextInt(5), products, prices,
+					units);
+			written += items;
+		}
+		SplittableRandom removed = new SplittableRandom(7);
+		for (long id = 1; id <= orderId; id++) {
+			if (removed.nextInt(20) == 0) {
+				columns.remove(id);
+			}
+		}
+		pool = new ForkJoinPool(threads);
+		quarterPaid = new Filter(YEAR_START, YEAR_START + 90 * 86_400L, -1, 1);
+	}
+
+	@TearDown
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public OrderItemColumns.Result filteredTotal() {
+		return columns.scan(quarterPaid, GroupBy.NONE, 1, pool);
+	}
+
+	@Benchmark
+	public OrderItemColumns.Result revenueByStatus() {
+		return columns.scan(Filter.ALL, GroupBy.STATUS, 5, pool);
+	}
+
+	@Benchmark
+	public OrderItemColumns.Result revenueByProduct() {
+		return columns.scan(Filter.ALL, GroupBy.PRODUCT, 20, pool);
+	}
+}
@@ -0,0 +1,108 @@
+package com.educandoweb.course.jmh;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.educandoweb.course.CourseApplication;
+import com.educandoweb.course.entities.Order;
+import com.educandoweb.course.repositories.OrderRepository;
+
+/*
+ * Consultas do OrderRepository contra um H2 em memória com 10 mil,
+ * 100 mil e 1 milhão de Orders, gravados pelo DataSeeder (em média 3
+ * items por Order).
+ *
+ * Cada chamada roda na sua própria transação somente leitura, como
+ * nos services, então o cache de primeiro nível não é reaproveitado
+ * entre as chamadas.
+ *
+ * findAllPage usa a paginação por offset do JpaRepository, em páginas
+ * aleatórias, e findPageAfter a paginação por chave (moment, id) da
+ * aplicação, para comparar o custo das duas conforme a tabela cresce.
+ * */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class OrderRepositoryBenchmark {
+
+	private static final int PAGE_SIZE = 20;
+
+	/* os moments do DataSeeder ficam nos 365 dias antes de END */
+	private static final Instant END = Instant.parse("2024-01-01T00:00:00Z");
+	private static final long WINDOW = 365 * 86_400L;
+
+	@Param({ "10000", "100000", "1000000" })
+	private int rows;
+
+	private ConfigurableApplicationContext context;
+	private OrderRepository orderRepository;
+	private TransactionTemplate readOnly;
+
+	@State(Scope.Thread)
+	public static class Keys {
+		private final SplittableRandom random = new SplittableRandom(42);
+	}
+
+	@Setup(Level.Trial)
+	public void setup() {
+		context = new SpringApplicationBuilder(CourseApplication.class)
+				.web(WebApplicationType.NONE)
+				.run("--course.seed.enabled=true",
+						"--course.seed.orders=" + rows,
+						"--spring.jpa.show-sql=false",
+						"--spring.h2.console.enabled=false",
+						"--logging.level.root=warn");
+		orderRepository = context.getBean(OrderRepository.class);
+		readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+		readOnly.setReadOnly(true);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public Order findById(Keys keys) {
+		long id = 1 + keys.random.nextInt(rows);
+		return readOnly.execute(status -> orderRepository.findById(id).orElseThrow());
+	}
+
+	@Benchmark
+	public Page<Order> findAllPage(Keys keys) {
+		int page = keys.random.nextInt(rows / PAGE_SIZE);
+		return readOnly.execute(status -> orderRepository.findAll(PageRequest.of(page, PAGE_SIZE)));
+	}
+
+	@Benchmark
+	public List<Order> findPageAfter(Keys keys) {
+		Instant moment = END.minusSeconds(1 + keys.random.nextLong(WINDOW));
+		return readOnly.execute(status -> orderRepository.findPageAfter(moment, 0L, PAGE_SIZE));
+	}
+}
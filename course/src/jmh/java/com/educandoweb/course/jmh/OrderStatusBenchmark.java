@@ -0,0 +1,80 @@
+package com.educandoweb.course.jmh;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.educandoweb.course.entities.Order;
+import com.educandoweb.course.entities.enums.OrderStatus;
+import com.educandoweb.course.entities.enums.OrderStatusConverter;
+
+/*
+ * Conversão do código gravado no banco para OrderStatus. Com o
+ * OrderStatusConverter ela é feita uma vez por linha lida
+ * (convertToEntityAttribute) e o getOrderStatus só devolve o campo.
+ *
+ * linearScan é a busca antiga, que percorria values() e alocava a cópia
+ * do array a cada chamada. Rodando com -prof gc o valueOf e o
+ * convertToEntityAttribute mostram 0 B/op (o Integer dos códigos 1 a 5
+ * vem do cache de Integer.valueOf).
+ * */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderStatusBenchmark {
+
+	private static final int CODES = 5;
+
+	private final OrderStatusConverter converter = new OrderStatusConverter();
+
+	private Order order;
+
+	/* percorre todos os códigos, para que o JIT não fixe um só caminho */
+	private int code;
+
+	@Setup
+	public void setup() {
+		order = Orders.newOrder(1L, Instant.parse("2020-01-01T00:00:00Z"), 1);
+	}
+
+	@Benchmark
+	public OrderStatus linearScan() {
+		code = (code % CODES) + 1;
+		for (OrderStatus value : OrderStatus.values()) {
+			if (value.getCode() == code) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Invalid OrderStatus code");
+	}
+
+	@Benchmark
+	public OrderStatus valueOf() {
+		code = (code % CODES) + 1;
+		return OrderStatus.valueOf(code);
+	}
+
+	@Benchmark
+	public OrderStatus convertToEntityAttribute() {
+		code = (code % CODES) + 1;
+		return converter.convertToEntityAttribute(code);
+	}
+
+	@Benchmark
+	public OrderStatus getOrderStatus() {
+		return order.getOrderStatus();
+	}
+}
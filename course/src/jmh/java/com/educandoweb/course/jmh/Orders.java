@@ -0,0 +1,34 @@
+package com.educandoweb.course.jmh;
+
+import java.time.Instant;
+
+import com.educandoweb.course.entities.Category;
+import com.educandoweb.course.entities.Order;
+import com.educandoweb.course.entities.OrderItem;
+import com.educandoweb.course.entities.Payment;
+import com.educandoweb.course.entities.Product;
+import com.educandoweb.course.entities.User;
+import com.educandoweb.course.entities.enums.OrderStatus;
+
+/*
+ * Monta grafos de Order em memória, sem banco de dados, para os
+ * benchmarks de entidade e de serialização.
+ * */
+final class Orders {
+
+	private Orders() {
+	}
+
+	static Order newOrder(Long id, Instant moment, int items) {
+		User client = new User(id, "Client " + id, "client" + id + "@gmail.com", "999999999", "123456");
+		Order order = new Order(id, moment, OrderStatus.PAID, client);
+		Category category = new Category(1L, "Games");
+		for (int i = 0; i < items; i++) {
+			Product product = new Product((long) i + 1, "Product " + i, "Lorem ipsum dolor sit amet.", 10.0 + i, "");
+			product.getCategories().add(category);
+			new OrderItem(order, product, 1 + i % 3, product.getPrice());
+		}
+		order.setPayment(new Payment(id, moment, order));
+		return order;
+	}
+}
@@ -0,0 +1,81 @@
+package com.educandoweb.course.jmh;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.educandoweb.course.services.search.InvertedIndex;
+
+/*
+ * Busca no índice invertido de um catálogo sintético: um termo comum
+ * (1 em 20 Products), dois termos (interseção), um termo com filtro de
+ * category e um termo raro (um único Product), sempre a primeira página
+ * de 20 resultados.
+ * */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ProductSearchBenchmark {
+
+	private static final String[] ADJECTIVES = { "wireless", "portable", "compact", "ergonomic", "premium",
+			"classic", "smart", "gaming", "professional", "slim", "rugged", "vintage", "modern", "silent",
+			"ultra", "mini", "deluxe", "essential", "sport", "travel" };
+	private static final String[] NOUNS = { "notebook", "monitor", "keyboard", "mouse", "headset", "camera",
+			"phone", "tablet", "printer", "router", "speaker", "chair", "desk", "lamp", "backpack", "watch",
+			"charger", "cable", "adapter", "drive", "book", "novel", "guide", "poster", "mug", "bottle", "jacket",
+			"shirt", "sneaker", "console" };
+	private static final String[] MATERIALS = { "aluminum", "leather", "wood", "steel", "plastic", "cotton",
+			"glass", "carbon", "bamboo", "ceramic" };
+
+	@Param({ "1000000" })
+	private int products;
+
+	private InvertedIndex index;
+
+	@Setup
+	public void setup() {
+		index = new InvertedIndex();
+		SplittableRandom random = new SplittableRandom(42);
+		for (long id = 1; id <= products; id++) {
+			String name = ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + NOUNS[random.nextInt(NOUNS.length)]
+					+ " " + id;
+			String description = "Made of " + MATERIALS[random.nextInt(MATERIALS.length)] + " for "
+					+ NOUNS[random.nextInt(NOUNS.length)] + " fans";
+			index.put(id, name, description, new long[] { 1 + random.nextInt(20) });
+		}
+	}
+
+	@Benchmark
+	public InvertedIndex.Result commonTerm() {
+		return index.search("wireless", null, 21, null);
+	}
+
+	@Benchmark
+	public InvertedIndex.Result twoTerms() {
+		return index.search("wireless keyboard", null, 21, null);
+	}
+
+	@Benchmark
+	public InvertedIndex.Result termAndCategory() {
+		return index.search("keyboard bamboo", 7L, 21, null);
+	}
+
+	@Benchmark
+	public InvertedIndex.Result rareTerm() {
+		return index.search("654321", null, 21, null);
+	}
+}
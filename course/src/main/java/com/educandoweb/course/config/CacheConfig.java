@@ -0,0 +1,106 @@
+package com.educandoweb.course.config;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.UUID;
+
+import javax.cache.CacheManager;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.educandoweb.course.services.cache.CachedResponse;
+
+/*
+ * Configuração do cache de segundo nível do Hibernate e do cache de
+ * respostas (ResponseCache).
+ *
+ * O cache é guardado na memória da própria aplicação (Ehcache, pela
+ * API JCache). Cada região tem um número máximo de entradas, ao passar
+ * dele as entradas menos usadas são descartadas, e um tempo de vida
+ * (TTL), depois dele a entrada é lida de novo do banco de dados.
+ *
+ * As regiões são criadas aqui, e não pelo Hibernate, para que todas
+ * tenham limite de tamanho: uma região sem configuração faz o Hibernate
+ * falhar na inicialização (missing_cache_strategy=fail).
+ * */
+@Configuration
+public class CacheConfig {
+
+	public static final String PRODUCT_REGION = "catalog.product";
+	public static final String PRODUCT_CATEGORIES_REGION = "catalog.product.categories";
+	public static final String CATEGORY_REGION = "catalog.category";
+	public static final String QUERY_REGION = "catalog.queries";
+
+	/* respostas serializadas dos endpoints GET, veja ResponseCache */
+	public static final String RESPONSE_REGION = "responses";
+
+	/* regiões internas do Hibernate para o cache de consultas */
+	private static final String DEFAULT_QUERY_REGION = "default-query-results-region";
+	private static final String TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+	@Value("${course.cache.catalog.max-entries:10000}")
+	private long maxEntries;
+
+	@Value("${course.cache.catalog.ttl:PT10M}")
+	private Duration ttl;
+
+	@Value("${course.cache.response.max-entries:1000}")
+	private long responseMaxEntries;
+
+	@Value("${course.cache.response.ttl:PT10M}")
+	private Duration responseTtl;
+
+	/*
+	 * Cada contexto do spring ganha o seu próprio CacheManager (URI
+	 * única), assim contextos diferentes nos testes não compartilham
+	 * as mesmas regiões.
+	 * */
+	@Bean
+	public CacheManager jcacheManager() {
+		EhcacheCachingProvider provider = new EhcacheCachingProvider();
+		CacheManager cacheManager = provider.getCacheManager(URI.create("urn:course:cache:" + UUID.randomUUID()),
+				new DefaultConfiguration(getClass().getClassLoader()));
+
+		for (String region : new String[] { PRODUCT_REGION, PRODUCT_CATEGORIES_REGION, CATEGORY_REGION,
+				QUERY_REGION, DEFAULT_QUERY_REGION }) {
+			cacheManager.createCache(region, Eh107Configuration.fromEhcacheCacheConfiguration(
+					CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+							ResourcePoolsBuilder.heap(maxEntries))
+							.withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(ttl))));
+		}
+
+		/*
+		 * A região de timestamps guarda a última alteração de cada tabela,
+		 * é ela que invalida o cache de consultas, por isso ela não pode
+		 * expirar nem descartar entradas.
+		 * */
+		cacheManager.createCache(TIMESTAMPS_REGION, Eh107Configuration.fromEhcacheCacheConfiguration(
+				CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+						ResourcePoolsBuilder.heap(Long.MAX_VALUE))
+						.withExpiry(ExpiryPolicyBuilder.noExpiration())));
+
+		cacheManager.createCache(RESPONSE_REGION, Eh107Configuration.fromEhcacheCacheConfiguration(
+				CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, CachedResponse.class,
+						ResourcePoolsBuilder.heap(responseMaxEntries))
+						.withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(responseTtl))));
+		return cacheManager;
+	}
+
+	@Bean
+	public HibernatePropertiesCustomizer hibernateCacheCustomizer(CacheManager jcacheManager) {
+		return properties -> {
+			properties.put(ConfigSettings.CACHE_MANAGER, jcacheManager);
+			properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+		};
+	}
+}
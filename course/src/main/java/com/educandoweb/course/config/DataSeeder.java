@@ -0,0 +1,360 @@
+package com.educandoweb.course.config;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.educandoweb.course.entities.enums.OrderStatus;
+import com.educandoweb.course.services.analytics.OrderItemSnapshot;
+import com.educandoweb.course.services.analytics.SalesAnalytics;
+import com.educandoweb.course.services.events.OrderStatusHub;
+import com.educandoweb.course.services.search.ProductSearchIndex;
+
+/*
+ * Gerador de dados sintéticos em volume, para testes de carga e
+ * benchmarks, ligado com course.seed.enabled=true. Quando ele está
+ * ligado o TestConfig não roda.
+ *
+ * Os dados são determinísticos: a mesma semente (course.seed.seed) e os
+ * mesmos tamanhos geram sempre as mesmas linhas, com os mesmos ids.
+ *
+ * Os Orders são divididos em blocos de batch-size Orders, cada bloco tem
+ * o seu próprio gerador de números aleatórios, derivado da semente e do
+ * número do bloco, por isso os blocos podem ser gerados e gravados em
+ * paralelo, em qualquer ordem, sem mudar o resultado.
+ *
+ * As linhas são gravadas por JDBC em lotes (batch), sem passar pelo JPA,
+ * e no fim as sequences são reiniciadas depois do maior id gravado, para
+ * que as inserções pelo JPA continuem funcionando.
+ *
+ * SmartInitializingSingleton - o seed roda depois que todos os beans
+ * foram criados (o schema já existe) e antes de o servidor web começar
+ * a aceitar requisições, diferente de um CommandLineRunner, que roda
+ * com o servidor já no ar.
+ * */
+@Configuration
+@Profile("test")
+@ConditionalOnProperty(name = "course.seed.enabled", havingValue = "true")
+public class DataSeeder implements SmartInitializingSingleton {
+
+	private static final Logger log = LoggerFactory.getLogger(DataSeeder.class);
+
+	/* distribuição dos status dos Orders, em porcentagem */
+	private static final OrderStatus[] STATUSES = { OrderStatus.WAITING_PAYMENT, OrderStatus.PAID,
+			OrderStatus.SHIPPED, OrderStatus.DELIVERED, OrderStatus.CANCELLED };
+	private static final int[] STATUS_WEIGHTS = { 10, 15, 15, 55, 5 };
+
+	/* vocabulário dos nomes e descrições, para que a busca de Products tenha termos variados */
+	private static final String[] NOUNS = { "notebook", "monitor", "keyboard", "mouse", "headset", "camera",
+			"phone", "tablet", "printer", "router", "speaker", "chair", "desk", "lamp", "backpack", "watch",
+			"charger", "cable", "adapter", "drive", "book", "novel", "guide", "poster", "mug", "bottle", "jacket",
+			"shirt", "sneaker", "console" };
+	private static final String[] ADJECTIVES = { "wireless", "portable", "compact", "ergonomic", "premium",
+			"classic", "smart", "gaming", "professional", "slim", "rugged", "vintage", "modern", "silent",
+			"ultra", "mini", "deluxe", "essential", "sport", "travel" };
+	private static final String[] MATERIALS = { "aluminum", "leather", "wood", "steel", "plastic", "cotton",
+			"glass", "carbon", "bamboo", "ceramic" };
+	private static final String[] COLORS = { "black", "white", "silver", "blue", "red", "green", "gray", "gold" };
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private ObjectProvider<ProductSearchIndex> productSearchIndex;
+
+	@Autowired
+	private ObjectProvider<SalesAnalytics> salesAnalytics;
+
+	@Autowired
+	private ObjectProvider<OrderItemSnapshot> orderItemSnapshot;
+
+	@Autowired
+	private ObjectProvider<OrderStatusHub> orderStatusHub;
+
+	@Value("${course.seed.seed:42}")
+	private long seed;
+
+	@Value("${course.seed.users:1000}")
+	private int users;
+
+	@Value("${course.seed.categories:20}")
+	private int categories;
+
+	@Value("${course.seed.products:5000}")
+	private int products;
+
+	@Value("${course.seed.orders:100000}")
+	private int orders;
+
+	/* média e máximo de items por Order */
+	@Value("${course.seed.mean-items:3}")
+	private double meanItems;
+
+	@Value("${course.seed.max-items:20}")
+	private int maxItems;
+
+	@Value("${course.seed.batch-size:5000}")
+	private int batchSize;
+
+	/* 0 usa um thread por processador */
+	@Value("${course.seed.threads:0}")
+	private int threads;
+
+	/* os moments são sorteados nos days dias antes de end */
+	@Value("${course.seed.end:2024-01-01T00:00:00Z}")
+	private String end;
+
+	@Value("${course.seed.days:365}")
+	private int days;
+
+	@Override
+	public void afterSingletonsInstantiated() {
+		long start = System.nanoTime();
+		seedUsers();
+		double[] prices = seedCatalog();
+		long items = seedOrders(prices);
+		restartSequences();
+		productSearchIndex.ifAvailable(ProductSearchIndex::rebuild);
+		salesAnalytics.ifAvailable(SalesAnalytics::rebuild);
+		orderItemSnapshot.ifAvailable(OrderItemSnapshot::rebuild);
+		orderStatusHub.ifAvailable(OrderStatusHub::reload);
+
+		log.info("Seeded {} users, {} categories, {} products, {} orders and {} order items in {} ms",
+				users, categories, products, orders, items, (System.nanoTime() - start) / 1_000_000);
+	}
+
+	private void seedUsers() {
+		List<Object[]> rows = new ArrayList<>(batchSize);
+		for (long id = 1; id <= users; id++) {
+			rows.add(new Object[] { id, "User " + id, "user" + id + "@gmail.com", "9" + (10_000_000 + id), "123456" });
+			if (rows.size() == batchSize || id == users) {
+				jdbcTemplate.batchUpdate("INSERT INTO tb_user (id, name, email, phone, password) VALUES (?, ?, ?, ?, ?)",
+						rows);
+				rows.clear();
+			}
+		}
+	}
+
+	/*
+	 * Grava as categories e os products, cada product em 1 a 3
+	 * categories, e devolve os preços, usados nos items dos Orders
+	 * (prices[i] é o preço do product de id i + 1).
+	 * */
+	private double[] seedCatalog() {
+		List<Object[]> rows = new ArrayList<>(categories);
+		for (long id = 1; id <= categories; id++) {
+			rows.add(new Object[] { id, "Category " + id });
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO tb_category (id, name) VALUES (?, ?)", rows);
+
+		double[] prices = generatePrices();
+		SplittableRandom random = new SplittableRandom(seed);
+		SplittableRandom words = new SplittableRandom(seed ^ 0x5DEECE66DL);
+		List<Object[]> productRows = new ArrayList<>(batchSize);
+		List<Object[]> categoryRows = new ArrayList<>(batchSize);
+		for (int i = 0; i < products; i++) {
+			long id = i + 1;
+			productRows.add(new Object[] { id, productName(words, id), productDescription(words), prices[i], "" });
+			int first = random.nextInt(categories);
+			int count = Math.min(categories, 1 + random.nextInt(3));
+			for (int c = 0; c < count; c++) {
+				categoryRows.add(new Object[] { id, (long) (first + c) % categories + 1 });
+			}
+			if (productRows.size() == batchSize || i == products - 1) {
+				jdbcTemplate.batchUpdate("INSERT INTO tb_product (id, name, description, price, img_url) "
+						+ "VALUES (?, ?, ?, ?, ?)", productRows);
+				jdbcTemplate.batchUpdate("INSERT INTO tb_product_category (product_id, category_id) VALUES (?, ?)",
+						categoryRows);
+				productRows.clear();
+				categoryRows.clear();
+			}
+		}
+		return prices;
+	}
+
+	/* por exemplo "Wireless Keyboard 1234", o id mantém os nomes distintos */
+	private static String productName(SplittableRandom random, long id) {
+		String adjective = ADJECTIVES[random.nextInt(ADJECTIVES.length)];
+		String noun = NOUNS[random.nextInt(NOUNS.length)];
+		return Character.toUpperCase(adjective.charAt(0)) + adjective.substring(1) + " "
+				+ Character.toUpperCase(noun.charAt(0)) + noun.substring(1) + " " + id;
+	}
+
+	private static String productDescription(SplittableRandom random) {
+		return "A " + ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " "
+				+ NOUNS[random.nextInt(NOUNS.length)] + " made of " + COLORS[random.nextInt(COLORS.length)] + " "
+				+ MATERIALS[random.nextInt(MATERIALS.length)] + ".";
+	}
+
+	/* preços entre 5.00 e 2000.00, com duas casas decimais */
+	double[] generatePrices() {
+		SplittableRandom random = new SplittableRandom(~seed);
+		double[] prices = new double[products];
+		for (int i = 0; i < products; i++) {
+			prices[i] = (500 + random.nextInt(199_501)) / 100.0;
+		}
+		return prices;
+	}
+
+	private long seedOrders(double[] prices) {
+		int blocks = (orders + batchSize - 1) / batchSize;
+		int poolSize = (threads > 0) ? threads : Runtime.getRuntime().availableProcessors();
+		ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+		try {
+			List<Callable<Integer>> tasks = new ArrayList<>(blocks);
+			for (int b = 0; b < blocks; b++) {
+				int block = b;
+				tasks.add(() -> insertBlock(generateBlock(block, prices)));
+			}
+			long items = 0;
+			for (Future<Integer> future : executor.invokeAll(tasks)) {
+				items += future.get();
+			}
+			return items;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Seed interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Seed failed", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/* cada bloco é gravado numa única transação, com um único commit */
+	private int insertBlock(Block block) {
+		return transactionTemplate.execute(status -> {
+			jdbcTemplate.batchUpdate("INSERT INTO tb_order (id, moment, order_status, client_id, total, version) "
+					+ "VALUES (?, ?, ?, ?, ?, 0)", block.orders());
+			jdbcTemplate.batchUpdate("INSERT INTO tb_order_item (order_id, product_id, quantity, price) "
+					+ "VALUES (?, ?, ?, ?)", block.items());
+			jdbcTemplate.batchUpdate("INSERT INTO tb_payment (order_id, moment) VALUES (?, ?)", block.payments());
+			return block.items().size();
+		});
+	}
+
+	/*
+	 * Linhas de um bloco de Orders, com os seus items e payments.
+	 * */
+	record Block(List<Object[]> orders, List<Object[]> items, List<Object[]> payments) {
+	}
+
+	/*
+	 * Gera o bloco de número index: os Orders de id index * batchSize + 1
+	 * até (index + 1) * batchSize.
+	 *
+	 * O número de items de cada Order segue uma distribuição geométrica
+	 * com média meanItems (a maioria dos Orders tem poucos items e alguns
+	 * têm muitos), e a escolha dos products favorece os primeiros ids,
+	 * assim poucos products concentram a maior parte das vendas.
+	 * */
+	Block generateBlock(int index, double[] prices) {
+		SplittableRandom random = new SplittableRandom(seed + index * 0x9E3779B97F4A7C15L);
+		Instant endInstant = Instant.parse(end);
+		long window = days * 86_400L;
+		long firstId = (long) index * batchSize + 1;
+		long lastId = Math.min(orders, firstId + batchSize - 1);
+
+		int capacity = (int) (lastId - firstId + 1);
+		Block block = new Block(new ArrayList<>(capacity), new ArrayList<>((int) (capacity * meanItems)),
+				new ArrayList<>(capacity));
+		int[] chosen = new int[Math.min(maxItems, products)];
+		for (long id = firstId; id <= lastId; id++) {
+			Instant moment = endInstant.minusSeconds(random.nextLong(window));
+			OrderStatus status = status(random);
+			long client = 1 + random.nextInt(users);
+
+			int count = itemCount(random, chosen.length);
+			BigDecimal total = BigDecimal.ZERO;
+			for (int i = 0; i < count; i++) {
+				chosen[i] = product(random, chosen, i);
+				double price = prices[chosen[i]];
+				int quantity = 1 + (int) (4 * Math.pow(random.nextDouble(), 3));
+				total = total.add(BigDecimal.valueOf(price).multiply(BigDecimal.valueOf(quantity)));
+				block.items().add(new Object[] { id, (long) chosen[i] + 1, quantity, price });
+			}
+
+			block.orders().add(new Object[] { id, Timestamp.from(moment), status.getCode(), client,
+					total.setScale(2, RoundingMode.HALF_EVEN) });
+			if (status == OrderStatus.PAID || status == OrderStatus.SHIPPED || status == OrderStatus.DELIVERED) {
+				Instant paid = moment.plusSeconds(random.nextLong(2 * 86_400L));
+				block.payments().add(new Object[] { id, Timestamp.from(paid) });
+			}
+		}
+		return block;
+	}
+
+	private int itemCount(SplittableRandom random, int max) {
+		if (meanItems <= 1) {
+			return 1;
+		}
+		double p = 1.0 / meanItems;
+		int count = 1 + (int) (Math.log(1.0 - random.nextDouble()) / Math.log(1.0 - p));
+		return Math.min(count, max);
+	}
+
+	/* sorteia um product que ainda não está entre os chosen[0..count) */
+	private int product(SplittableRandom random, int[] chosen, int count) {
+		while (true) {
+			double u = random.nextDouble();
+			int product = (int) (products * u * u);
+			boolean repeated = false;
+			for (int i = 0; i < count && !repeated; i++) {
+				repeated = chosen[i] == product;
+			}
+			if (!repeated) {
+				return product;
+			}
+		}
+	}
+
+	private static OrderStatus status(SplittableRandom random) {
+		int value = random.nextInt(100);
+		for (int i = 0; i < STATUSES.length; i++) {
+			value -= STATUS_WEIGHTS[i];
+			if (value < 0) {
+				return STATUSES[i];
+			}
+		}
+		return STATUSES[STATUSES.length - 1];
+	}
+
+	/*
+	 * Os ids foram gravados sem passar pelas sequences, então elas são
+	 * reiniciadas depois do maior id de cada tabela.
+	 * */
+	private void restartSequences() {
+		restartSequence("seq_user", users);
+		restartSequence("seq_category", categories);
+		restartSequence("seq_product", products);
+		restartSequence("seq_order", orders);
+	}
+
+	private void restartSequence(String sequence, long maxId) {
+		jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + (maxId + 1));
+	}
+}
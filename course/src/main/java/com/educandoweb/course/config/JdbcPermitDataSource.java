@@ -0,0 +1,153 @@
+package com.educandoweb.course.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/*
+ * DataSource que só entrega uma conexão para quem tiver uma licença
+ * (permit) de um semáforo com um número fixo de licenças. A licença é
+ * devolvida quando a conexão é fechada (devolvida ao pool).
+ *
+ * Com virtual threads o Tomcat não tem mais um limite de threads, então
+ * milhares de requisições podem chegar ao mesmo tempo no pool de
+ * conexões. O semáforo é justo (fair): as requisições esperam numa fila,
+ * na ordem de chegada, e a espera libera a carrier thread, enquanto os
+ * drivers JDBC (synchronized) prendem a virtual thread à carrier thread
+ * durante as chamadas ao banco de dados.
+ *
+ * Se a licença não sair em timeout, getConnection lança
+ * SQLTransientConnectionException, a mesma exceção do pool (Hikari)
+ * quando ele esgota.
+ *
+ * As métricas (bindTo) são o tempo de espera pela licença
+ * (jdbc.permits.wait) e as licenças livres e as requisições na fila.
+ * */
+public class JdbcPermitDataSource extends DelegatingDataSource implements MeterBinder {
+
+	private final Semaphore permits;
+	private final long timeoutNanos;
+	private volatile Timer waitTimer;
+
+	public JdbcPermitDataSource(DataSource targetDataSource, int permits, Duration timeout) {
+		super(targetDataSource);
+		this.permits = new Semaphore(permits, true);
+		this.timeoutNanos = timeout.toNanos();
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		acquire();
+		try {
+			return withPermit(super.getConnection());
+		} catch (SQLException | RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		acquire();
+		try {
+			return withPermit(super.getConnection(username, password));
+		} catch (SQLException | RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("jdbc.permits.available", permits, Semaphore::availablePermits)
+				.description("JDBC permits not in use")
+				.register(registry);
+		Gauge.builder("jdbc.permits.waiting", permits, Semaphore::getQueueLength)
+				.description("Threads waiting for a JDBC permit")
+				.register(registry);
+		waitTimer = Timer.builder("jdbc.permits.wait")
+				.description("Time spent waiting for a JDBC permit")
+				.publishPercentiles(0.5, 0.95, 0.99)
+				.publishPercentileHistogram()
+				.register(registry);
+	}
+
+	public int getAvailablePermits() {
+		return permits.availablePermits();
+	}
+
+	public int getQueueLength() {
+		return permits.getQueueLength();
+	}
+
+	private void acquire() throws SQLException {
+		long start = System.nanoTime();
+		try {
+			boolean acquired = permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS);
+			Timer timer = waitTimer;
+			if (timer != null) {
+				timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			}
+			if (!acquired) {
+				throw new SQLTransientConnectionException("No JDBC permit available after "
+						+ TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms (" + permits.getQueueLength() + " waiting)");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLTransientConnectionException("Interrupted while waiting for a JDBC permit", e);
+		}
+	}
+
+	/* a licença é devolvida no primeiro close, os seguintes não contam */
+	private Connection withPermit(Connection target) {
+		AtomicBoolean released = new AtomicBoolean();
+		InvocationHandler handler = (proxy, method, args) -> invoke(target, released, proxy, method, args);
+		return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+				new Class<?>[] { ConnectionProxy.class }, handler);
+	}
+
+	private Object invoke(Connection target, AtomicBoolean released, Object proxy, Method method, Object[] args)
+			throws Throwable {
+		switch (method.getName()) {
+		case "equals":
+			return proxy == args[0];
+		case "hashCode":
+			return System.identityHashCode(proxy);
+		case "getTargetConnection":
+			return target;
+		case "close":
+			try {
+				target.close();
+			} finally {
+				if (released.compareAndSet(false, true)) {
+					permits.release();
+				}
+			}
+			return null;
+		default:
+			try {
+				return method.invoke(target, args);
+			} catch (InvocationTargetException e) {
+				throw e.getTargetException();
+			}
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package com.educandoweb.course.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.educandoweb.course.services.jdbc.SlowQueryLog;
+
+/*
+ * Liga o log de comandos SQL lentos (SlowQueryLog) envolvendo o
+ * DataSource num SlowQueryDataSource. Desligado com
+ * course.slow-query.enabled=false.
+ * */
+@Configuration
+@ConditionalOnProperty(name = "course.slow-query.enabled", havingValue = "true", matchIfMissing = true)
+public class SlowQueryConfig {
+
+	/*
+	 * O método é static para que o BeanPostProcessor seja criado antes
+	 * dos outros beans, o SlowQueryLog só é buscado quando o DataSource
+	 * é criado.
+	 * */
+	@Bean
+	public static BeanPostProcessor slowQueryPostProcessor(ObjectProvider<SlowQueryLog> slowQueryLog) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+				if (bean instanceof DataSource dataSource && !(bean instanceof SlowQueryDataSource)) {
+					return new SlowQueryDataSource(dataSource, slowQueryLog.getObject());
+				}
+				return bean;
+			}
+		};
+	}
+}
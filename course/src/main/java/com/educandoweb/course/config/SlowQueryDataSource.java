@@ -0,0 +1,289 @@
+package com.educandoweb.course.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import com.educandoweb.course.services.jdbc.SlowQueryLog;
+import com.educandoweb.course.services.jdbc.SlowQueryLog.Reason;
+
+/*
+ * DataSource que mede o tempo de cada comando SQL executado pelas suas
+ * conexões e entrega ao SlowQueryLog os que ele decidir registrar.
+ *
+ * Os Statements são envolvidos por proxies que guardam o SQL e os
+ * valores ligados aos parâmetros (setLong, setString...), só as
+ * referências, sem converter nada para texto. O tempo medido é o da
+ * chamada execute* ao driver. Numa consulta o registro só é feito
+ * quando o ResultSet é fechado, para incluir o número de linhas lidas;
+ * as consultas que não serão registradas não ganham proxy no ResultSet.
+ * */
+public class SlowQueryDataSource extends DelegatingDataSource {
+
+	private final SlowQueryLog log;
+
+	public SlowQueryDataSource(DataSource targetDataSource, SlowQueryLog log) {
+		super(targetDataSource);
+		this.log = log;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return proxy(super.getConnection());
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return proxy(super.getConnection(username, password));
+	}
+
+	private Connection proxy(Connection target) {
+		return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+				new Class<?>[] { ConnectionProxy.class }, (proxy, method, args) -> {
+					switch (method.getName()) {
+					case "equals":
+						return proxy == args[0];
+					case "hashCode":
+						return System.identityHashCode(proxy);
+					case "getTargetConnection":
+						return target;
+					default:
+						Object result = invoke(target, method, args);
+						if (result instanceof Statement statement) {
+							String sql = (args != null && args.length > 0 && args[0] instanceof String s) ? s : null;
+							return proxy(statement, sql);
+						}
+						return result;
+					}
+				});
+	}
+
+	private Statement proxy(Statement target, String sql) {
+		Class<?> type = (target instanceof CallableStatement) ? CallableStatement.class
+				: (target instanceof PreparedStatement) ? PreparedStatement.class : Statement.class;
+		return (Statement) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+				new StatementHandler(target, sql));
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getTargetException();
+		}
+	}
+
+	/*
+	 * Estado de um Statement: o SQL, os parâmetros atuais e, num batch,
+	 * os parâmetros da primeira linha e o número de linhas.
+	 * */
+	private class StatementHandler implements InvocationHandler {
+
+		private final Statement target;
+		private String sql;
+		private Object[] parameters = new Object[8];
+		private int parameterCount;
+		private Object[] batchParameters;
+		private int batchSize;
+
+		/* consulta esperando o fechamento do ResultSet para ser registrada */
+		private PendingQuery pending;
+
+		StatementHandler(Statement target, String sql) {
+			this.target = target;
+			this.sql = sql;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (name.startsWith("execute")) {
+				return execute(method, args);
+			}
+			switch (name) {
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "addBatch":
+				addBatch(args);
+				break;
+			case "clearParameters":
+				Arrays.fill(parameters, 0, parameterCount, null);
+				parameterCount = 0;
+				break;
+			case "clearBatch":
+				batchParameters = null;
+				batchSize = 0;
+				break;
+			case "close":
+				recordPending();
+				break;
+			default:
+				if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+					setParameter(index, name.equals("setNull") ? null : args[1]);
+				}
+			}
+			return SlowQueryDataSource.invoke(target, method, args);
+		}
+
+		private void setParameter(int index, Object value) {
+			if (index > parameters.length) {
+				parameters = Arrays.copyOf(parameters, Math.max(index, parameters.length * 2));
+			}
+			parameters[index - 1] = value;
+			parameterCount = Math.max(parameterCount, index);
+		}
+
+		private void addBatch(Object[] args) {
+			if (args != null && args.length == 1 && args[0] instanceof String batchSql) {
+				/* Statement.addBatch(sql): guarda só o primeiro comando */
+				if (sql == null) {
+					sql = batchSql;
+				}
+			} else if (batchSize == 0) {
+				batchParameters = Arrays.copyOf(parameters, parameterCount);
+			}
+			batchSize++;
+		}
+
+		private Object execute(Method method, Object[] args) throws Throwable {
+			recordPending();
+			String executed = (args != null && args.length > 0 && args[0] instanceof String s) ? s : sql;
+			boolean batch = method.getName().contains("Batch");
+			long start = System.nanoTime();
+			Object result;
+			try {
+				result = SlowQueryDataSource.invoke(target, method, args);
+			} catch (Throwable e) {
+				long elapsed = System.nanoTime() - start;
+				Reason reason = log.reasonFor(elapsed);
+				if (reason != null) {
+					log.record(elapsed, executed, parameters(batch), batch ? batchSize : 0, -1, reason, e.getMessage());
+				}
+				if (batch) {
+					batchParameters = null;
+					batchSize = 0;
+				}
+				throw e;
+			}
+			long elapsed = System.nanoTime() - start;
+			Reason reason = log.reasonFor(elapsed);
+			int size = batch ? batchSize : 0;
+			Object[] recorded = (reason != null) ? parameters(batch) : null;
+			if (batch) {
+				batchParameters = null;
+				batchSize = 0;
+			}
+			if (reason == null) {
+				return result;
+			}
+
+			if (result instanceof ResultSet resultSet) {
+				pending = new PendingQuery(elapsed, executed, recorded, reason);
+				return proxy(resultSet, pending);
+			}
+			log.record(elapsed, executed, recorded, size, rows(result), reason, null);
+			return result;
+		}
+
+		private Object[] parameters(boolean batch) {
+			if (batch) {
+				return (batchParameters != null) ? batchParameters : new Object[0];
+			}
+			return Arrays.copyOf(parameters, parameterCount);
+		}
+
+		private void recordPending() {
+			if (pending != null) {
+				pending.record();
+				pending = null;
+			}
+		}
+	}
+
+	/* linhas alteradas por executeUpdate ou executeBatch */
+	private static long rows(Object result) {
+		if (result instanceof Integer count) {
+			return count;
+		}
+		if (result instanceof Long count) {
+			return count;
+		}
+		long rows = 0;
+		if (result instanceof int[] counts) {
+			for (int count : counts) {
+				rows += Math.max(0, count);
+			}
+			return rows;
+		}
+		if (result instanceof long[] counts) {
+			for (long count : counts) {
+				rows += Math.max(0, count);
+			}
+			return rows;
+		}
+		return -1;
+	}
+
+	private ResultSet proxy(ResultSet target, PendingQuery pending) {
+		return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] { ResultSet.class },
+				(proxy, method, args) -> {
+					switch (method.getName()) {
+					case "equals":
+						return proxy == args[0];
+					case "hashCode":
+						return System.identityHashCode(proxy);
+					case "next":
+						Object hasNext = invoke(target, method, args);
+						if (Boolean.TRUE.equals(hasNext)) {
+							pending.rows++;
+						}
+						return hasNext;
+					case "close":
+						pending.record();
+						return invoke(target, method, args);
+					default:
+						return invoke(target, method, args);
+					}
+				});
+	}
+
+	/* uma consulta registrada só no fechamento do ResultSet, com as linhas lidas */
+	private class PendingQuery {
+
+		private final long elapsedNanos;
+		private final String sql;
+		private final Object[] parameters;
+		private final Reason reason;
+		private long rows;
+		private boolean recorded;
+
+		PendingQuery(long elapsedNanos, String sql, Object[] parameters, Reason reason) {
+			this.elapsedNanos = elapsedNanos;
+			this.sql = sql;
+			this.parameters = parameters;
+			this.reason = reason;
+		}
+
+		void record() {
+			if (!recorded) {
+				recorded = true;
+				log.record(elapsedNanos, sql, parameters, 0, rows, reason, null);
+			}
+		}
+	}
+}
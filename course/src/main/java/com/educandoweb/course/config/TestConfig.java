@@ -5,6 +5,7 @@ import java.util.Arrays;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 
@@ -53,6 +54,11 @@ import com.educandoweb.course.repositories.UserRepository;
 
 @Configuration
 @Profile("test")
+/* 
+ * com course.seed.enabled=true o banco é populado pelo DataSeeder, em
+ * volume, e não por essa classe.
+ * */
+@ConditionalOnProperty(name = "course.seed.enabled", havingValue = "false", matchIfMissing = true)
 public class TestConfig implements CommandLineRunner {
    
 	/*
@@ -145,7 +151,7 @@ public class TestConfig implements CommandLineRunner {
 		
 		/* salvando todos os orderItems.
 		 * */
-		orderItemRepository.saveAll(Arrays.asList(oi1, oi2, oi3));
+		orderItemRepository.saveAll(Arrays.asList(oi1, oi2, oi3, oi4));
 		
 		/*
 		 *  Numa relação um para um você não vai chamar o repository
@@ -163,8 +169,14 @@ public class TestConfig implements CommandLineRunner {
 		
 		/* Salvando o objeto o1 do tipo Order com um payment
 		 * associado a ele, e o jpa vai tratar de salvar o Payment.
+		 * 
+		 * Cada OrderItem criado já somou o seu subtotal ao total do
+		 * seu Order, então os Orders são salvos novamente, numa única
+		 * vez, para gravar o total em tb_order: como o Order tem
+		 * coluna de versão, salvar de novo um objeto desatualizado
+		 * falharia (ObjectOptimisticLockingFailureException).
 		 * */
-		orderRepository.save(o1);
+		orderRepository.saveAll(Arrays.asList(o1, o2, o3));
 		
 	}
 }
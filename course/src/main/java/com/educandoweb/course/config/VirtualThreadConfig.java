@@ -0,0 +1,63 @@
+package com.educandoweb.course.config;
+
+import java.sql.SQLException;
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/*
+ * Configuração do modo virtual threads (spring.threads.virtual.enabled=true
+ * rodando em Java 21 ou mais novo). Nesse modo o Tomcat atende cada
+ * requisição numa virtual thread, e o DataSource passa a exigir uma
+ * licença por conexão (JdbcPermitDataSource), para que a quantidade de
+ * requisições dentro do pool de conexões continue limitada.
+ *
+ * Em Java 17 a propriedade é ignorada e esta configuração não é usada.
+ * */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+	/*
+	 * O método é static para que o BeanPostProcessor seja criado antes
+	 * dos outros beans, sem criar esta classe de configuração.
+	 * */
+	@Bean
+	public static BeanPostProcessor jdbcPermitPostProcessor(
+			@Value("${course.jdbc.permits:${spring.datasource.hikari.maximum-pool-size:10}}") int permits,
+			@Value("${course.jdbc.permit-timeout:PT30S}") Duration timeout) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+				if (bean instanceof DataSource dataSource && !(bean instanceof JdbcPermitDataSource)) {
+					return new JdbcPermitDataSource(dataSource, permits, timeout);
+				}
+				return bean;
+			}
+		};
+	}
+
+	/* métricas das licenças, exportadas junto com as do pool (hikaricp.*) */
+	@Bean
+	public MeterBinder jdbcPermitMetrics(DataSource dataSource) {
+		return registry -> {
+			try {
+				if (dataSource.isWrapperFor(JdbcPermitDataSource.class)) {
+					dataSource.unwrap(JdbcPermitDataSource.class).bindTo(registry);
+				}
+			} catch (SQLException e) {
+				throw new IllegalStateException(e);
+			}
+		};
+	}
+}
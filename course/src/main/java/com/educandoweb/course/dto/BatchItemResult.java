@@ -0,0 +1,22 @@
+package com.educandoweb.course.dto;
+
+/* 
+ * Resultado de um registro da inserção em lote, index é a posição do
+ * registro na lista enviada, id é o id gerado quando ele foi criado e
+ * error é o motivo da falha quando não foi.
+ * */
+public record BatchItemResult(int index, Status status, Long id, String error) {
+
+	public enum Status {
+		CREATED,
+		FAILED
+	}
+
+	public static BatchItemResult created(int index, Long id) {
+		return new BatchItemResult(index, Status.CREATED, id, null);
+	}
+
+	public static BatchItemResult failed(int index, String error) {
+		return new BatchItemResult(index, Status.FAILED, null, error);
+	}
+}
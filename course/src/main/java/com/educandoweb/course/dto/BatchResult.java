@@ -0,0 +1,15 @@
+package com.educandoweb.course.dto;
+
+import java.util.List;
+
+/* 
+ * Resposta da inserção em lote, com o resultado de cada registro na
+ * mesma ordem em que eles foram enviados.
+ * */
+public record BatchResult(int created, int failed, List<BatchItemResult> results) {
+
+	public static BatchResult of(List<BatchItemResult> results) {
+		int created = (int) results.stream().filter(r -> r.status() == BatchItemResult.Status.CREATED).count();
+		return new BatchResult(created, results.size() - created, results);
+	}
+}
@@ -0,0 +1,20 @@
+package com.educandoweb.course.dto;
+
+import org.hibernate.stat.CacheRegionStatistics;
+
+/* 
+ * Acertos, falhas e gravações de uma região do cache de segundo nível,
+ * contados desde a inicialização da aplicação.
+ * */
+public record CacheRegionStats(String region, long hits, long misses, long puts, double hitRatio) {
+
+	public static CacheRegionStats of(String region, CacheRegionStatistics statistics) {
+		long hits = statistics.getHitCount();
+		long misses = statistics.getMissCount();
+		return new CacheRegionStats(region, hits, misses, statistics.getPutCount(), ratio(hits, misses));
+	}
+
+	static double ratio(long hits, long misses) {
+		return (hits + misses == 0) ? 0.0 : (double) hits / (hits + misses);
+	}
+}
@@ -0,0 +1,17 @@
+package com.educandoweb.course.dto;
+
+import java.util.List;
+
+/* 
+ * Estatísticas do cache de segundo nível: o total de todas as regiões
+ * de entidades e coleções, o cache de consultas e cada região.
+ * */
+public record CacheStats(long hits, long misses, long puts, double hitRatio,
+		long queryCacheHits, long queryCacheMisses, long queryCachePuts, List<CacheRegionStats> regions) {
+
+	public CacheStats(long hits, long misses, long puts, long queryCacheHits, long queryCacheMisses,
+			long queryCachePuts, List<CacheRegionStats> regions) {
+		this(hits, misses, puts, CacheRegionStats.ratio(hits, misses), queryCacheHits, queryCacheMisses,
+				queryCachePuts, regions);
+	}
+}
@@ -0,0 +1,13 @@
+package com.educandoweb.course.dto;
+
+import com.educandoweb.course.entities.Category;
+
+/* 
+ * Modelo de leitura de uma Category.
+ * */
+public record CategoryDTO(Long id, String name) {
+
+	public CategoryDTO(Category category) {
+		this(category.getId(), category.getName());
+	}
+}
@@ -0,0 +1,7 @@
+package com.educandoweb.course.dto;
+
+/* 
+ * Número de Products de uma Category entre os Products filtrados.
+ * */
+public record CategoryFacet(Long id, long count) {
+}
@@ -0,0 +1,19 @@
+package com.educandoweb.course.dto;
+
+import java.time.Instant;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/* 
+ * Evento de alteração de uma entidade, entregue pelo OutboxRelay.
+ * sequence é a posição do evento no log de eventos (EventLog), crescente
+ * e sem repetição, usada como cursor em GET /events?after=. payload é o
+ * JSON gravado no outbox (NullNode quando a entidade foi apagada).
+ * */
+public record ChangeEvent(long sequence, String aggregate, Long aggregateId, String type, Instant moment,
+		JsonNode payload) {
+
+	public ChangeEvent withSequence(long newSequence) {
+		return new ChangeEvent(newSequence, aggregate, aggregateId, type, moment, payload);
+	}
+}
@@ -0,0 +1,9 @@
+package com.educandoweb.course.dto;
+
+import java.time.LocalDate;
+
+/* 
+ * Vendas de um dia (UTC).
+ * */
+public record DailySales(LocalDate day, SalesReport sales) {
+}
@@ -0,0 +1,11 @@
+package com.educandoweb.course.dto;
+
+import java.util.List;
+
+/* 
+ * Resposta de GET /events: os eventos depois do cursor pedido e o
+ * cursor da próxima chamada (a sequence do último evento, ou o mesmo
+ * cursor quando não houve eventos até o fim da espera).
+ * */
+public record EventBatch(long next, List<ChangeEvent> events) {
+}
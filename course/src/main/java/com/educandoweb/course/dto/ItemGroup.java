@@ -0,0 +1,10 @@
+package com.educandoweb.course.dto;
+
+import java.math.BigDecimal;
+
+/* 
+ * Um grupo de uma varredura dos OrderItems: a chave (id do product ou
+ * do Order, status ou dia), os items, as unidades e a receita.
+ * */
+public record ItemGroup(String key, long items, long units, BigDecimal revenue) {
+}
@@ -0,0 +1,10 @@
+package com.educandoweb.course.dto;
+
+import java.util.List;
+
+/* 
+ * Resultado de uma varredura dos OrderItems: as linhas varridas, as que
+ * passaram no filtro, os grupos de maior receita e o tempo da varredura.
+ * */
+public record ItemScanReport(long scanned, long matched, double millis, List<ItemGroup> groups) {
+}
@@ -0,0 +1,16 @@
+package com.educandoweb.course.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+import com.educandoweb.course.entities.enums.OrderStatus;
+
+/* 
+ * Dados de entrada de um Order na inserção em lote (POST /orders/batch).
+ * 
+ * moment e orderStatus são opcionais (valem o instante atual e
+ * WAITING_PAYMENT), payment também é opcional.
+ * */
+public record OrderInsertDTO(Instant moment, OrderStatus orderStatus, Long clientId,
+		List<OrderItemInsertDTO> items, PaymentInsertDTO payment) {
+}
@@ -0,0 +1,8 @@
+package com.educandoweb.course.dto;
+
+/* 
+ * Dados de entrada de um OrderItem, quando o price não é informado
+ * é usado o price atual do Product.
+ * */
+public record OrderItemInsertDTO(Long productId, Integer quantity, Double price) {
+}
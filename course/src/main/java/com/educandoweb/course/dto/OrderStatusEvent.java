@@ -0,0 +1,14 @@
+package com.educandoweb.course.dto;
+
+import java.time.Instant;
+
+import com.educandoweb.course.entities.enums.OrderStatus;
+
+/* 
+ * Evento de GET /orders/stream: o Order mudou de previous para status
+ * (previous é null para um Order novo, ou um Order que o stream ainda
+ * não conhecia). moment é o momento da alteração.
+ * */
+public record OrderStatusEvent(Long orderId, Long clientId, OrderStatus previous, OrderStatus status,
+		Instant moment) {
+}
@@ -0,0 +1,14 @@
+package com.educandoweb.course.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import com.educandoweb.course.entities.enums.OrderStatus;
+
+/* 
+ * Modelo de leitura resumido de um Order, com o total gravado na
+ * própria tb_order, sem carregar a coleção de items, os products,
+ * o payment e o client.
+ * */
+public record OrderSummary(Long id, Instant moment, OrderStatus orderStatus, Long clientId, BigDecimal total) {
+}
@@ -0,0 +1,10 @@
+package com.educandoweb.course.dto;
+
+import com.educandoweb.course.entities.enums.OrderStatus;
+
+/* 
+ * Corpo de POST /orders/{id}/transitions, o status para o qual o Order
+ * deve passar, e a resposta, com o id do Order e o novo status.
+ * */
+public record OrderTransitionDTO(Long id, OrderStatus status) {
+}
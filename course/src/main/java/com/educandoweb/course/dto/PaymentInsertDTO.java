@@ -0,0 +1,6 @@
+package com.educandoweb.course.dto;
+
+import java.time.Instant;
+
+public record PaymentInsertDTO(Instant moment) {
+}
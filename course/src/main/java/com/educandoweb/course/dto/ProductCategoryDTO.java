@@ -0,0 +1,12 @@
+package com.educandoweb.course.dto;
+
+/* 
+ * Linha da tabela de associação tb_product_category, usada para
+ * montar as categories de uma página de ProductDTO numa única consulta.
+ * */
+public record ProductCategoryDTO(Long productId, Long categoryId, String categoryName) {
+
+	public CategoryDTO toCategory() {
+		return new CategoryDTO(categoryId, categoryName);
+	}
+}
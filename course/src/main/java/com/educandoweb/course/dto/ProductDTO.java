@@ -0,0 +1,36 @@
+package com.educandoweb.course.dto;
+
+import java.util.Comparator;
+import java.util.List;
+
+import com.educandoweb.course.entities.Product;
+
+/* 
+ * Modelo de leitura de um Product.
+ * 
+ * A consulta do repository usa o construtor sem as categories, elas
+ * são associadas depois com withCategories, a partir de uma segunda
+ * consulta feita para a página inteira (ProductRepository.findCategories).
+ * 
+ * O construtor que recebe a entidade é usado na busca por id, que lê o
+ * Product e as suas categories do cache de segundo nível.
+ * */
+public record ProductDTO(Long id, String name, String description, Double price, String imgUrl,
+		List<CategoryDTO> categories) {
+
+	public ProductDTO(Long id, String name, String description, Double price, String imgUrl) {
+		this(id, name, description, price, imgUrl, List.of());
+	}
+
+	public ProductDTO(Product product) {
+		this(product.getId(), product.getName(), product.getDescription(), product.getPrice(), product.getImgUrl(),
+				product.getCategories().stream()
+						.sorted(Comparator.comparing(c -> c.getId()))
+						.map(CategoryDTO::new)
+						.toList());
+	}
+
+	public ProductDTO withCategories(List<CategoryDTO> categories) {
+		return new ProductDTO(id, name, description, price, imgUrl, categories);
+	}
+}
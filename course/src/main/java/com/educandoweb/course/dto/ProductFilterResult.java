@@ -0,0 +1,12 @@
+package com.educandoweb.course.dto;
+
+import java.util.List;
+
+/* 
+ * Página do GET /products filtrado por categories: total é o número de
+ * Products com o filtro, nextCursor o token da próxima página (null na
+ * última) e facets a contagem de cada Category entre esses Products.
+ * */
+public record ProductFilterResult(long total, List<ProductDTO> content, int size, String nextCursor,
+		List<CategoryFacet> facets) {
+}
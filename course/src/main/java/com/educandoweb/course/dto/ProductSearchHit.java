@@ -0,0 +1,7 @@
+package com.educandoweb.course.dto;
+
+/* 
+ * Um Product encontrado pela busca, com a pontuação usada na ordenação.
+ * */
+public record ProductSearchHit(ProductDTO product, double score) {
+}
@@ -0,0 +1,10 @@
+package com.educandoweb.course.dto;
+
+import java.util.List;
+
+/* 
+ * Página da busca de Products: total é o número de Products encontrados
+ * e nextCursor o token da próxima página (null na última).
+ * */
+public record ProductSearchResult(long total, List<ProductSearchHit> content, int size, String nextCursor) {
+}
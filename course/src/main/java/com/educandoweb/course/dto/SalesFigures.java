@@ -0,0 +1,9 @@
+package com.educandoweb.course.dto;
+
+import java.math.BigDecimal;
+
+/* 
+ * Receita, unidades vendidas e items (linhas de Order) de um agregado.
+ * */
+public record SalesFigures(BigDecimal revenue, long units, long items) {
+}
@@ -0,0 +1,12 @@
+package com.educandoweb.course.dto;
+
+import java.util.Map;
+
+import com.educandoweb.course.entities.enums.OrderStatus;
+
+/* 
+ * Vendas de um product, category ou dia: o total de todos os status e
+ * o valor de cada status do Order.
+ * */
+public record SalesReport(SalesFigures total, Map<OrderStatus, SalesFigures> byStatus) {
+}
@@ -0,0 +1,39 @@
+package com.educandoweb.course.dto;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.educandoweb.course.services.jdbc.SlowQuery;
+
+/* 
+ * Um comando do log de comandos SQL lentos, com os parâmetros já
+ * convertidos para texto (os textos aparecem mascarados, só com o
+ * tamanho, veja SlowQueryLog).
+ * */
+public record SlowQueryDTO(long sequence, Instant moment, double elapsedMillis, String sql, List<String> parameters,
+		int batchSize, long rows, boolean sampled, String thread, String error) {
+
+	/* valores maiores que isso aparecem cortados */
+	private static final int MAX_PARAMETER_LENGTH = 200;
+
+	public static SlowQueryDTO of(SlowQuery query) {
+		List<String> parameters = new ArrayList<>(query.parameters().length);
+		for (Object parameter : query.parameters()) {
+			parameters.add(format(parameter));
+		}
+		return new SlowQueryDTO(query.sequence(), query.moment(), query.elapsedNanos() / 1e6, query.sql(),
+				parameters, query.batchSize(), query.rows(), query.sampled(), query.thread(), query.error());
+	}
+
+	private static String format(Object parameter) {
+		if (parameter == null) {
+			return "null";
+		}
+		if (parameter instanceof byte[] bytes) {
+			return "<" + bytes.length + " bytes>";
+		}
+		String text = parameter.toString();
+		return (text.length() > MAX_PARAMETER_LENGTH) ? text.substring(0, MAX_PARAMETER_LENGTH) + "..." : text;
+	}
+}
@@ -0,0 +1,12 @@
+package com.educandoweb.course.dto;
+
+import java.util.List;
+
+/* 
+ * Configuração e conteúdo do log de comandos SQL lentos: recorded é o
+ * total de comandos registrados desde a inicialização, dos quais só os
+ * últimos capacity continuam no log.
+ * */
+public record SlowQueryReport(double thresholdMillis, double sampleRate, int capacity, long recorded,
+		List<SlowQueryDTO> queries) {
+}
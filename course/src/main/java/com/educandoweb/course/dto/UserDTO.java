@@ -0,0 +1,15 @@
+package com.educandoweb.course.dto;
+
+/* 
+ * Modelo de leitura (read model) de um User.
+ * 
+ * Os DTOs (Data Transfer Objects) são montados direto pelas consultas
+ * dos repositories com uma expressão construtora (SELECT new ...), então
+ * as rotas de leitura não precisam carregar entidades gerenciadas pelo
+ * JPA, com seus proxies e cópias para o dirty checking, só para gerar
+ * o JSON.
+ * 
+ * Repare que a senha do User não faz parte do modelo de leitura.
+ * */
+public record UserDTO(Long id, String name, String email, String phone) {
+}
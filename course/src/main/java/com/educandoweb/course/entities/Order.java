@@ -1,27 +1,56 @@
 package com.educandoweb.course.entities;
 
 import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.Instant;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
 
 import com.educandoweb.course.entities.enums.OrderStatus;
+import com.educandoweb.course.services.analytics.OrderAnalyticsListener;
+import com.educandoweb.course.services.cache.ResponseCacheListener;
+import com.educandoweb.course.services.events.OutboxListener;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 @Entity
-@Table(name = "tb_order")
+@EntityListeners({ ResponseCacheListener.class, OrderAnalyticsListener.class, OutboxListener.class })
+/* 
+ * O índice (moment, id) atende a paginação por chave dos Orders,
+ * veja OrderRepository.findPageAfter.
+ * 
+ * O índice (client_id, moment desc, id desc) atende o histórico de
+ * Orders de um User, já na ordem do mais recente para o mais antigo,
+ * veja OrderRepository.findClientPageAfter. Ele também leva
+ * order_status e total, as outras colunas da página: sem elas o H2
+ * prefere o índice da chave estrangeira client_id e ordena as linhas
+ * sempre que há o filtro opcional de status.
+ * 
+ * O índice (order_status, id) atende a fila de Orders por status dos
+ * workers, veja OrderRepository.findClaimable.
+ * */
+@Table(name = "tb_order", indexes = {
+		@Index(name = "ix_order_moment_id", columnList = "moment, id"),
+		@Index(name = "ix_order_client_moment_id", columnList = "client_id, moment desc, id desc, order_status, total"),
+		@Index(name = "ix_order_status_id", columnList = "order_status, id") })
 public class Order implements Serializable {
    
 	/**
@@ -30,7 +59,8 @@ public class Order implements Serializable {
 	private static final long serialVersionUID = 1L;
 	
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_order")
+	@SequenceGenerator(name = "seq_order", sequenceName = "seq_order", allocationSize = 50)
 	private Long id;
 	/* 
 	 * Antes da versão 8 do java, usamos o tipo Date para trabalhar
@@ -39,16 +69,24 @@ public class Order implements Serializable {
 	 * 
 	 * @JsonFormat - annotation para garantir que o moment seja exibido no Json
 	 * no formato ISO 8601 com data-hora global com o fuso GMT/UTC.
+	 * 
+	 * O moment é obrigatório, ele faz parte da chave da paginação por
+	 * chave (moment, id), veja Cursor.encode.
 	 * */
 	@JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-mm-dd'T'hh:mm:ss'Z'", timezone="GMT")
+	@Column(nullable = false)
 	private Instant moment;
 	
 	/* 
-	 * Alteramos o tipo de da enumeração de OrderStatus para Integer
-	 * para dizer explícitamente que estou gravando no banco de dados
-	 * um número inteiro.
+	 * O OrderStatus é gravado no banco de dados como o seu código, um
+	 * número inteiro, pelo OrderStatusConverter, e não pela posição
+	 * (ordinal) do estado na enumeração.
+	 * 
+	 * Todo Order tem um status, as leituras por JDBC (SalesAnalytics,
+	 * OrderItemSnapshot, OrderStatusHub) contam com isso.
 	 * */
-	private Integer orderStatus;
+	@Column(nullable = false)
+	private OrderStatus orderStatus;
 	
 	/* 
 	 * @ManyToOne - annotation para imformar para o jpa que essa
@@ -93,6 +131,43 @@ public class Order implements Serializable {
 	@OneToOne(mappedBy = "order", cascade = CascadeType.ALL)
 	private Payment payment;
 	
+	/* 
+	 * Total do Order gravado na própria tabela tb_order (desnormalizado),
+	 * para que listar Orders com o total não precise ler tb_order_item.
+	 * 
+	 * Ele é mantido de forma incremental: cada OrderItem adicionado,
+	 * removido ou alterado soma ou subtrai a diferença do seu subtotal,
+	 * veja addItem, removeItem e OrderItem.setPrice/setQuantity.
+	 * 
+	 * BigDecimal é usado em vez de double para que somas e subtrações
+	 * sucessivas não acumulem erro de arredondamento.
+	 * */
+	@Column(precision = 19, scale = 2, nullable = false)
+	private BigDecimal total = BigDecimal.ZERO.setScale(2);
+	
+	/* 
+	 * @Version - coluna de versão, incrementada pelo Hibernate a cada
+	 * alteração do Order (inclusive do total, quando um item muda), ela
+	 * entra no ETag de GET /orders/{id}.
+	 * */
+	@JsonIgnore
+	@Version
+	private Long version;
+	
+	/* 
+	 * Reserva (lease) do Order por um worker da fila de Orders: quem
+	 * reservou e até quando, veja OrderQueue. As colunas só são gravadas
+	 * por SQL (OrderRepository.lease e release), o Hibernate nunca as
+	 * escreve, assim gravar o Order pela entidade não desfaz uma reserva.
+	 * */
+	@JsonIgnore
+	@Column(length = 36, insertable = false, updatable = false)
+	private String leaseOwner;
+	
+	@JsonIgnore
+	@Column(insertable = false, updatable = false)
+	private Instant leaseUntil;
+	
 	public Order() {}
 	
 	/* O atributo payment não foi colocado no construtor porque
@@ -103,6 +178,9 @@ public class Order implements Serializable {
 	 * método setPayment.
 	 * */
 	public Order(Long id, Instant moment,OrderStatus orderStatus, User client) {
+		if (orderStatus == null) {
+			throw new IllegalArgumentException("Order status is required");
+		}
 		this.id = id;
 		this.moment = moment;
 		setOrderStatus(orderStatus);
@@ -110,17 +188,12 @@ public class Order implements Serializable {
 	}
 
 	public OrderStatus getOrderStatus() {
-		/* convertendo um valor do tipo Integer para OrderStatus */
-		return OrderStatus.valueOf(orderStatus);
+		return orderStatus;
 	}
 
 	public void setOrderStatus(OrderStatus orderStatus) {
-		/* 
-		 * convertendo um valor do tipo OrderStatus para um
-		 * valor do tipo Integer.
-		 * */
 		if(orderStatus != null) {
-		   this.orderStatus = orderStatus.getCode();
+		   this.orderStatus = orderStatus;
 		}
 	}
 
@@ -160,18 +233,65 @@ public class Order implements Serializable {
 		this.payment = payment;
 	}
 	
-	/* Método responsável por calcular o total de todos OrderItem
-	 * associados ao Order.
+	/* Método responsável por devolver o total de todos OrderItem
+	 * associados ao Order, que já está calculado, então ele não
+	 * precisa carregar a coleção de items.
 	 * 
 	 * O prefixo get é por conta do padrão usado pelo java EE para
 	 * que o resultado desse método possa ser exibido no JSON.
 	 *  */
-	public double getTotal() {
-		double sum = 0.0;
+	public BigDecimal getTotal() {
+		return total;
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+
+	public String getLeaseOwner() {
+		return leaseOwner;
+	}
+
+	public Instant getLeaseUntil() {
+		return leaseUntil;
+	}
+	
+	/* 
+	 * Associa um OrderItem ao Order e soma o seu subtotal ao total.
+	 * */
+	public void addItem(OrderItem item) {
+		if (items.add(item)) {
+			applySubTotalChange(BigDecimal.ZERO, item.subTotalAmount());
+		}
+	}
+	
+	/* 
+	 * Remove um OrderItem do Order e subtrai o seu subtotal do total.
+	 * */
+	public void removeItem(OrderItem item) {
+		if (items.remove(item)) {
+			applySubTotalChange(item.subTotalAmount(), BigDecimal.ZERO);
+		}
+	}
+	
+	/* 
+	 * Recalcula o total a partir de todos os items, serve para corrigir
+	 * o valor gravado caso tb_order_item tenha sido alterada por fora
+	 * do JPA, esse método carrega a coleção de items.
+	 * */
+	public void recalculateTotal() {
+		BigDecimal sum = BigDecimal.ZERO;
 		for(OrderItem orderItem : items) {
-			sum += orderItem.getSubTotal();
+			sum = sum.add(orderItem.subTotalAmount());
 		}
-		return sum;
+		total = sum.setScale(2, RoundingMode.HALF_EVEN);
+	}
+	
+	/* 
+	 * Chamado pelo OrderItem quando o seu price ou quantity muda.
+	 * */
+	void applySubTotalChange(BigDecimal oldSubTotal, BigDecimal newSubTotal) {
+		total = total.subtract(oldSubTotal).add(newSubTotal).setScale(2, RoundingMode.HALF_EVEN);
 	}
 
 	@Override
@@ -1,16 +1,21 @@
 package com.educandoweb.course.entities;
 
 import java.io.Serializable;
+import java.math.BigDecimal;
 import java.util.Objects;
 
 import com.educandoweb.course.entities.pk.OrderItemPK;
+import com.educandoweb.course.services.analytics.OrderAnalyticsListener;
+import com.educandoweb.course.services.cache.ResponseCacheListener;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import jakarta.persistence.EmbeddedId;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Table;
 
 @Entity
+@EntityListeners({ ResponseCacheListener.class, OrderAnalyticsListener.class })
 @Table(name = "tb_order_item")
 public class OrderItem implements Serializable {
   
@@ -81,6 +86,13 @@ public class OrderItem implements Serializable {
 		id.setProduct(product);
 		this.price = price;
 		this.quantity = quantity;
+		
+		/* O OrderItem se associa ao Order, o que soma o seu subtotal
+		 * ao total gravado no Order.
+		 * */
+		if (order != null) {
+			order.addItem(this);
+		}
 	}
 	
 	/* A annotation foi colocada aqui, porque o atributo do tipo Order 
@@ -96,7 +108,14 @@ public class OrderItem implements Serializable {
 	}
 	
 	public void setOrder(Order order) {
+		Order previous = id.getOrder();
+		if (previous != null) {
+			previous.removeItem(this);
+		}
 		id.setOrder(order);
+		if (order != null) {
+			order.addItem(this);
+		}
 	}
 	
 	public Product getProduct() {
@@ -112,7 +131,9 @@ public class OrderItem implements Serializable {
 	}
 
 	public void setPrice(Double price) {
+		BigDecimal oldSubTotal = subTotalAmount();
 		this.price = price;
+		subTotalChanged(oldSubTotal);
 	}
 
 	public Integer getQuantity() {
@@ -120,7 +141,9 @@ public class OrderItem implements Serializable {
 	}
 
 	public void setQuantity(Integer quantity) {
+		BigDecimal oldSubTotal = subTotalAmount();
 		this.quantity = quantity;
+		subTotalChanged(oldSubTotal);
 	}
 	
 	/* Na plataforma java EE, oque vale é o método get, então para
@@ -133,6 +156,29 @@ public class OrderItem implements Serializable {
 	public double getSubTotal() {
 		return price * quantity;
 	}
+	
+	/* 
+	 * Subtotal em BigDecimal, usado para manter o total do Order.
+	 * 
+	 * O nome não tem o prefixo get para que ele não apareça no JSON.
+	 * */
+	BigDecimal subTotalAmount() {
+		if (price == null || quantity == null) {
+			return BigDecimal.ZERO;
+		}
+		return BigDecimal.valueOf(price).multiply(BigDecimal.valueOf(quantity));
+	}
+	
+	/* 
+	 * Repassa para o Order a diferença do subtotal, para que o total
+	 * gravado no Order continue consistente.
+	 * */
+	private void subTotalChanged(BigDecimal oldSubTotal) {
+		Order order = id.getOrder();
+		if (order != null) {
+			order.applySubTotalChange(oldSubTotal, subTotalAmount());
+		}
+	}
 
 	@Override
 	public int hashCode() {
@@ -0,0 +1,107 @@
+package com.educandoweb.course.entities;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/* 
+ * Linha da tabela de saída de eventos (outbox): uma alteração de um
+ * User, Order ou Payment, gravada na mesma transação da alteração, veja
+ * OutboxWriter. O OutboxRelay lê as linhas confirmadas, entrega os
+ * eventos e apaga as linhas, então a tabela só guarda os eventos ainda
+ * não entregues.
+ * 
+ * As linhas são gravadas e lidas por JDBC, a entidade só descreve a
+ * tabela para o Hibernate criá-la.
+ * 
+ * writer é a instância que gravou a linha (OutboxRelay.getWriter): cada
+ * instância entrega as suas linhas, o índice (writer, id) é o da busca
+ * dessas linhas.
+ * */
+@Entity
+@Table(name = "tb_outbox", indexes = { @Index(name = "ix_outbox_writer_id", columnList = "writer, id") })
+public class OutboxEvent implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	/* nome da entidade alterada (User, Order, Payment) */
+	@Column(length = 32, nullable = false)
+	private String aggregate;
+
+	@Column(nullable = false)
+	private Long aggregateId;
+
+	/* ChangeType */
+	@Column(length = 16, nullable = false)
+	private String type;
+
+	@Column(nullable = false)
+	private Instant moment;
+
+	@Column(length = 36, nullable = false)
+	private String writer;
+
+	/* estado da entidade depois da alteração, em JSON (null quando apagada) */
+	@Column(length = 4000)
+	private String payload;
+
+	public OutboxEvent() {
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getAggregate() {
+		return aggregate;
+	}
+
+	public Long getAggregateId() {
+		return aggregateId;
+	}
+
+	public String getType() {
+		return type;
+	}
+
+	public Instant getMoment() {
+		return moment;
+	}
+
+	public String getWriter() {
+		return writer;
+	}
+
+	public String getPayload() {
+		return payload;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(id);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		OutboxEvent other = (OutboxEvent) obj;
+		return Objects.equals(id, other.id);
+	}
+}
@@ -4,24 +4,28 @@ import java.io.Serializable;
 import java.time.Instant;
 import java.util.Objects;
 
+import com.educandoweb.course.services.cache.ResponseCacheListener;
+import com.educandoweb.course.services.events.OutboxListener;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Id;
 import jakarta.persistence.MapsId;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
 
 @Entity
+@EntityListeners({ ResponseCacheListener.class, OutboxListener.class })
 @Table(name = "tb_payment")
 public class Payment implements Serializable {
 
 	private static final long serialVersionUID = 1L;
   
+  /* 
+   * O id do Payment não é gerado, ele é o mesmo id do Order (@MapsId).
+   * */
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
   private Long id;
   private Instant moment;
   
@@ -5,9 +5,16 @@ import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import com.educandoweb.course.config.CacheConfig;
+import com.educandoweb.course.services.cache.ResponseCacheListener;
+import com.educandoweb.course.services.search.ProductSearchListener;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -15,9 +22,18 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 
+/* 
+ * @Cache - guarda o Product no cache de segundo nível, compartilhado
+ * entre todas as sessões, o catálogo muda pouco e é lido em toda
+ * renderização de um Order. READ_WRITE mantém o cache consistente
+ * quando um Product é alterado.
+ * */
 @Entity
+@EntityListeners({ ResponseCacheListener.class, ProductSearchListener.class })
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.PRODUCT_REGION)
 @Table(name = "tb_product")
 public class Product implements Serializable {
   /**
@@ -26,7 +42,8 @@ public class Product implements Serializable {
 	private static final long serialVersionUID = 1L;
 	
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_product")
+  @SequenceGenerator(name = "seq_product", sequenceName = "seq_product", allocationSize = 50)
   private Long id;
   private String name;
   private String description;
@@ -57,6 +74,7 @@ public class Product implements Serializable {
    *  na tabela de associação "tb_product_category"
    * */
   
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.PRODUCT_CATEGORIES_REGION)
   @ManyToMany
   @JoinTable(name = "tb_product_category",
   joinColumns = @JoinColumn(name = "product_id"),
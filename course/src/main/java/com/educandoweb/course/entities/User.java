@@ -5,13 +5,17 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
+import com.educandoweb.course.services.cache.ResponseCacheListener;
+import com.educandoweb.course.services.events.OutboxListener;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 
 /* @Entity - annotation para fazer o mapeamento do JPA da nossa
@@ -40,6 +44,7 @@ import jakarta.persistence.Table;
  * JPARepository.
  * */
 @Entity
+@EntityListeners({ ResponseCacheListener.class, OutboxListener.class })
 @Table(name = "tb_user")
 public class User implements Serializable {
 	
@@ -51,9 +56,17 @@ public class User implements Serializable {
 	  * 
 	  * @GeneratedValue - annotation para informar para o JPA que
 	  * o valor da chave primária é auto-incrementável(auto-gerado)
+	  * 
+	  * O valor vem de uma sequence do banco de dados e não de uma coluna
+	  * IDENTITY: com IDENTITY o Hibernate precisa executar cada insert na
+	  * hora para descobrir o id gerado, o que desliga a inserção em lote
+	  * (JDBC batch). Com a sequence e allocationSize = 50 o Hibernate
+	  * reserva 50 ids por chamada à sequence (otimizador pooled-lo) e
+	  * envia os inserts em lote no flush.
 	  * */
 	  @Id
-	  @GeneratedValue(strategy = GenerationType.IDENTITY)
+	  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_user")
+	  @SequenceGenerator(name = "seq_user", sequenceName = "seq_user", allocationSize = 50)
 	  private Long id;
 	  private String name;
 	  private String email;
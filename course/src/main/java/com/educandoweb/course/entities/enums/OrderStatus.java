@@ -40,28 +40,52 @@ public enum OrderStatus {
 		return code;
 	}
 	
+	/* 
+	 * Transições permitidas: WAITING_PAYMENT -> PAID -> SHIPPED ->
+	 * DELIVERED, e o cancelamento (CANCELLED) enquanto o Order ainda
+	 * não foi enviado. DELIVERED e CANCELLED são estados finais.
+	 * */
+	public boolean canTransitionTo(OrderStatus next) {
+		return switch (this) {
+		case WAITING_PAYMENT -> next == PAID || next == CANCELLED;
+		case PAID -> next == SHIPPED || next == CANCELLED;
+		case SHIPPED -> next == DELIVERED;
+		case DELIVERED, CANCELLED -> false;
+		};
+	}
+	
+	/* 
+	 * Estados indexados pelo código, montado uma única vez. O values()
+	 * devolve uma cópia nova do array a cada chamada, então percorrê-lo
+	 * a cada conversão alocava um array por Order lido ou serializado.
+	 * */
+	private static final OrderStatus[] BY_CODE;
+	
+	static {
+		int max = 0;
+		for (OrderStatus value : values()) {
+			max = Math.max(max, value.code);
+		}
+		BY_CODE = new OrderStatus[max + 1];
+		for (OrderStatus value : values()) {
+			BY_CODE[value.code] = value;
+		}
+	}
+	
 	/* 
 	 * Método responsável por retornar um estado de um tipo
 	 * enumerado dado um determinado código, caso o código dado
 	 * não exista, ele retornará uma exceção, ou seja, ele
 	 * é responsável por converter um objeto do tipo Integer
 	 * para OrderStatus.
+	 * 
+	 * A busca é uma leitura do array BY_CODE, sem alocar nada.
 	 * */
 	public static OrderStatus valueOf(int code) {
-		/*
-		 * Percorrendo todos os estados da minha enumeração.
-		 * 
-		 * o método values retorna um array contendo todos os
-		 * estados da minha enumeração, cada um dos estados é
-		 * do tipo OrderStatus.
-		 * */
-		for(OrderStatus value : OrderStatus.values()) {
-			if(value.getCode() == code) {
-				return value;
-			}
+		OrderStatus value = (code >= 0 && code < BY_CODE.length) ? BY_CODE[code] : null;
+		if (value == null) {
+			throw new IllegalArgumentException("Invalid OrderStatus code");
 		}
-		
-		throw new IllegalArgumentException("Invalid OrderStatus code");
+		return value;
 	}
 }
-
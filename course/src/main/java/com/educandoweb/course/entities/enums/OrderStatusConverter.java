@@ -0,0 +1,28 @@
+package com.educandoweb.course.entities.enums;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/* 
+ * Converte OrderStatus para o código gravado no banco de dados
+ * (getCode) e de volta (valueOf), assim o Order guarda o próprio
+ * OrderStatus e a conversão acontece uma vez por leitura ou escrita da
+ * coluna, não a cada getOrderStatus.
+ * 
+ * autoApply - vale para todo atributo do tipo OrderStatus das
+ * entidades e para os parâmetros comparados com eles nas consultas
+ * JPQL, que passam a receber OrderStatus em vez do código.
+ * */
+@Converter(autoApply = true)
+public class OrderStatusConverter implements AttributeConverter<OrderStatus, Integer> {
+
+	@Override
+	public Integer convertToDatabaseColumn(OrderStatus status) {
+		return (status == null) ? null : status.getCode();
+	}
+
+	@Override
+	public OrderStatus convertToEntityAttribute(Integer code) {
+		return (code == null) ? null : OrderStatus.valueOf(code);
+	}
+}
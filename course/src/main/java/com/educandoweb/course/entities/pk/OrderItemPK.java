@@ -38,11 +38,11 @@ public class OrderItemPK implements Serializable {
 	 * */
 	
 	@ManyToOne
-	@JoinColumn(name = "order_id")
+	@JoinColumn(name = "product_id")
 	private Product product;
 	
 	@ManyToOne
-	@JoinColumn(name = "product_id")
+	@JoinColumn(name = "order_id")
 	private Order order;
 	
 	
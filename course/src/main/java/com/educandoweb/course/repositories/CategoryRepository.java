@@ -1,9 +1,29 @@
 package com.educandoweb.course.repositories;
 
+import java.util.List;
+
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import com.educandoweb.course.config.CacheConfig;
+import com.educandoweb.course.dto.CategoryDTO;
 import com.educandoweb.course.entities.Category;
 
+import jakarta.persistence.QueryHint;
+
 public interface CategoryRepository extends JpaRepository<Category, Long> {
     
+	@QueryHints({ @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+			@QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = CacheConfig.QUERY_REGION) })
+	@Query("SELECT new com.educandoweb.course.dto.CategoryDTO(c.id, c.name) FROM Category c ORDER BY c.id ASC LIMIT :limit")
+	List<CategoryDTO> findFirstPage(@Param("limit") int limit);
+	
+	@QueryHints({ @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+			@QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = CacheConfig.QUERY_REGION) })
+	@Query("SELECT new com.educandoweb.course.dto.CategoryDTO(c.id, c.name) "
+			+ "FROM Category c WHERE c.id > :afterId ORDER BY c.id ASC LIMIT :limit")
+	List<CategoryDTO> findPageAfter(@Param("afterId") Long afterId, @Param("limit") int limit);
 }
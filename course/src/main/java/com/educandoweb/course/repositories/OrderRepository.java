@@ -1,9 +1,166 @@
 package com.educandoweb.course.repositories;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import com.educandoweb.course.dto.OrderSummary;
 import com.educandoweb.course.entities.Order;
+import com.educandoweb.course.entities.enums.OrderStatus;
+
+import jakarta.persistence.QueryHint;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
     
+	/* 
+	 * Plano de busca (fetch plan) dos Orders: as associações para um
+	 * (client e payment) vêm na mesma consulta por join, com
+	 * @EntityGraph, e as coleções (items, products e categories) são
+	 * carregadas em lote pela propriedade default_batch_fetch_size.
+	 * 
+	 * Assim serializar uma página de Orders custa um número fixo de
+	 * consultas, em vez de uma consulta por associação de cada Order
+	 * (o problema N+1), veja OrderRepositoryTests.
+	 * */
+	@Override
+	@EntityGraph(attributePaths = {"client", "payment"})
+	Optional<Order> findById(Long id);
+	
+	/* 
+	 * Os Orders são paginados pela chave composta (moment, id), o id
+	 * serve de desempate para Orders feitos no mesmo instante.
+	 * 
+	 * A consulta das próximas páginas parte da última chave devolvida
+	 * e usa o índice ix_order_moment_id, sem OFFSET.
+	 * */
+	@EntityGraph(attributePaths = {"client", "payment"})
+	@Query("SELECT o FROM Order o ORDER BY o.moment ASC, o.id ASC LIMIT :limit")
+	List<Order> findFirstPage(@Param("limit") int limit);
+	
+	@EntityGraph(attributePaths = {"client", "payment"})
+	@Query("SELECT o FROM Order o WHERE o.moment > :moment OR (o.moment = :moment AND o.id > :id) "
+			+ "ORDER BY o.moment ASC, o.id ASC LIMIT :limit")
+	List<Order> findPageAfter(@Param("moment") Instant moment, @Param("id") Long id, @Param("limit") int limit);
+	
+	/* 
+	 * Páginas do modelo de leitura OrderSummary, lidas só da tabela
+	 * tb_order (o total já está gravado nela) e sem carregar entidades.
+	 * */
+	@Query("SELECT new com.educandoweb.course.dto.OrderSummary(o.id, o.moment, o.orderStatus, o.client.id, o.total) "
+			+ "FROM Order o ORDER BY o.moment ASC, o.id ASC LIMIT :limit")
+	List<OrderSummary> findFirstSummaryPage(@Param("limit") int limit);
+	
+	@Query("SELECT new com.educandoweb.course.dto.OrderSummary(o.id, o.moment, o.orderStatus, o.client.id, o.total) "
+			+ "FROM Order o WHERE o.moment > :moment OR (o.moment = :moment AND o.id > :id) "
+			+ "ORDER BY o.moment ASC, o.id ASC LIMIT :limit")
+	List<OrderSummary> findSummaryPageAfter(@Param("moment") Instant moment, @Param("id") Long id,
+			@Param("limit") int limit);
+	
+	/* 
+	 * Histórico de Orders de um User (client), do mais recente para o
+	 * mais antigo, lido do índice ix_order_client_moment_id, sem passar
+	 * pela coleção User.orders. status null traz todos os status.
+	 * 
+	 * A condição da página seguinte é escrita como um intervalo sobre
+	 * moment (o.moment <= :moment) mais o desempate pelo id, assim o
+	 * banco de dados começa a leitura do índice direto na última chave.
+	 * */
+	@Query("SELECT new com.educandoweb.course.dto.OrderSummary(o.id, o.moment, o.orderStatus, o.client.id, o.total) "
+			+ "FROM Order o WHERE o.client.id = :clientId AND (:status IS NULL OR o.orderStatus = :status) "
+			+ "ORDER BY o.moment DESC, o.id DESC LIMIT :limit")
+	List<OrderSummary> findFirstClientPage(@Param("clientId") Long clientId, @Param("status") OrderStatus status,
+			@Param("limit") int limit);
+	
+	@Query("SELECT new com.educandoweb.course.dto.OrderSummary(o.id, o.moment, o.orderStatus, o.client.id, o.total) "
+			+ "FROM Order o WHERE o.client.id = :clientId AND (:status IS NULL OR o.orderStatus = :status) "
+			+ "AND o.moment <= :moment AND (o.moment < :moment OR o.id < :id) "
+			+ "ORDER BY o.moment DESC, o.id DESC LIMIT :limit")
+	List<OrderSummary> findClientPageAfter(@Param("clientId") Long clientId, @Param("status") OrderStatus status,
+			@Param("moment") Instant moment, @Param("id") Long id, @Param("limit") int limit);
+	
+	/* 
+	 * Lê todos os Orders por um cursor somente para frente (forward-only),
+	 * as linhas vão chegando do banco aos poucos (fetch size) em vez de
+	 * serem carregadas todas numa List.
+	 * 
+	 * O Stream precisa ser consumido dentro de uma transação e fechado
+	 * no final (try-with-resources), veja OrderService.exportNdjson.
+	 * */
+	@QueryHints({
+		@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+		@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+		@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+	})
+	@EntityGraph(attributePaths = {"client", "payment"})
+	@Query("SELECT o FROM Order o ORDER BY o.id ASC")
+	Stream<Order> streamAll();
+	
+	/* 
+	 * Muda o status do Order num único UPDATE, sem carregá-lo, só se o
+	 * status atual for um dos from, veja OrderTransitionService. A
+	 * versão é incrementada como numa escrita pelo EntityManager, assim
+	 * o ETag e o controle de concorrência otimista enxergam a mudança.
+	 * Devolve o número de linhas alteradas (0 ou 1).
+	 * */
+	@Modifying
+	@Query("UPDATE Order o SET o.orderStatus = :status, o.version = o.version + 1 "
+			+ "WHERE o.id = :id AND o.orderStatus IN :from")
+	int updateStatus(@Param("id") Long id, @Param("status") OrderStatus status,
+			@Param("from") Collection<OrderStatus> from);
+	
+	@Query("SELECT o.orderStatus FROM Order o WHERE o.id = :id")
+	Optional<OrderStatus> findStatus(@Param("id") Long id);
+	
+	@Query("SELECT o.version FROM Order o WHERE o.id = :id")
+	long findVersion(@Param("id") Long id);
+	
+	/* 
+	 * Fila de Orders por status (OrderQueue): candidatos à reserva, os
+	 * primeiros Orders no status depois de after sem reserva válida,
+	 * lidos sem bloqueio pelo índice (order_status, id).
+	 * */
+	@Query(value = "SELECT id FROM tb_order WHERE order_status = :status AND id > :after "
+			+ "AND (lease_until IS NULL OR lease_until < :now) ORDER BY id LIMIT :limit", nativeQuery = true)
+	List<Long> findClaimable(@Param("status") Integer status, @Param("after") long after, @Param("now") Instant now,
+			@Param("limit") int limit);
+	
+	/* 
+	 * Bloqueia (FOR UPDATE) os candidatos que continuam livres até o fim da
+	 * transação. SKIP LOCKED pula as linhas que outra transação está
+	 * reservando no mesmo momento, em vez de esperar por elas, assim
+	 * workers concorrentes pegam Orders diferentes sem se bloquear.
+	 * */
+	@Query(value = "SELECT id FROM tb_order WHERE id IN :ids AND order_status = :status "
+			+ "AND (lease_until IS NULL OR lease_until < :now) ORDER BY id FOR UPDATE SKIP LOCKED", nativeQuery = true)
+	List<Long> lockClaimable(@Param("ids") Collection<Long> ids, @Param("status") Integer status,
+			@Param("now") Instant now);
+	
+	/* 
+	 * Os UPDATEs nativos declaram a tabela que alteram (query space):
+	 * sem ela o Hibernate trata qualquer entidade como afetada e limpa
+	 * todas as regiões do cache de segundo nível e o cache de consultas
+	 * (o catálogo inteiro) a cada claim e release.
+	 * */
+	@Modifying
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "tb_order"))
+	@Query(value = "UPDATE tb_order SET lease_owner = :owner, lease_until = :until WHERE id IN :ids",
+			nativeQuery = true)
+	int lease(@Param("ids") Collection<Long> ids, @Param("owner") String owner, @Param("until") Instant until);
+	
+	/* desfaz só as reservas que ainda são de owner */
+	@Modifying
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "tb_order"))
+	@Query(value = "UPDATE tb_order SET lease_owner = NULL, lease_until = NULL "
+			+ "WHERE id IN :ids AND lease_owner = :owner", nativeQuery = true)
+	int release(@Param("ids") Collection<Long> ids, @Param("owner") String owner);
 }
@@ -1,9 +1,47 @@
 package com.educandoweb.course.repositories;
 
+import java.util.Collection;
+import java.util.List;
+
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import com.educandoweb.course.config.CacheConfig;
+import com.educandoweb.course.dto.ProductCategoryDTO;
+import com.educandoweb.course.dto.ProductDTO;
 import com.educandoweb.course.entities.Product;
 
+import jakarta.persistence.QueryHint;
+
+/* 
+ * As consultas da listagem do catálogo são guardadas no cache de
+ * consultas (query cache), que é invalidado sempre que uma das tabelas
+ * envolvidas é alterada.
+ * */
 public interface ProductRepository extends JpaRepository<Product, Long> {
     
+	@QueryHints({ @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+			@QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = CacheConfig.QUERY_REGION) })
+	@Query("SELECT new com.educandoweb.course.dto.ProductDTO(p.id, p.name, p.description, p.price, p.imgUrl) "
+			+ "FROM Product p ORDER BY p.id ASC LIMIT :limit")
+	List<ProductDTO> findFirstPage(@Param("limit") int limit);
+	
+	@QueryHints({ @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+			@QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = CacheConfig.QUERY_REGION) })
+	@Query("SELECT new com.educandoweb.course.dto.ProductDTO(p.id, p.name, p.description, p.price, p.imgUrl) "
+			+ "FROM Product p WHERE p.id > :afterId ORDER BY p.id ASC LIMIT :limit")
+	List<ProductDTO> findPageAfter(@Param("afterId") Long afterId, @Param("limit") int limit);
+	
+	/* 
+	 * Busca numa única consulta as categories de todos os products
+	 * de uma página, lendo só a tabela de associação e tb_category.
+	 * */
+	@QueryHints({ @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+			@QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = CacheConfig.QUERY_REGION) })
+	@Query("SELECT new com.educandoweb.course.dto.ProductCategoryDTO(p.id, c.id, c.name) "
+			+ "FROM Product p JOIN p.categories c WHERE p.id IN :productIds ORDER BY c.id ASC")
+	List<ProductCategoryDTO> findCategories(@Param("productIds") Collection<Long> productIds);
 }
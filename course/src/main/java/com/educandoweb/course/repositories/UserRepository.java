@@ -1,7 +1,13 @@
 package com.educandoweb.course.repositories;
 
+import java.util.List;
+import java.util.Optional;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import com.educandoweb.course.dto.UserDTO;
 import com.educandoweb.course.entities.User;
 
 /* A interface UserRepository está herdando o contrato definido na
@@ -21,4 +27,23 @@ import com.educandoweb.course.entities.User;
  *  */
 public interface UserRepository extends JpaRepository<User, Long> {
     
+	/* 
+	 * Métodos da paginação por chave: a primeira página é lida em ordem
+	 * de id e as próximas a partir do último id devolvido, assim o banco
+	 * usa o índice da chave primária e nunca precisa de OFFSET.
+	 * 
+	 * As consultas de leitura devolvem o modelo de leitura UserDTO
+	 * montado por uma expressão construtora (SELECT new ...), assim
+	 * nenhuma entidade User é carregada no contexto de persistência.
+	 * */
+	@Query("SELECT new com.educandoweb.course.dto.UserDTO(u.id, u.name, u.email, u.phone) "
+			+ "FROM User u ORDER BY u.id ASC LIMIT :limit")
+	List<UserDTO> findFirstPage(@Param("limit") int limit);
+	
+	@Query("SELECT new com.educandoweb.course.dto.UserDTO(u.id, u.name, u.email, u.phone) "
+			+ "FROM User u WHERE u.id > :afterId ORDER BY u.id ASC LIMIT :limit")
+	List<UserDTO> findPageAfter(@Param("afterId") Long afterId, @Param("limit") int limit);
+	
+	@Query("SELECT new com.educandoweb.course.dto.UserDTO(u.id, u.name, u.email, u.phone) FROM User u WHERE u.id = :id")
+	Optional<UserDTO> findDTOById(@Param("id") Long id);
 }
@@ -0,0 +1,117 @@
+package com.educandoweb.course.resources;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.educandoweb.course.dto.DailySales;
+import com.educandoweb.course.dto.ItemScanReport;
+import com.educandoweb.course.dto.SalesReport;
+import com.educandoweb.course.entities.enums.OrderStatus;
+import com.educandoweb.course.services.analytics.OrderItemColumns;
+import com.educandoweb.course.services.analytics.OrderItemSnapshot;
+import com.educandoweb.course.services.analytics.SalesAnalytics;
+import com.educandoweb.course.services.exceptions.InvalidFilterException;
+
+/*
+ * Relatórios de vendas (receita, unidades e items por status), lidos
+ * dos agregados em memória do SalesAnalytics, sem consultas ao banco de
+ * dados. Cada relatório custa o mesmo para qualquer número de Orders,
+ * os de dias custam um agregado por dia pedido.
+ *
+ * /analytics/items varre a cópia em colunas dos OrderItems
+ * (OrderItemSnapshot), também sem consultas.
+ * */
+@RestController
+@RequestMapping(value = "/analytics")
+public class AnalyticsResource {
+
+	/* maior intervalo aceito em /analytics/days */
+	private static final long MAX_DAYS = 366;
+
+	/* maior número de grupos devolvidos por /analytics/items */
+	private static final int MAX_GROUPS = 10_000;
+
+	@Autowired
+	private SalesAnalytics salesAnalytics;
+
+	@Autowired
+	private OrderItemSnapshot orderItemSnapshot;
+
+	@GetMapping(value = "/total")
+	public ResponseEntity<SalesReport> total() {
+		return ResponseEntity.ok().body(salesAnalytics.total());
+	}
+
+	@GetMapping(value = "/products/{id}")
+	public ResponseEntity<SalesReport> product(@PathVariable Long id) {
+		return ResponseEntity.ok().body(salesAnalytics.product(id));
+	}
+
+	@GetMapping(value = "/categories/{id}")
+	public ResponseEntity<SalesReport> category(@PathVariable Long id) {
+		return ResponseEntity.ok().body(salesAnalytics.category(id));
+	}
+
+	/*
+	 * Vendas de cada dia (UTC) de from até to, inclusive, por exemplo
+	 * /analytics/days?from=2023-12-01&to=2023-12-31.
+	 * */
+	@GetMapping(value = "/days")
+	public ResponseEntity<List<DailySales>> days(
+			@RequestParam(value = "from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam(value = "to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+		if (to.isBefore(from) || ChronoUnit.DAYS.between(from, to) >= MAX_DAYS) {
+			throw new InvalidFilterException("from=" + from + "&to=" + to);
+		}
+		return ResponseEntity.ok().body(salesAnalytics.days(from, to));
+	}
+
+	/*
+	 * Varredura ad hoc dos OrderItems, com filtro por moment em [from, to),
+	 * product e status, agrupada por product, order, status, day ou none,
+	 * por exemplo /analytics/items?from=2023-01-01T00:00:00Z&status=PAID&groupBy=product.
+	 * Devolve os limit grupos de maior receita.
+	 * */
+	@GetMapping(value = "/items")
+	public ResponseEntity<ItemScanReport> items(
+			@RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+			@RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+			@RequestParam(value = "product", required = false) Long productId,
+			@RequestParam(value = "status", required = false) OrderStatus status,
+			@RequestParam(value = "groupBy", defaultValue = "none") String groupBy,
+			@RequestParam(value = "limit", defaultValue = "100") int limit) {
+		OrderItemColumns.GroupBy grouping;
+		try {
+			grouping = OrderItemColumns.GroupBy.valueOf(groupBy.toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			throw new InvalidFilterException("groupBy=" + groupBy);
+		}
+		OrderItemColumns.Filter filter = new OrderItemColumns.Filter(
+				(from != null) ? from.getEpochSecond() : Long.MIN_VALUE,
+				(to != null) ? to.getEpochSecond() : Long.MAX_VALUE,
+				(productId != null) ? productId : -1,
+				(status != null) ? status.ordinal() : -1);
+		return ResponseEntity.ok().body(orderItemSnapshot.scan(filter, grouping, Math.max(0, Math.min(limit, MAX_GROUPS))));
+	}
+
+	/* monta de novo, a partir do banco de dados, os agregados e a cópia em colunas dos OrderItems */
+	@PostMapping(value = "/rebuild")
+	public ResponseEntity<Void> rebuild() {
+		salesAnalytics.rebuild();
+		orderItemSnapshot.rebuild();
+		return ResponseEntity.noContent().build();
+	}
+}
@@ -0,0 +1,30 @@
+package com.educandoweb.course.resources;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.educandoweb.course.dto.CacheStats;
+import com.educandoweb.course.services.CacheService;
+
+/* 
+ * Endpoint de diagnóstico do cache de segundo nível.
+ * */
+@RestController
+@RequestMapping(value = "/cache")
+public class CacheResource {
+
+	@Autowired
+	private CacheService cacheService;
+
+	/* 
+	 * Acertos e falhas do cache do catálogo (products e categories) e
+	 * do cache de consultas, desde a inicialização da aplicação.
+	 * */
+	@GetMapping(value = "/stats")
+	public ResponseEntity<CacheStats> stats() {
+		return ResponseEntity.ok().body(cacheService.getStats());
+	}
+}
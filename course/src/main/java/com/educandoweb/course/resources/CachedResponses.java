@@ -0,0 +1,26 @@
+package com.educandoweb.course.resources;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import com.educandoweb.course.services.cache.CachedResponse;
+
+/*
+ * Monta a resposta HTTP a partir de uma resposta do ResponseCache.
+ *
+ * Com o ETag no cabeçalho, o próprio spring compara o ETag com o
+ * If-None-Match da requisição e devolve 304 (Not Modified) sem corpo
+ * quando eles são iguais.
+ * */
+final class CachedResponses {
+
+	private CachedResponses() {
+	}
+
+	static ResponseEntity<byte[]> toResponseEntity(CachedResponse response) {
+		return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_JSON)
+				.eTag(response.etag())
+				.body(response.body());
+	}
+}
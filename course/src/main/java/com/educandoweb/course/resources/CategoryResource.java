@@ -1,16 +1,18 @@
 package com.educandoweb.course.resources;
 
-import java.util.List;
-
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import com.educandoweb.course.entities.Category;
+import com.educandoweb.course.dto.CategoryDTO;
 import com.educandoweb.course.services.CategoryService;
+import com.educandoweb.course.services.cache.CachedResponse;
+import com.educandoweb.course.services.cache.ResponseCache;
+import com.educandoweb.course.services.pagination.KeysetPage;
 
 /* 
  * annotation indicando que essa classe é um resource implementado
@@ -27,6 +29,9 @@ public class CategoryResource {
 	
 	@Autowired
 	private CategoryService categoryService;
+	
+	@Autowired
+	private ResponseCache responseCache;
 
 	/* 
 	 * O método findAll é um endpoint para acessar os usuários, o 
@@ -39,15 +44,23 @@ public class CategoryResource {
 	 * responde a requisições http get no endpoint /Categorys.
 	 *  */
 	@GetMapping
-	public ResponseEntity<List<Category>> findAll(){
-		List<Category> list = categoryService.findAll();
+	public ResponseEntity<byte[]> findAll(
+			@RequestParam(value = "cursor", required = false) String cursor,
+			@RequestParam(value = "size", required = false) Integer size){
+		/* 
+		 * A página é guardada já serializada no ResponseCache, com a
+		 * chave formada pelo cursor e pelo tamanho da página.
+		 * */
+		String key = ((cursor == null) ? "first" : cursor) + "." + KeysetPage.clampSize(size);
+		CachedResponse list = responseCache.get(ResponseCache.CATEGORIES, key,
+				() -> categoryService.findPage(cursor, size));
 		
 		/* 
 		 * ResponseEntity.ok() - retorna uma resposta de sucesso
 		 * http colocando no body da resposta o tipo com a qual a
 		 * classe ResponseEntity foi parametrizada.
 		 * */
-	    return ResponseEntity.ok().body(list);	
+	    return CachedResponses.toResponseEntity(list);
 	}
 	
 	
@@ -70,8 +83,8 @@ public class CategoryResource {
 	 * para não estourar a memória do seu computador.
 	 */
 	@GetMapping(value = "/{id}")
-	public ResponseEntity<Category> findById(@PathVariable Long id){
-		Category Category = categoryService.findById(id);
+	public ResponseEntity<CategoryDTO> findById(@PathVariable Long id){
+		CategoryDTO Category = categoryService.findById(id);
 		return ResponseEntity.ok().body(Category);
 	}
 	  
@@ -0,0 +1,53 @@
+package com.educandoweb.course.resources;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import com.educandoweb.course.dto.ChangeEvent;
+import com.educandoweb.course.dto.EventBatch;
+import com.educandoweb.course.services.events.EventBus;
+
+/*
+ * Eventos de alteração dos Users, Orders e Payments (veja OutboxRelay),
+ * para consumidores que querem acompanhar as mudanças sem varrer as
+ * tabelas.
+ *
+ * GET /events?after=<sequence> é um long-poll: devolve na hora os
+ * eventos depois de after, ou espera até wait segundos pelo próximo.
+ * O consumidor repete a chamada com o next da resposta. A espera não
+ * prende uma thread do servidor (DeferredResult).
+ * */
+@RestController
+@RequestMapping(value = "/events")
+public class EventResource {
+
+	private static final int MAX_LIMIT = 1000;
+	private static final int MAX_WAIT_SECONDS = 60;
+
+	@Autowired
+	private EventBus eventBus;
+
+	@GetMapping
+	public DeferredResult<ResponseEntity<EventBatch>> next(@RequestParam(defaultValue = "0") long after,
+			@RequestParam(defaultValue = "100") int limit, @RequestParam(defaultValue = "25") int wait) {
+		int size = Math.max(1, Math.min(MAX_LIMIT, limit));
+		/* 0 seria sem timeout para o servidor, wait=0 espera 1 ms */
+		long timeout = Math.max(1, Math.min(MAX_WAIT_SECONDS, wait) * 1000L);
+
+		CompletableFuture<List<ChangeEvent>> future = eventBus.next(after, size);
+		DeferredResult<ResponseEntity<EventBatch>> result = new DeferredResult<>(timeout,
+				() -> ResponseEntity.ok().body(new EventBatch(after, List.of())));
+		result.onCompletion(() -> future.cancel(false));
+		future.thenAccept(events -> result.setResult(ResponseEntity.ok()
+				.body(new EventBatch(events.isEmpty() ? after : events.get(events.size() - 1).sequence(), events))));
+		return result;
+	}
+}
@@ -3,14 +3,31 @@ package com.educandoweb.course.resources;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.educandoweb.course.dto.BatchResult;
+import com.educandoweb.course.dto.OrderInsertDTO;
+import com.educandoweb.course.dto.OrderSummary;
+import com.educandoweb.course.dto.OrderTransitionDTO;
 import com.educandoweb.course.entities.Order;
+import com.educandoweb.course.entities.enums.OrderStatus;
+import com.educandoweb.course.services.OrderBatchService;
 import com.educandoweb.course.services.OrderService;
+import com.educandoweb.course.services.OrderTransitionService;
+import com.educandoweb.course.services.cache.CachedResponse;
+import com.educandoweb.course.services.cache.ResponseCache;
+import com.educandoweb.course.services.events.OrderStatusHub;
+import com.educandoweb.course.services.pagination.KeysetPage;
 
 /* 
  * annotation indicando que essa classe é um resource implementado
@@ -27,6 +44,18 @@ public class OrderResource {
 	
 	@Autowired
 	private OrderService OrderService;
+	
+	@Autowired
+	private OrderBatchService orderBatchService;
+	
+	@Autowired
+	private OrderTransitionService orderTransitionService;
+	
+	@Autowired
+	private ResponseCache responseCache;
+	
+	@Autowired
+	private OrderStatusHub orderStatusHub;
 
 	/* 
 	 * O método findAll é um endpoint para acessar os usuários, o 
@@ -39,8 +68,10 @@ public class OrderResource {
 	 * responde a requisições http get no endpoint /Orders.
 	 *  */
 	@GetMapping
-	public ResponseEntity<List<Order>> findAll(){
-		List<Order> list = OrderService.findAll();
+	public ResponseEntity<KeysetPage<Order>> findAll(
+			@RequestParam(value = "cursor", required = false) String cursor,
+			@RequestParam(value = "size", required = false) Integer size){
+		KeysetPage<Order> list = OrderService.findPage(cursor, size);
 		
 		/* 
 		 * ResponseEntity.ok() - retorna uma resposta de sucesso
@@ -51,6 +82,23 @@ public class OrderResource {
 	}
 	
 	
+	/*
+	 * Listagem resumida dos Orders (OrderSummary), com o total já
+	 * calculado pelo banco de dados, sem items, payment e client.
+	 * 
+	 * É a rota indicada para telas de listagem, pois não carrega
+	 * nenhuma entidade, a rota /orders continua devolvendo os Orders
+	 * completos.
+	 */
+	@GetMapping(value = "/summaries")
+	public ResponseEntity<KeysetPage<OrderSummary>> findSummaries(
+			@RequestParam(value = "cursor", required = false) String cursor,
+			@RequestParam(value = "size", required = false) Integer size){
+		KeysetPage<OrderSummary> list = OrderService.findSummaryPage(cursor, size);
+	    return ResponseEntity.ok().body(list);
+	}
+	
+	
 	/*
 	 * @GetMapping - Annotation para indicar que esse método
 	 * responde a requisições http get no endpoint /Orders/id
@@ -65,9 +113,69 @@ public class OrderResource {
 	 * lado é o lado do um.
 	 */
 	@GetMapping(value = "/{id}")
-	public ResponseEntity<Order> findById(@PathVariable Long id){
-		Order Order = OrderService.findById(id);
-		return ResponseEntity.ok().body(Order);
+	public ResponseEntity<byte[]> findById(@PathVariable Long id){
+		/* 
+		 * A resposta vem do ResponseCache, o OrderService só é chamado
+		 * quando ela não está guardada, o ETag usa a versão do Order
+		 * e o conteúdo da resposta.
+		 * */
+		CachedResponse response = responseCache.get(ResponseCache.ORDERS, id,
+				() -> OrderService.findById(id), Order::getVersion);
+		return CachedResponses.toResponseEntity(response);
+	}
+	
+	/*
+	 * Exporta todos os Orders em NDJSON (application/x-ndjson), um
+	 * Order por linha.
+	 * 
+	 * StreamingResponseBody - a resposta é escrita aos poucos numa
+	 * thread separada, à medida que as linhas são lidas do banco, então
+	 * nem o servidor nem o cliente precisam da tabela inteira em memória.
+	 */
+	@GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> export(){
+		StreamingResponseBody body = out -> OrderService.exportNdjson(out);
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+	}
+	
+	/*
+	 * Stream (Server-Sent Events) das mudanças de status dos Orders, um
+	 * evento "status" por mudança, opcionalmente só os do client e os
+	 * que entram em um dos status pedidos (status pode se repetir).
+	 * 
+	 * Os eventos saem da memória (OrderStatusHub), sem consultas ao
+	 * banco de dados; quem não acompanha os eventos é desconectado e
+	 * deve se conectar de novo.
+	 */
+	@GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter stream(@RequestParam(required = false) Long client,
+			@RequestParam(required = false) List<OrderStatus> status){
+		return orderStatusHub.subscribe(client, (status == null) ? List.of() : status);
+	}
+	
+	/*
+	 * Insere vários Orders numa única requisição, cada um com os seus
+	 * OrderItems e, opcionalmente, um Payment.
+	 * 
+	 * A resposta traz o resultado de cada Order, na mesma ordem em que
+	 * eles foram enviados, os Orders inválidos não impedem a gravação
+	 * dos outros.
+	 */
+	@PostMapping(value = "/batch")
+	public ResponseEntity<BatchResult> insertBatch(@RequestBody List<OrderInsertDTO> orders){
+		BatchResult result = orderBatchService.insertBatch(orders);
+		return ResponseEntity.ok().body(result);
+	}
+	
+	/*
+	 * Muda o status do Order, por exemplo {"status": "SHIPPED"}. Só as
+	 * transições de OrderStatus.canTransitionTo são aceitas, as outras
+	 * (ou uma que perdeu para outra mudança concorrente) recebem 409.
+	 */
+	@PostMapping(value = "/{id}/transitions")
+	public ResponseEntity<OrderTransitionDTO> transition(@PathVariable Long id, @RequestBody OrderTransitionDTO body){
+		OrderTransitionDTO result = orderTransitionService.transition(id, body.status());
+		return ResponseEntity.ok().body(result);
 	}
 	  
 }
@@ -1,16 +1,20 @@
 package com.educandoweb.course.resources;
 
-import java.util.List;
-
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import com.educandoweb.course.entities.Product;
+import com.educandoweb.course.dto.ProductDTO;
+import com.educandoweb.course.dto.ProductFilterResult;
+import com.educandoweb.course.dto.ProductSearchResult;
 import com.educandoweb.course.services.ProductService;
+import com.educandoweb.course.services.cache.CachedResponse;
+import com.educandoweb.course.services.cache.ResponseCache;
+import com.educandoweb.course.services.pagination.KeysetPage;
 
 /* 
  * annotation indicando que essa classe é um resource implementado
@@ -27,6 +31,9 @@ public class ProductResource {
 	
 	@Autowired
 	private ProductService productService;
+	
+	@Autowired
+	private ResponseCache responseCache;
 
 	/* 
 	 * O método findAll é um endpoint para acessar os usuários, o 
@@ -39,18 +46,59 @@ public class ProductResource {
 	 * responde a requisições http get no endpoint /users.
 	 *  */
 	@GetMapping
-	public ResponseEntity<List<Product>> findAll(){
-		List<Product> list = productService.findAll();
+	public ResponseEntity<byte[]> findAll(
+			@RequestParam(value = "cursor", required = false) String cursor,
+			@RequestParam(value = "size", required = false) Integer size){
+		/* 
+		 * A página é guardada já serializada no ResponseCache, com a
+		 * chave formada pelo cursor e pelo tamanho da página.
+		 * */
+		String key = ((cursor == null) ? "first" : cursor) + "." + KeysetPage.clampSize(size);
+		CachedResponse list = responseCache.get(ResponseCache.PRODUCTS, key,
+				() -> productService.findPage(cursor, size));
 		
 		/* 
 		 * ResponseEntity.ok() - retorna uma resposta de sucesso
 		 * http colocando no body da resposta o tipo com a qual a
 		 * classe ResponseEntity foi parametrizada.
 		 * */
-	    return ResponseEntity.ok().body(list);	
+	    return CachedResponses.toResponseEntity(list);
 	}
 	
 	
+	/* 
+	 * GET /products com o parâmetro categories, por exemplo
+	 * /products?categories=1,2|3,!4: os Products na Category 1, na 2 ou
+	 * na 3, e fora da 4, com a contagem de cada Category (facets).
+	 * 
+	 * params = "categories" - esse método só atende as requisições que
+	 * trazem o parâmetro, as outras continuam no findAll.
+	 * */
+	@GetMapping(params = "categories")
+	public ResponseEntity<ProductFilterResult> filter(
+			@RequestParam(value = "categories") String categories,
+			@RequestParam(value = "cursor", required = false) String cursor,
+			@RequestParam(value = "size", required = false) Integer size){
+		return ResponseEntity.ok().body(productService.filter(categories, cursor, size));
+	}
+	
+	/* 
+	 * Busca textual no nome e na descrição dos Products, por exemplo
+	 * /products/search?q=mesa madeira&category=2. Todos os termos
+	 * precisam aparecer, os termos do nome valem mais que os da descrição.
+	 * 
+	 * A resposta não passa pelo ResponseCache, a busca é feita num
+	 * índice em memória, atualizado depois de cada commit.
+	 * */
+	@GetMapping(value = "/search")
+	public ResponseEntity<ProductSearchResult> search(
+			@RequestParam(value = "q") String q,
+			@RequestParam(value = "category", required = false) Long category,
+			@RequestParam(value = "cursor", required = false) String cursor,
+			@RequestParam(value = "size", required = false) Integer size){
+		return ResponseEntity.ok().body(productService.search(q, category, cursor, size));
+	}
+	
 	/*
 	 * @GetMapping - Annotation para indicar que esse método
 	 * responde a requisições http get no endpoint /users/id
@@ -70,8 +118,8 @@ public class ProductResource {
 	 * para não estourar a memória do seu computador.
 	 */
 	@GetMapping(value = "/{id}")
-	public ResponseEntity<Product> findById(@PathVariable Long id){
-		Product user = productService.findById(id);
+	public ResponseEntity<ProductDTO> findById(@PathVariable Long id){
+		ProductDTO user = productService.findById(id);
 		return ResponseEntity.ok().body(user);
 	}
 	  
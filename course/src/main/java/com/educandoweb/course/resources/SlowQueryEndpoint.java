@@ -0,0 +1,46 @@
+package com.educandoweb.course.resources;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import com.educandoweb.course.dto.SlowQueryDTO;
+import com.educandoweb.course.dto.SlowQueryReport;
+import com.educandoweb.course.services.jdbc.SlowQueryLog;
+
+/* 
+ * Endpoint de diagnóstico do log de comandos SQL lentos, servido pelo
+ * actuator em /actuator/slowqueries.
+ * 
+ * Ele não faz parte de management.endpoints.web.exposure.include, então
+ * só fica disponível quando for incluído ali, de preferência com o
+ * actuator numa porta separada (management.server.port) que não é
+ * aberta para fora, como os outros endpoints de administração.
+ * */
+@Component
+@Endpoint(id = "slowqueries")
+public class SlowQueryEndpoint {
+
+	private static final int DEFAULT_LIMIT = 100;
+
+	@Autowired
+	private SlowQueryLog slowQueryLog;
+
+	/* 
+	 * Os últimos limit comandos registrados, do mais novo para o mais
+	 * antigo, com pelo menos minMillis de duração.
+	 * */
+	@ReadOperation
+	public SlowQueryReport slowQueries(@Nullable Integer limit, @Nullable Long minMillis) {
+		int requested = (limit != null) ? limit : DEFAULT_LIMIT;
+		int size = Math.max(0, Math.min(requested, slowQueryLog.getCapacity()));
+		Duration minElapsed = Duration.ofMillis((minMillis != null) ? minMillis : 0);
+		return new SlowQueryReport(slowQueryLog.getThreshold().toNanos() / 1e6, slowQueryLog.getSampleRate(),
+				slowQueryLog.getCapacity(), slowQueryLog.getRecorded(),
+				slowQueryLog.snapshot(size, minElapsed).stream().map(SlowQueryDTO::of).toList());
+	}
+}
@@ -1,7 +1,6 @@
 package com.educandoweb.course.resources;
 
 import java.net.URI;
-import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -12,11 +11,17 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import com.educandoweb.course.dto.OrderSummary;
+import com.educandoweb.course.dto.UserDTO;
 import com.educandoweb.course.entities.User;
+import com.educandoweb.course.entities.enums.OrderStatus;
+import com.educandoweb.course.services.OrderService;
 import com.educandoweb.course.services.UserService;
+import com.educandoweb.course.services.pagination.KeysetPage;
 
 /* 
  * annotation indicando que essa classe é um resource implementado
@@ -35,6 +40,9 @@ public class UserResource {
 	
 	@Autowired
 	private UserService userService;
+	
+	@Autowired
+	private OrderService orderService;
 
 	/* 
 	 * O método findAll é um endpoint para acessar os usuários, o 
@@ -48,10 +56,17 @@ public class UserResource {
 	 * 
 	 * No padrão rest, o método usado para recuperar registros é
 	 * o get.
+	 * 
+	 * @RequestParam - annotation para informar para o spring que o
+	 * parâmetro vem da query string, ex: /users?cursor=MjA&size=50.
+	 * A resposta é paginada, o cliente pede a próxima página enviando
+	 * o nextCursor devolvido pela página atual.
 	 *  */
 	@GetMapping
-	public ResponseEntity<List<User>> findAll(){
-		List<User> list = userService.findAll();
+	public ResponseEntity<KeysetPage<UserDTO>> findAll(
+			@RequestParam(value = "cursor", required = false) String cursor,
+			@RequestParam(value = "size", required = false) Integer size){
+		KeysetPage<UserDTO> list = userService.findPage(cursor, size);
 		
 		/* 
 		 * ResponseEntity.ok() - retorna uma resposta de sucesso
@@ -82,11 +97,26 @@ public class UserResource {
 	 * para não estourar a memória do seu computador.
 	 */
 	@GetMapping(value = "/{id}")
-	public ResponseEntity<User> findById(@PathVariable Long id){
-		User user = userService.findById(id);
+	public ResponseEntity<UserDTO> findById(@PathVariable Long id){
+		UserDTO user = userService.findById(id);
 		return ResponseEntity.ok().body(user);
 	}
 	
+	/* 
+	 * Histórico de Orders do User, do mais recente para o mais antigo,
+	 * paginado pelo cursor, ex: /users/1/orders?status=PAID&size=50.
+	 * 
+	 * O status chega pelo nome (WAITING_PAYMENT, PAID...), o spring
+	 * converte o texto para o tipo enumerado OrderStatus.
+	 * */
+	@GetMapping(value = "/{id}/orders")
+	public ResponseEntity<KeysetPage<OrderSummary>> findOrders(@PathVariable Long id,
+			@RequestParam(value = "status", required = false) OrderStatus status,
+			@RequestParam(value = "cursor", required = false) String cursor,
+			@RequestParam(value = "size", required = false) Integer size){
+		return ResponseEntity.ok().body(orderService.findClientPage(id, status, cursor, size));
+	}
+	
 	/* @PostMapping - annotation para indicar que esse método atende a requisições
 	 * via post
 	 * 
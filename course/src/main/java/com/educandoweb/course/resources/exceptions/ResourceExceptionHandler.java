@@ -7,8 +7,14 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+import com.educandoweb.course.services.exceptions.ConcurrentUpdateException;
 import com.educandoweb.course.services.exceptions.DatabaseException;
+import com.educandoweb.course.services.exceptions.IllegalTransitionException;
+import com.educandoweb.course.services.exceptions.InvalidCursorException;
+import com.educandoweb.course.services.exceptions.InvalidFilterException;
+import com.educandoweb.course.services.exceptions.MissingFieldException;
 import com.educandoweb.course.services.exceptions.ResourceNotFoundException;
+import com.educandoweb.course.services.exceptions.StaleCursorException;
 
 import jakarta.servlet.http.HttpServletRequest;
 
@@ -57,4 +63,52 @@ public class ResourceExceptionHandler {
 		  * */
 		 return ResponseEntity.status(status).body(er);
 	}
+	
+	@ExceptionHandler(InvalidCursorException.class)
+	public ResponseEntity<StandardError> invalidCursor(InvalidCursorException e, HttpServletRequest request){
+		 String error = "Invalid cursor";
+		 HttpStatus status = HttpStatus.BAD_REQUEST;
+		 StandardError er = new StandardError(Instant.now(), status.value(), error, e.getMessage(), request.getRequestURI());
+		 return ResponseEntity.status(status).body(er);
+	}
+	
+	@ExceptionHandler(MissingFieldException.class)
+	public ResponseEntity<StandardError> missingField(MissingFieldException e, HttpServletRequest request){
+		 String error = "Missing field";
+		 HttpStatus status = HttpStatus.BAD_REQUEST;
+		 StandardError er = new StandardError(Instant.now(), status.value(), error, e.getMessage(), request.getRequestURI());
+		 return ResponseEntity.status(status).body(er);
+	}
+	
+	@ExceptionHandler(StaleCursorException.class)
+	public ResponseEntity<StandardError> staleCursor(StaleCursorException e, HttpServletRequest request){
+		 String error = "Stale cursor";
+		 HttpStatus status = HttpStatus.CONFLICT;
+		 StandardError er = new StandardError(Instant.now(), status.value(), error, e.getMessage(), request.getRequestURI());
+		 return ResponseEntity.status(status).body(er);
+	}
+	
+	@ExceptionHandler(InvalidFilterException.class)
+	public ResponseEntity<StandardError> invalidFilter(InvalidFilterException e, HttpServletRequest request){
+		 String error = "Invalid filter";
+		 HttpStatus status = HttpStatus.BAD_REQUEST;
+		 StandardError er = new StandardError(Instant.now(), status.value(), error, e.getMessage(), request.getRequestURI());
+		 return ResponseEntity.status(status).body(er);
+	}
+	
+	@ExceptionHandler(IllegalTransitionException.class)
+	public ResponseEntity<StandardError> illegalTransition(IllegalTransitionException e, HttpServletRequest request){
+		 String error = "Illegal transition";
+		 HttpStatus status = HttpStatus.CONFLICT;
+		 StandardError er = new StandardError(Instant.now(), status.value(), error, e.getMessage(), request.getRequestURI());
+		 return ResponseEntity.status(status).body(er);
+	}
+	
+	@ExceptionHandler(ConcurrentUpdateException.class)
+	public ResponseEntity<StandardError> concurrentUpdate(ConcurrentUpdateException e, HttpServletRequest request){
+		 String error = "Concurrent update";
+		 HttpStatus status = HttpStatus.CONFLICT;
+		 StandardError er = new StandardError(Instant.now(), status.value(), error, e.getMessage(), request.getRequestURI());
+		 return ResponseEntity.status(status).body(er);
+	}
 }
@@ -0,0 +1,58 @@
+package com.educandoweb.course.services;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import org.hibernate.cache.spi.DomainDataRegion;
+import org.hibernate.cache.spi.QueryResultsRegion;
+import org.hibernate.cache.spi.Region;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.educandoweb.course.dto.CacheRegionStats;
+import com.educandoweb.course.dto.CacheStats;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/* 
+ * Service que lê as estatísticas do cache de segundo nível coletadas
+ * pelo Hibernate (hibernate.generate_statistics).
+ * */
+@Service
+public class CacheService {
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	public CacheStats getStats() {
+		SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+		Statistics statistics = sessionFactory.getStatistics();
+		List<CacheRegionStats> regions = Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+				.sorted()
+				.map(region -> regionStats(sessionFactory.getCache().getRegion(region), statistics))
+				.filter(Objects::nonNull)
+				.toList();
+		return new CacheStats(statistics.getSecondLevelCacheHitCount(), statistics.getSecondLevelCacheMissCount(),
+				statistics.getSecondLevelCachePutCount(), statistics.getQueryCacheHitCount(),
+				statistics.getQueryCacheMissCount(), statistics.getQueryCachePutCount(), regions);
+	}
+
+	/* 
+	 * As regiões de entidades e coleções e as do cache de consultas
+	 * são lidas por métodos diferentes, a região de timestamps não tem
+	 * estatísticas e fica de fora.
+	 * */
+	private CacheRegionStats regionStats(Region region, Statistics statistics) {
+		CacheRegionStatistics regionStatistics = null;
+		if (region instanceof DomainDataRegion) {
+			regionStatistics = statistics.getDomainDataRegionStatistics(region.getName());
+		} else if (region instanceof QueryResultsRegion) {
+			regionStatistics = statistics.getQueryRegionStatistics(region.getName());
+		}
+		return (regionStatistics == null) ? null : CacheRegionStats.of(region.getName(), regionStatistics);
+	}
+}
@@ -5,9 +5,14 @@ import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.educandoweb.course.dto.CategoryDTO;
 import com.educandoweb.course.entities.Category;
 import com.educandoweb.course.repositories.CategoryRepository;
+import com.educandoweb.course.services.exceptions.ResourceNotFoundException;
+import com.educandoweb.course.services.pagination.Cursor;
+import com.educandoweb.course.services.pagination.KeysetPage;
 
 /* @Component - essa annotation serve para registrar a minha classe
  * como um componente do spring.
@@ -23,31 +28,41 @@ import com.educandoweb.course.repositories.CategoryRepository;
  *	
  * */
 @Service
+@Transactional(readOnly = true)
 public class CategoryService {
    
 	@Autowired
 	private CategoryRepository categoryRepository;
 	
 	/* 
-	 * método findAll repassando a chamada do método findAll para a data
-	 * access layer.
+	 * método findPage buscando uma página de Categorys a partir do cursor
+	 * devolvido pela página anterior.
 	 * */
-	public List<Category> findAll(){
-		return categoryRepository.findAll();
+	public KeysetPage<CategoryDTO> findPage(String cursor, Integer size) {
+		int limit = KeysetPage.clampSize(size);
+		Long afterId = Cursor.decodeId(cursor);
+		List<CategoryDTO> rows = (afterId == null)
+				? categoryRepository.findFirstPage(limit + 1)
+				: categoryRepository.findPageAfter(afterId, limit + 1);
+		return KeysetPage.of(rows, limit, obj -> Cursor.encode(obj.id()));
 	}
 	
 	/* 
 	 * método findById repassando a chamada do método findbyId para a data
 	 * access layer.
 	 *  */
-	public Category findById(Long id) {
-		/* O objeto Opcional existe desde o java 8 */
+	public CategoryDTO findById(Long id) {
+		/* O objeto Opcional existe desde o java 8.
+		 * 
+		 * A busca é feita pela entidade, e não por uma projeção, para
+		 * que ela seja atendida pelo cache de segundo nível.
+		 * */
 		Optional<Category> opt =  categoryRepository.findById(id);
 		
 		/* A operação get do objeto genérico Optional retorna
 		 * um objeto do tipo com a qual a classe Optional foi
 		 * parametrizada.
 		 * */
-		return opt.get();
+		return new CategoryDTO(opt.orElseThrow(() -> new ResourceNotFoundException(id)));
 	}
 }
@@ -0,0 +1,213 @@
+package com.educandoweb.course.services;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.educandoweb.course.dto.BatchItemResult;
+import com.educandoweb.course.dto.BatchResult;
+import com.educandoweb.course.dto.OrderInsertDTO;
+import com.educandoweb.course.dto.OrderItemInsertDTO;
+import com.educandoweb.course.entities.Order;
+import com.educandoweb.course.entities.OrderItem;
+import com.educandoweb.course.entities.Payment;
+import com.educandoweb.course.entities.Product;
+import com.educandoweb.course.entities.User;
+import com.educandoweb.course.entities.enums.OrderStatus;
+import com.educandoweb.course.repositories.ProductRepository;
+import com.educandoweb.course.repositories.UserRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/*
+ * Service responsável pela inserção de Orders em lote.
+ *
+ * Os Orders são gravados em blocos (chunks) de chunkSize registros,
+ * cada bloco na sua própria transação. No fim de cada bloco é feito o
+ * flush, que envia os inserts em lote (JDBC batch), e o clear, que
+ * esvazia o contexto de persistência, assim o cache de primeiro nível
+ * nunca passa de um bloco, não importa o tamanho da requisição.
+ *
+ * Cada registro recebe o seu próprio resultado: um registro inválido
+ * não impede a gravação dos outros. Se o banco de dados rejeitar um
+ * bloco inteiro, os registros desse bloco são gravados de novo um a um,
+ * para descobrir qual deles falhou.
+ * */
+@Service
+public class OrderBatchService {
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Value("${course.batch.chunk-size:500}")
+	private int chunkSize;
+
+	public BatchResult insertBatch(List<OrderInsertDTO> orders) {
+		List<BatchItemResult> results = new ArrayList<>(orders.size());
+		for (int from = 0; from < orders.size(); from += chunkSize) {
+			int to = Math.min(orders.size(), from + chunkSize);
+			results.addAll(insertChunk(orders, from, to));
+		}
+		return BatchResult.of(results);
+	}
+
+	private List<BatchItemResult> insertChunk(List<OrderInsertDTO> orders, int from, int to) {
+		try {
+			return transactionTemplate.execute(status -> persistChunk(orders, from, to));
+		} catch (RuntimeException e) {
+			/* O bloco foi desfeito (rollback), então cada registro é
+			 * gravado sozinho para isolar o que causou a falha.
+			 * */
+			List<BatchItemResult> results = new ArrayList<>(to - from);
+			for (int i = from; i < to; i++) {
+				int index = i;
+				try {
+					results.add(transactionTemplate.execute(status -> persistChunk(orders, index, index + 1)).get(0));
+				} catch (RuntimeException single) {
+					results.add(BatchItemResult.failed(index, message(single)));
+				}
+			}
+			return results;
+		}
+	}
+
+	private List<BatchItemResult> persistChunk(List<OrderInsertDTO> orders, int from, int to) {
+		List<OrderInsertDTO> chunk = orders.subList(from, to);
+		Map<Long, User> clients = findClients(chunk);
+		Map<Long, Product> products = findProducts(chunk);
+
+		List<BatchItemResult> results = new ArrayList<>(chunk.size());
+		List<Order> created = new ArrayList<>(chunk.size());
+		for (int i = 0; i < chunk.size(); i++) {
+			String error = validate(chunk.get(i), clients, products);
+			if (error != null) {
+				results.add(BatchItemResult.failed(from + i, error));
+				created.add(null);
+			} else {
+				created.add(persist(chunk.get(i), clients, products));
+				results.add(null);
+			}
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		/* os ids só são lidos depois do flush, que é quando o bloco
+		 * foi de fato aceito pelo banco de dados.
+		 * */
+		for (int i = 0; i < chunk.size(); i++) {
+			if (created.get(i) != null) {
+				results.set(i, BatchItemResult.created(from + i, created.get(i).getId()));
+			}
+		}
+		return results;
+	}
+
+	private Order persist(OrderInsertDTO dto, Map<Long, User> clients, Map<Long, Product> products) {
+		Instant moment = (dto.moment() != null) ? dto.moment() : Instant.now();
+		OrderStatus status = (dto.orderStatus() != null) ? dto.orderStatus() : OrderStatus.WAITING_PAYMENT;
+
+		/* O Order é montado por inteiro (items, total e payment) antes
+		 * do persist, assim o flush grava só o insert dele, sem um update
+		 * do total depois, e o evento CREATED do outbox já sai com o
+		 * total certo.
+		 * 
+		 * Com ids gerados por sequence o persist já atribui o id ao
+		 * Order sem executar o insert, que fica para o flush do bloco.
+		 * */
+		Order order = new Order(null, moment, status, clients.get(dto.clientId()));
+		for (OrderItemInsertDTO itemDto : dto.items()) {
+			Product product = products.get(itemDto.productId());
+			Double price = (itemDto.price() != null) ? itemDto.price() : product.getPrice();
+			new OrderItem(order, product, itemDto.quantity(), price);
+		}
+		if (dto.payment() != null) {
+			Instant paymentMoment = (dto.payment().moment() != null) ? dto.payment().moment() : moment;
+			order.setPayment(new Payment(null, paymentMoment, order));
+		}
+
+		/* o payment vai junto com o Order (cascade), os items não */
+		entityManager.persist(order);
+		for (OrderItem item : order.getItems()) {
+			entityManager.persist(item);
+		}
+		return order;
+	}
+
+	/* Devolve a mensagem de erro do registro ou null quando ele é válido. */
+	private String validate(OrderInsertDTO dto, Map<Long, User> clients, Map<Long, Product> products) {
+		if (dto == null) {
+			return "Order is required";
+		}
+		if (dto.clientId() == null || !clients.containsKey(dto.clientId())) {
+			return "Client not found. " + dto.clientId();
+		}
+		if (dto.items() == null || dto.items().isEmpty()) {
+			return "Order must have at least one item";
+		}
+		Set<Long> seen = new HashSet<>();
+		for (OrderItemInsertDTO item : dto.items()) {
+			if (item == null || item.productId() == null || !products.containsKey(item.productId())) {
+				return "Product not found. " + (item == null ? null : item.productId());
+			}
+			if (!seen.add(item.productId())) {
+				return "Duplicated product in order. " + item.productId();
+			}
+			if (item.quantity() == null || item.quantity() <= 0) {
+				return "Invalid quantity for product " + item.productId();
+			}
+			if (item.price() != null && item.price() < 0) {
+				return "Invalid price for product " + item.productId();
+			}
+		}
+		return null;
+	}
+
+	/*
+	 * Busca numa única consulta todos os clients do bloco, em vez de
+	 * uma consulta por Order.
+	 * */
+	private Map<Long, User> findClients(List<OrderInsertDTO> chunk) {
+		Set<Long> ids = chunk.stream()
+				.filter(dto -> dto != null && dto.clientId() != null)
+				.map(OrderInsertDTO::clientId)
+				.collect(Collectors.toSet());
+		return userRepository.findAllById(ids).stream()
+				.collect(Collectors.toMap(User::getId, Function.identity()));
+	}
+
+	private Map<Long, Product> findProducts(List<OrderInsertDTO> chunk) {
+		Set<Long> ids = chunk.stream()
+				.filter(dto -> dto != null && dto.items() != null)
+				.flatMap(dto -> dto.items().stream())
+				.filter(item -> item != null && item.productId() != null)
+				.map(OrderItemInsertDTO::productId)
+				.collect(Collectors.toSet());
+		return productRepository.findAllById(ids).stream()
+				.collect(Collectors.toMap(Product::getId, Function.identity()));
+	}
+
+	private static String message(RuntimeException e) {
+		return NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+	}
+}
@@ -1,13 +1,34 @@
 package com.educandoweb.course.services;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.educandoweb.course.dto.OrderSummary;
 import com.educandoweb.course.entities.Order;
+import com.educandoweb.course.entities.OrderItem;
+import com.educandoweb.course.entities.enums.OrderStatus;
 import com.educandoweb.course.repositories.OrderRepository;
+import com.educandoweb.course.repositories.UserRepository;
+import com.educandoweb.course.services.exceptions.ResourceNotFoundException;
+import com.educandoweb.course.services.pagination.Cursor;
+import com.educandoweb.course.services.pagination.KeysetPage;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 
 /* @Component - essa annotation serve para registrar a minha classe
  * como um componente do spring.
@@ -23,17 +44,72 @@ import com.educandoweb.course.repositories.OrderRepository;
  *	
  * */
 @Service
+@Transactional(readOnly = true)
 public class OrderService {
    
 	@Autowired
 	private OrderRepository OrderRepository;
 	
+	@Autowired
+	private UserRepository userRepository;
+	
+	@Autowired
+	private ObjectMapper objectMapper;
+	
+	@PersistenceContext
+	private EntityManager entityManager;
+	
 	/* 
-	 * método findAll repassando a chamada do método findAll para a data
-	 * access layer.
+	 * Quantidade de Orders escritos na exportação antes de limpar
+	 * o contexto de persistência.
+	 * */
+	@Value("${course.export.clear-interval:1000}")
+	private int exportClearInterval;
+	
+	/* 
+	 * método findPage buscando uma página de Orders ordenada por
+	 * (moment, id) a partir do cursor devolvido pela página anterior.
+	 * */
+	public KeysetPage<Order> findPage(String cursor, Integer size) {
+		int limit = KeysetPage.clampSize(size);
+		Cursor.MomentKey after = Cursor.decodeMoment(cursor);
+		List<Order> rows = (after == null)
+				? OrderRepository.findFirstPage(limit + 1)
+				: OrderRepository.findPageAfter(after.moment(), after.id(), limit + 1);
+		KeysetPage<Order> page = KeysetPage.of(rows, limit, obj -> Cursor.encode(obj.getMoment(), obj.getId()));
+		initialize(page.content());
+		return page;
+	}
+	
+	/* 
+	 * método findSummaryPage buscando uma página do modelo de leitura
+	 * OrderSummary, na mesma ordem (moment, id) de findPage.
 	 * */
-	public List<Order> findAll(){
-		return OrderRepository.findAll();
+	public KeysetPage<OrderSummary> findSummaryPage(String cursor, Integer size) {
+		int limit = KeysetPage.clampSize(size);
+		Cursor.MomentKey after = Cursor.decodeMoment(cursor);
+		List<OrderSummary> rows = (after == null)
+				? OrderRepository.findFirstSummaryPage(limit + 1)
+				: OrderRepository.findSummaryPageAfter(after.moment(), after.id(), limit + 1);
+		return KeysetPage.of(rows, limit, obj -> Cursor.encode(obj.moment(), obj.id()));
+	}
+	
+	/* 
+	 * método findClientPage buscando uma página do histórico de Orders de
+	 * um User, do mais recente para o mais antigo, opcionalmente só com um
+	 * status. A existência do User só é verificada quando a página vem
+	 * vazia, uma página com Orders já prova que ele existe.
+	 * */
+	public KeysetPage<OrderSummary> findClientPage(Long clientId, OrderStatus status, String cursor, Integer size) {
+		int limit = KeysetPage.clampSize(size);
+		Cursor.MomentKey after = Cursor.decodeMoment(cursor);
+		List<OrderSummary> rows = (after == null)
+				? OrderRepository.findFirstClientPage(clientId, status, limit + 1)
+				: OrderRepository.findClientPageAfter(clientId, status, after.moment(), after.id(), limit + 1);
+		if (rows.isEmpty() && !userRepository.existsById(clientId)) {
+			throw new ResourceNotFoundException(clientId);
+		}
+		return KeysetPage.of(rows, limit, obj -> Cursor.encode(obj.moment(), obj.id()));
 	}
 	
 	/* 
@@ -48,6 +124,55 @@ public class OrderService {
 		 * um objeto do tipo com a qual a classe opcional foi
 		 * parametrizada.
 		 * */
-		return opt.get();
+		Order order = opt.orElseThrow(() -> new ResourceNotFoundException(id));
+		initialize(List.of(order));
+		return order;
+	}
+	
+	/* 
+	 * Com o open-in-view desligado a conexão com o banco de dados é
+	 * devolvida ao pool no fim da transação, antes do JSON ser gerado,
+	 * então tudo que aparece no JSON do Order (items, products e as
+	 * categories de cada product) precisa ser carregado aqui dentro.
+	 * 
+	 * client e payment já vêm no join do @EntityGraph e as coleções
+	 * são carregadas em lote (default_batch_fetch_size).
+	 * */
+	private void initialize(List<Order> orders) {
+		for (Order order : orders) {
+			for (OrderItem item : order.getItems()) {
+				Hibernate.initialize(item.getProduct().getCategories());
+			}
+		}
+	}
+	
+	/* 
+	 * Escreve todos os Orders no formato NDJSON (um JSON por linha)
+	 * direto no OutputStream da resposta, sem montar uma List.
+	 * 
+	 * Os Orders já escritos ficariam presos no contexto de persistência
+	 * (cache de primeiro nível) até o fim da transação, por isso ele é
+	 * limpo a cada exportClearInterval linhas, assim o uso de memória
+	 * fica fixo mesmo para uma tabela de milhões de linhas.
+	 * */
+	public void exportNdjson(OutputStream out) throws IOException {
+		ObjectWriter writer = objectMapper.writerFor(Order.class)
+				.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+				.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		
+		try (Stream<Order> stream = OrderRepository.streamAll()) {
+			Iterator<Order> it = stream.iterator();
+			long count = 0;
+			while (it.hasNext()) {
+				writer.writeValue(out, it.next());
+				out.write('\n');
+				
+				if (++count % exportClearInterval == 0) {
+					entityManager.clear();
+					out.flush();
+				}
+			}
+		}
+		out.flush();
 	}
 }
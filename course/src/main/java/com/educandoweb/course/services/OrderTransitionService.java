@@ -0,0 +1,169 @@
+package com.educandoweb.course.services;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.educandoweb.course.dto.OrderTransitionDTO;
+import com.educandoweb.course.entities.Order;
+import com.educandoweb.course.entities.Payment;
+import com.educandoweb.course.entities.enums.OrderStatus;
+import com.educandoweb.course.repositories.OrderRepository;
+import com.educandoweb.course.services.analytics.OrderAnalyticsRefresher;
+import com.educandoweb.course.services.analytics.OrderItemSnapshot;
+import com.educandoweb.course.services.analytics.SalesAnalytics;
+import com.educandoweb.course.services.cache.ResponseCache;
+import com.educandoweb.course.services.events.ChangeType;
+import com.educandoweb.course.services.events.OutboxWriter;
+import com.educandoweb.course.services.exceptions.ConcurrentUpdateException;
+import com.educandoweb.course.services.exceptions.IllegalTransitionException;
+import com.educandoweb.course.services.exceptions.MissingFieldException;
+import com.educandoweb.course.services.exceptions.ResourceNotFoundException;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.PersistenceContext;
+
+/*
+ * Service responsável pelas mudanças de status dos Orders, seguindo as
+ * transições de OrderStatus.canTransitionTo.
+ *
+ * Caminho rápido (SHIPPED, DELIVERED, CANCELLED): um único UPDATE
+ * condicional, que só altera o Order se o status atual for um dos que
+ * podem passar para o novo, sem carregar a entidade. O banco de dados
+ * decide sozinho entre pedidos concorrentes: só um deles encontra o
+ * status antigo, os outros alteram 0 linhas e recebem 409. Só nesse
+ * caso o status atual é lido, para a mensagem (ou o 404).
+ *
+ * PAID passa pela entidade, porque cria o Payment do Order. A mudança
+ * de status é enviada (flush) antes do insert do Payment, assim um
+ * pagamento concorrente perde no UPDATE com a versão (@Version) e a
+ * transação é repetida, até maxAttempts vezes; na repetição o Order já
+ * está PAID e a resposta é 409.
+ *
+ * O UPDATE do caminho rápido não passa pelos entity listeners, então o
+ * ResponseCache, o SalesAnalytics e o OrderItemSnapshot são avisados
+ * aqui, e o evento do outbox (STATUS_CHANGED) também é gravado aqui.
+ * Só o status muda, então o SalesAnalytics e o OrderItemSnapshot só
+ * movem o Order para o novo status (changeStatus), sem reler o banco
+ * de dados: relendo, cada transição custava mais duas consultas e
+ * metade da vazão. Junto vai a versão do Order depois do UPDATE, lida
+ * pela chave primária, para que uma mudança que chega atrasada não
+ * desfaça uma mais nova. Um Order que nenhum dos dois conhece ainda
+ * (gravado sem passar pelo EntityManager) é relido depois do commit
+ * pelo OrderAnalyticsRefresher, uma leitura para os dois.
+ * */
+@Service
+public class OrderTransitionService {
+
+	/* payload do evento STATUS_CHANGED */
+	record StatusChange(OrderStatus status) {
+	}
+
+	/* status a partir dos quais cada status pode ser alcançado */
+	private static final Map<OrderStatus, List<OrderStatus>> PREDECESSORS = new EnumMap<>(OrderStatus.class);
+
+	static {
+		for (OrderStatus to : OrderStatus.values()) {
+			List<OrderStatus> from = new ArrayList<>();
+			for (OrderStatus status : OrderStatus.values()) {
+				if (status.canTransitionTo(to)) {
+					from.add(status);
+				}
+			}
+			PREDECESSORS.put(to, List.copyOf(from));
+		}
+	}
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private ResponseCache responseCache;
+
+	@Autowired
+	private SalesAnalytics salesAnalytics;
+
+	@Autowired
+	private OrderItemSnapshot orderItemSnapshot;
+
+	@Autowired
+	private OrderAnalyticsRefresher orderAnalyticsRefresher;
+
+	@Autowired
+	private OutboxWriter outboxWriter;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Value("${course.orders.transition-attempts:5}")
+	private int maxAttempts;
+
+	public OrderTransitionDTO transition(Long id, OrderStatus to) {
+		if (to == null) {
+			throw new MissingFieldException("status");
+		}
+		if (to == OrderStatus.PAID) {
+			return pay(id);
+		}
+		List<OrderStatus> from = PREDECESSORS.get(to);
+		return transactionTemplate.execute(status -> {
+			if (from.isEmpty() || orderRepository.updateStatus(id, to, from) == 0) {
+				OrderStatus current = orderRepository.findStatus(id).orElseThrow(() -> new ResourceNotFoundException(id));
+				throw new IllegalTransitionException(id, current, to);
+			}
+			/* a versão depois do UPDATE ordena as mudanças nos consumidores */
+			long version = orderRepository.findVersion(id);
+			responseCache.invalidateOrderAfterCommit(id);
+			outboxWriter.append("Order", id, ChangeType.STATUS_CHANGED, new StatusChange(to));
+			/* um Order que nenhum dos dois conhece ainda é relido uma vez para ambos */
+			if (!salesAnalytics.contains(id) && !orderItemSnapshot.contains(id)) {
+				orderAnalyticsRefresher.refreshAfterCommit(id);
+				return new OrderTransitionDTO(id, to);
+			}
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					salesAnalytics.changeStatus(id, to, version);
+					orderItemSnapshot.changeStatus(id, to, version);
+				}
+			});
+			return new OrderTransitionDTO(id, to);
+		});
+	}
+
+	private OrderTransitionDTO pay(Long id) {
+		for (int attempt = 1;; attempt++) {
+			try {
+				return transactionTemplate.execute(status -> {
+					Order order = orderRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException(id));
+					OrderStatus current = order.getOrderStatus();
+					if (current == null || !current.canTransitionTo(OrderStatus.PAID)) {
+						throw new IllegalTransitionException(id, current, OrderStatus.PAID);
+					}
+					order.setOrderStatus(OrderStatus.PAID);
+					entityManager.flush();
+					order.setPayment(new Payment(null, Instant.now(), order));
+					return new OrderTransitionDTO(id, OrderStatus.PAID);
+				});
+			} catch (OptimisticLockingFailureException | OptimisticLockException e) {
+				if (attempt >= maxAttempts) {
+					throw new ConcurrentUpdateException(id, attempt);
+				}
+			}
+		}
+	}
+}
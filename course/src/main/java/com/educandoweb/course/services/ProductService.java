@@ -1,13 +1,38 @@
 package com.educandoweb.course.services;
 
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
+import org.hibernate.Session;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.educandoweb.course.dto.CategoryDTO;
+import com.educandoweb.course.dto.CategoryFacet;
+import com.educandoweb.course.dto.ProductCategoryDTO;
+import com.educandoweb.course.dto.ProductDTO;
+import com.educandoweb.course.dto.ProductFilterResult;
+import com.educandoweb.course.dto.ProductSearchHit;
+import com.educandoweb.course.dto.ProductSearchResult;
 import com.educandoweb.course.entities.Product;
 import com.educandoweb.course.repositories.ProductRepository;
+import com.educandoweb.course.services.exceptions.ResourceNotFoundException;
+import com.educandoweb.course.services.exceptions.StaleCursorException;
+import com.educandoweb.course.services.pagination.Cursor;
+import com.educandoweb.course.services.pagination.Cursor.ScoreKey;
+import com.educandoweb.course.services.pagination.KeysetPage;
+import com.educandoweb.course.services.search.CategoryFilter;
+import com.educandoweb.course.services.search.CategoryIndex;
+import com.educandoweb.course.services.search.InvertedIndex;
+import com.educandoweb.course.services.search.ProductSearchIndex;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 
 /* @Component - essa annotation serve para registrar a minha classe
  * como um componente do spring.
@@ -23,31 +48,140 @@ import com.educandoweb.course.repositories.ProductRepository;
  *	
  * */
 @Service
+@Transactional(readOnly = true)
 public class ProductService {
    
 	@Autowired
 	private ProductRepository productRepository;
 	
+	@Autowired
+	private ProductSearchIndex productSearchIndex;
+	
+	@Autowired
+	private CategoryIndex categoryIndex;
+	
+	@PersistenceContext
+	private EntityManager entityManager;
+	
 	/* 
-	 * método findAll repassando a chamada do método findAll para a data
-	 * access layer.
+	 * método findPage buscando uma página de Products a partir do cursor
+	 * devolvido pela página anterior.
+	 * */
+	public KeysetPage<ProductDTO> findPage(String cursor, Integer size) {
+		int limit = KeysetPage.clampSize(size);
+		Long afterId = Cursor.decodeId(cursor);
+		List<ProductDTO> rows = (afterId == null)
+				? productRepository.findFirstPage(limit + 1)
+				: productRepository.findPageAfter(afterId, limit + 1);
+		KeysetPage<ProductDTO> page = KeysetPage.of(rows, limit, obj -> Cursor.encode(obj.id()));
+		return new KeysetPage<>(withCategories(page.content()), page.size(), page.nextCursor());
+	}
+	
+	/* 
+	 * método search buscando no índice invertido os Products com todos os
+	 * termos de q (e da category, quando informada), ordenados pela
+	 * pontuação. A página seguinte começa depois do (score, id) do cursor.
+	 * 
+	 * Os scores mudam a cada escrita no índice, então o cursor leva a
+	 * geração do índice da sua página: se o índice mudou desde então, a
+	 * página seguinte poderia pular ou repetir Products, e a busca é
+	 * recusada (StaleCursorException) para recomeçar da primeira página.
+	 * 
+	 * O índice só devolve os ids, os Products da página são lidos com
+	 * loadProducts.
+	 * */
+	public ProductSearchResult search(String q, Long categoryId, String cursor, Integer size) {
+		int limit = KeysetPage.clampSize(size);
+		ScoreKey after = Cursor.decodeScore(cursor);
+		InvertedIndex.Result result = productSearchIndex.search(q, categoryId, limit + 1,
+				(after == null) ? null : new InvertedIndex.Hit(after.id(), after.score()));
+		if (after != null && after.generation() != result.generation()) {
+			throw new StaleCursorException(cursor);
+		}
+		KeysetPage<InvertedIndex.Hit> page = KeysetPage.of(result.hits(), limit,
+				hit -> Cursor.encode(hit.score(), hit.productId(), result.generation()));
+		
+		List<Long> ids = page.content().stream().map(InvertedIndex.Hit::productId).toList();
+		List<Product> products = loadProducts(ids);
+		Map<Long, Double> scores = page.content().stream()
+				.collect(Collectors.toMap(InvertedIndex.Hit::productId, InvertedIndex.Hit::score));
+		List<ProductSearchHit> content = products.stream()
+				.map(product -> new ProductSearchHit(new ProductDTO(product), scores.get(product.getId())))
+				.toList();
+		return new ProductSearchResult(result.total(), content, page.size(), page.nextCursor());
+	}
+	
+	/* 
+	 * método filter buscando os Products pelas categories, no formato do
+	 * CategoryFilter (1,2|3,!4), em ordem de id a partir do cursor, com a
+	 * contagem de cada Category entre os Products encontrados.
+	 * 
+	 * O filtro e as contagens são feitos nos bitmaps do CategoryIndex,
+	 * só os Products da página são lidos, com loadProducts.
 	 * */
-	public List<Product> findAll(){
-		return productRepository.findAll();
+	public ProductFilterResult filter(String categories, String cursor, Integer size) {
+		int limit = KeysetPage.clampSize(size);
+		Long afterId = Cursor.decodeId(cursor);
+		CategoryIndex.Result result = categoryIndex.filter(CategoryFilter.parse(categories));
+		KeysetPage<Long> page = KeysetPage.of(result.page(afterId, limit + 1), limit, Cursor::encode);
+		
+		List<ProductDTO> content = loadProducts(page.content()).stream().map(ProductDTO::new).toList();
+		List<CategoryFacet> facets = result.facets().entrySet().stream()
+				.map(entry -> new CategoryFacet(entry.getKey(), entry.getValue()))
+				.sorted(Comparator.comparingLong(CategoryFacet::count).reversed()
+						.thenComparing(CategoryFacet::id))
+				.toList();
+		return new ProductFilterResult(result.total(), content, page.size(), page.nextCursor(), facets);
 	}
 	
 	/* 
 	 * método findById repassando a chamada do método findbyId para a data
 	 * access layer.
 	 *  */
-	public Product findById(Long id) {
-		/* O objeto Opcional existe desde o java 8 */
+	public ProductDTO findById(Long id) {
+		/* O objeto Opcional existe desde o java 8.
+		 * 
+		 * A busca é feita pela entidade, e não por uma projeção, para
+		 * que o Product e a coleção de categories sejam atendidos pelo
+		 * cache de segundo nível.
+		 * */
 		Optional<Product> opt =  productRepository.findById(id);
 		
 		/* A operação get do objeto genérico Optional retorna
 		 * um objeto do tipo com a qual a classe Optional foi
 		 * parametrizada.
 		 * */
-		return opt.get();
+		return new ProductDTO(opt.orElseThrow(() -> new ResourceNotFoundException(id)));
+	}
+	
+	/* 
+	 * Lê os Products na ordem dos ids: multiLoad procura cada um no cache
+	 * de segundo nível e busca os que faltarem numa única consulta. Um
+	 * Product apagado depois de ser encontrado no índice é ignorado.
+	 * */
+	private List<Product> loadProducts(List<Long> ids) {
+		if (ids.isEmpty()) {
+			return List.of();
+		}
+		return entityManager.unwrap(Session.class).byMultipleIds(Product.class).multiLoad(ids).stream()
+				.filter(Objects::nonNull)
+				.toList();
+	}
+	
+	/* 
+	 * Associa as categories aos products numa única consulta para
+	 * a lista inteira, em vez de uma consulta por product.
+	 * */
+	private List<ProductDTO> withCategories(List<ProductDTO> products) {
+		if (products.isEmpty()) {
+			return products;
+		}
+		List<Long> ids = products.stream().map(ProductDTO::id).toList();
+		Map<Long, List<CategoryDTO>> categories = productRepository.findCategories(ids).stream()
+				.collect(Collectors.groupingBy(ProductCategoryDTO::productId,
+						Collectors.mapping(ProductCategoryDTO::toCategory, Collectors.toList())));
+		return products.stream()
+				.map(p -> p.withCategories(categories.getOrDefault(p.id(), List.of())))
+				.toList();
 	}
 }
@@ -6,11 +6,15 @@ import java.util.Optional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.educandoweb.course.dto.UserDTO;
 import com.educandoweb.course.entities.User;
 import com.educandoweb.course.repositories.UserRepository;
 import com.educandoweb.course.services.exceptions.DatabaseException;
 import com.educandoweb.course.services.exceptions.ResourceNotFoundException;
+import com.educandoweb.course.services.pagination.Cursor;
+import com.educandoweb.course.services.pagination.KeysetPage;
 
 import jakarta.persistence.EntityNotFoundException;
 
@@ -26,28 +30,42 @@ import jakarta.persistence.EntityNotFoundException;
  * precisa estar registrada no mecanismo de injeção de dependência, isso
  * é que é fazer um component registration.
  *	
+ * @Transactional(readOnly = true) - cada método público do service
+ * roda numa transação somente leitura, é o service que abre e fecha
+ * a transação (e a conexão com o banco de dados), e não a requisição
+ * http inteira, pois o open-in-view está desligado. Os métodos de
+ * escrita sobrescrevem com @Transactional.
  * */
 @Service
+@Transactional(readOnly = true)
 public class UserService {
    
 	@Autowired
 	private UserRepository userRepository;
 	
 	/* 
-	 * método findAll repassando a chamada do método findAll para a data
-	 * access layer.
+	 * método findPage buscando uma página de Users a partir do cursor
+	 * devolvido pela página anterior (paginação por chave).
+	 * 
+	 * É buscada uma linha a mais do que o tamanho da página, para saber
+	 * se existe uma próxima página.
 	 * */
-	public List<User> findAll(){
-		return userRepository.findAll();
+	public KeysetPage<UserDTO> findPage(String cursor, Integer size) {
+		int limit = KeysetPage.clampSize(size);
+		Long afterId = Cursor.decodeId(cursor);
+		List<UserDTO> rows = (afterId == null)
+				? userRepository.findFirstPage(limit + 1)
+				: userRepository.findPageAfter(afterId, limit + 1);
+		return KeysetPage.of(rows, limit, obj -> Cursor.encode(obj.id()));
 	}
 	
 	/* 
 	 * método findById repassando a chamada do método findbyId para a data
 	 * access layer.
 	 *  */
-	public User findById(Long id) {
+	public UserDTO findById(Long id) {
 		/* O objeto Opcional existe desde o java 8 */
-		Optional<User> opt =  userRepository.findById(id);
+		Optional<UserDTO> opt =  userRepository.findDTOById(id);
 		
 		/* A operação get do objeto genérico Optional retorna
 		 * um objeto do tipo com a qual a classe Optional foi
@@ -60,10 +78,12 @@ public class UserService {
 		return opt.orElseThrow(() -> new ResourceNotFoundException(id));
 	}
 	
+	@Transactional
 	public User insert(User obj) {
 		return userRepository.save(obj);
 	}
 	
+	@Transactional
 	public void delete(Long id) {
 		try {
 			if(userRepository.existsById(id)) {
@@ -75,6 +95,12 @@ public class UserService {
 				   existe, porém ele não ser deletado pois tem um registro pai associado a ele.
 				*/
 				userRepository.deleteById(id); 
+				
+				/* O flush força o delete a ir para o banco de dados agora,
+				 * dentro do try, e não só no commit da transação, para que
+				 * a violação de integridade seja tratada aqui.
+				 * */
+				userRepository.flush();
 			} else {
 				/* Essa exceção será lançada quando não existir um
 				 * recurso para o id informado, ou seja,um registro.
@@ -86,6 +112,7 @@ public class UserService {
 		}
 	}
 	
+	@Transactional
 	public User update(Long id, User obj) {
 		/* O método getReferenceById instância um User com o id passado
 		 * como argumento para ele, mas ele
@@ -0,0 +1,37 @@
+package com.educandoweb.course.services.analytics;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.educandoweb.course.entities.Order;
+import com.educandoweb.course.entities.OrderItem;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/*
+ * Entity listener que atualiza os agregados de vendas (SalesAnalytics) e
+ * as colunas do OrderItemSnapshot depois do commit de qualquer escrita
+ * em um Order ou em um dos seus items feita pelo EntityManager, veja
+ * OrderAnalyticsRefresher.
+ *
+ * Como o ProductSearchListener, o OrderAnalyticsRefresher só é buscado
+ * na primeira escrita, ele usa o JdbcTemplate, criado depois do
+ * EntityManagerFactory.
+ * */
+public class OrderAnalyticsListener {
+
+	@Autowired
+	private ObjectProvider<OrderAnalyticsRefresher> orderAnalyticsRefresher;
+
+	@PostPersist
+	@PostUpdate
+	@PostRemove
+	public void changed(Object entity) {
+		Order order = (entity instanceof OrderItem item) ? item.getOrder() : (Order) entity;
+		if (order != null && order.getId() != null) {
+			orderAnalyticsRefresher.getObject().refreshAfterCommit(order.getId());
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package com.educandoweb.course.services.analytics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.educandoweb.course.services.analytics.OrderItemReader.OrderLines;
+import com.educandoweb.course.services.transaction.AfterCommit;
+
+/*
+ * Atualiza o SalesAnalytics e o OrderItemSnapshot depois do commit de
+ * uma escrita em um Order ou OrderItem (OrderAnalyticsListener).
+ *
+ * Os Orders alterados na transação são relidos do banco de dados uma
+ * única vez, pelo OrderItemReader, e a mesma leitura é entregue aos
+ * dois. O refresh é synchronized para que uma leitura mais antiga não
+ * seja aplicada depois de uma mais nova.
+ *
+ * Escritas que não passam pelo EntityManager (UPDATE em massa, JDBC)
+ * precisam chamar refreshAfterCommit diretamente.
+ * */
+@Component
+public class OrderAnalyticsRefresher {
+
+	private static final int CHUNK = 1000;
+
+	@Autowired
+	private OrderItemReader orderItemReader;
+
+	@Autowired
+	private SalesAnalytics salesAnalytics;
+
+	@Autowired
+	private OrderItemSnapshot orderItemSnapshot;
+
+	public void refreshAfterCommit(Long orderId) {
+		AfterCommit.collectId(this, orderId, this::refresh);
+	}
+
+	public synchronized void refresh(Collection<Long> orderIds) {
+		List<Long> ids = new ArrayList<>(orderIds);
+		for (int from = 0; from < ids.size(); from += CHUNK) {
+			List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + CHUNK));
+			Map<Long, OrderLines> orders = orderItemReader.read(chunk);
+			salesAnalytics.apply(chunk, orders);
+			orderItemSnapshot.apply(chunk, orders);
+		}
+	}
+}
@@ -0,0 +1,21 @@
+package com.educandoweb.course.services.analytics;
+
+/*
+ * O que um Order soma nos agregados: o dia (epoch day, em UTC), o
+ * status (ordinal de OrderStatus) e, para cada item, o product, a
+ * receita em centavos (preço * quantidade) e as unidades, lidos na
+ * versão (@Version) version do Order.
+ *
+ * O SalesAnalytics guarda os OrderFacts aplicados de cada Order, para
+ * subtrair exatamente a mesma contribuição quando o Order mudar.
+ * */
+record OrderFacts(long day, int status, long version, long[] productIds, long[] cents, int[] units) {
+
+	int items() {
+		return productIds.length;
+	}
+
+	OrderFacts withStatus(int newStatus, long newVersion) {
+		return new OrderFacts(day, newStatus, newVersion, productIds, cents, units);
+	}
+}
@@ -0,0 +1,405 @@
+package com.educandoweb.course.services.analytics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * Os OrderItems em colunas: um array de tipo primitivo por campo (order,
+ * product, preço em centavos, quantidade, moment em segundos e status
+ * do Order), uma linha por item. Cada linha ocupa 37 bytes, sem objetos,
+ * e uma varredura lê só as colunas que usa, em sequência.
+ *
+ * As linhas de um Order ficam juntas. Alterar um Order marca as linhas
+ * antigas como apagadas e acrescenta as novas no fim, como os documentos
+ * do InvertedIndex; quando as apagadas passam das vivas o
+ * OrderItemSnapshot troca as colunas por uma cópia compacta (compact).
+ *
+ * As escritas são feitas uma por vez (synchronized). As varreduras não
+ * usam lock: leem size e depois os arrays, que só crescem, e os bits de
+ * apagado uma vez a cada 64 linhas. Durante a troca das linhas de um
+ * Order uma varredura pode não ver nem as antigas nem as novas.
+ *
+ * scan divide as linhas em faixas e varre as faixas em paralelo no
+ * ForkJoinPool comum, cada uma com os seus próprios totais, juntados no
+ * fim. São umas 4 faixas por thread (e pelo menos LEAF_ROWS linhas por
+ * faixa): num agrupamento com muitas chaves, como PRODUCT, cada faixa
+ * monta uma tabela do tamanho do número de chaves, então faixas menores
+ * só aumentariam as alocações e as junções.
+ * */
+public final class OrderItemColumns {
+
+	public enum GroupBy {
+		NONE, PRODUCT, ORDER, STATUS, DAY
+	}
+
+	/*
+	 * Linhas com moment em [fromSecond, toSecond), do product (ou de
+	 * todos, com productId < 0) e do status (ordinal, ou todos, com
+	 * status < 0).
+	 * */
+	public record Filter(long fromSecond, long toSecond, long productId, int status) {
+
+		public static final Filter ALL = new Filter(Long.MIN_VALUE, Long.MAX_VALUE, -1, -1);
+	}
+
+	/* items, unidades e receita (preço * quantidade) das linhas de um grupo */
+	public record Group(long key, long items, long units, long cents) {
+	}
+
+	/* scanned: linhas vivas varridas, matched: linhas que passaram no filtro */
+	public record Result(long scanned, long matched, List<Group> groups) {
+	}
+
+	/* maior receita primeiro, empate pela menor chave */
+	public static final Comparator<Group> BY_REVENUE = Comparator.comparingLong(Group::cents).reversed()
+			.thenComparingLong(Group::key);
+
+	static final int LEAF_ROWS = 1 << 16;
+	private static final int LEAVES_PER_THREAD = 4;
+
+	private volatile long[] orderIds = new long[1024];
+	private volatile long[] productIds = new long[1024];
+	private volatile long[] priceCents = new long[1024];
+	private volatile int[] quantities = new int[1024];
+	private volatile long[] moments = new long[1024];
+	private volatile byte[] statuses = new byte[1024];
+	private volatile AtomicLongArray deleted = new AtomicLongArray(16);
+	private volatile int size;
+	private volatile int liveCount;
+
+	/* primeira linha atual de cada Order, só usado pelas escritas */
+	private final Map<Long, Integer> firstRowOf = new HashMap<>();
+
+	/* inclui ou substitui as linhas do Order, uma por item */
+	public synchronized void put(long orderId, long momentSecond, int status, long[] products, long[] prices,
+			int[] units) {
+		int first = size;
+		int count = products.length;
+		ensureCapacity(first + count);
+		for (int i = 0; i < count; i++) {
+			int row = first + i;
+			orderIds[row] = orderId;
+			productIds[row] = products[i];
+			priceCents[row] = prices[i];
+			quantities[row] = units[i];
+			moments[row] = momentSecond;
+			statuses[row] = (byte) status;
+		}
+		remove(orderId);
+		if (count > 0) {
+			firstRowOf.put(orderId, first);
+			liveCount += count;
+			size = first + count;
+		}
+	}
+
+	public synchronized void remove(long orderId) {
+		Integer first = firstRowOf.remove(orderId);
+		if (first != null) {
+			long[] orders = orderIds;
+			AtomicLongArray bits = deleted;
+			int end = size;
+			for (int row = first; row < end && orders[row] == orderId; row++) {
+				int bit = row;
+				bits.getAndUpdate(row >>> 6, word -> word | (1L << bit));
+				liveCount--;
+			}
+		}
+	}
+
+	/* muda o status (ordinal) nas linhas atuais do Order */
+	public synchronized void setStatus(long orderId, int status) {
+		Integer first = firstRowOf.get(orderId);
+		if (first != null) {
+			long[] orders = orderIds;
+			byte[] rowStatuses = statuses;
+			int end = size;
+			for (int row = first; row < end && orders[row] == orderId; row++) {
+				rowStatuses[row] = (byte) status;
+			}
+		}
+	}
+
+	/* linhas vivas */
+	public int size() {
+		return liveCount;
+	}
+
+	/* linhas apagadas que ainda ocupam espaço nas colunas */
+	public int deletedCount() {
+		return size - liveCount;
+	}
+
+	public int orderCount() {
+		synchronized (this) {
+			return firstRowOf.size();
+		}
+	}
+
+	public long sizeInBytes() {
+		return orderIds.length * 37L + deleted.length() * 8L;
+	}
+
+	/* novas colunas só com as linhas vivas */
+	public synchronized OrderItemColumns compact() {
+		OrderItemColumns compacted = new OrderItemColumns();
+		compacted.ensureCapacity(liveCount);
+		int end = size;
+		int target = 0;
+		for (int row = 0; row < end; row++) {
+			if ((deleted.get(row >>> 6) & (1L << row)) == 0) {
+				long orderId = orderIds[row];
+				compacted.orderIds[target] = orderId;
+				compacted.productIds[target] = productIds[row];
+				compacted.priceCents[target] = priceCents[row];
+				compacted.quantities[target] = quantities[row];
+				compacted.moments[target] = moments[row];
+				compacted.statuses[target] = statuses[row];
+				compacted.firstRowOf.putIfAbsent(orderId, target);
+				target++;
+			}
+		}
+		compacted.liveCount = target;
+		compacted.size = target;
+		return compacted;
+	}
+
+	/*
+	 * Agrega as linhas do filtro por groupBy e devolve os limit grupos de
+	 * maior receita (BY_REVENUE). Com NONE há um único grupo, de chave 0.
+	 * */
+	public Result scan(Filter filter, GroupBy groupBy, int limit) {
+		return scan(filter, groupBy, limit, ForkJoinPool.commonPool());
+	}
+
+	public Result scan(Filter filter, GroupBy groupBy, int limit, ForkJoinPool pool) {
+		/* size antes dos arrays: os arrays lidos depois têm pelo menos size linhas */
+		int rows = size;
+		Scan scan = new Scan(orderIds, productIds, priceCents, quantities, moments, statuses, deleted, filter,
+				groupBy);
+		int leafRows = Math.max(LEAF_ROWS, rows / (pool.getParallelism() * LEAVES_PER_THREAD));
+		LongGroups totals = pool.invoke(new ScanTask(scan, 0, rows, leafRows));
+
+		List<Group> groups = new ArrayList<>(totals.count);
+		long matched = 0;
+		for (int slot = 0; slot < totals.capacity(); slot++) {
+			if (totals.items(slot) > 0) {
+				matched += totals.items(slot);
+				groups.add(new Group(totals.key(slot), totals.items(slot), totals.units(slot), totals.cents(slot)));
+			}
+		}
+		groups.sort(BY_REVENUE);
+		return new Result(totals.scanned, matched, groups.subList(0, Math.min(limit, groups.size())));
+	}
+
+	private record Scan(long[] orderIds, long[] productIds, long[] priceCents, int[] quantities, long[] moments,
+			byte[] statuses, AtomicLongArray deleted, Filter filter, GroupBy groupBy) {
+	}
+
+	/* divide a faixa ao meio, em múltiplos de 64 linhas, até leafRows */
+	private static final class ScanTask extends RecursiveTask<LongGroups> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final transient Scan scan;
+		private final int from;
+		private final int to;
+		private final int leafRows;
+
+		ScanTask(Scan scan, int from, int to, int leafRows) {
+			this.scan = scan;
+			this.from = from;
+			this.to = to;
+			this.leafRows = leafRows;
+		}
+
+		@Override
+		protected LongGroups compute() {
+			if (to - from <= leafRows) {
+				return scanRange(scan, from, to);
+			}
+			int middle = ((from + to) >>> 1) & ~63;
+			ScanTask left = new ScanTask(scan, from, middle, leafRows);
+			left.fork();
+			LongGroups right = new ScanTask(scan, middle, to, leafRows).compute();
+			return left.join().merge(right);
+		}
+	}
+
+	private static LongGroups scanRange(Scan scan, int from, int to) {
+		long[] orders = scan.orderIds();
+		long[] products = scan.productIds();
+		long[] prices = scan.priceCents();
+		int[] units = scan.quantities();
+		long[] moments = scan.moments();
+		byte[] statuses = scan.statuses();
+		AtomicLongArray deleted = scan.deleted();
+		long fromSecond = scan.filter().fromSecond();
+		long toSecond = scan.filter().toSecond();
+		long productId = scan.filter().productId();
+		int status = scan.filter().status();
+		GroupBy groupBy = scan.groupBy();
+
+		LongGroups groups = new LongGroups((groupBy == GroupBy.NONE) ? 1 : 1024);
+		long scanned = 0;
+		long items = 0;
+		long unitSum = 0;
+		long cents = 0;
+		for (int block = from; block < to; block += 64) {
+			long dead = deleted.get(block >>> 6);
+			int end = Math.min(to, block + 64);
+			scanned += (end - block) - Long.bitCount(dead & mask(end - block));
+			for (int row = block; row < end; row++) {
+				if ((dead & (1L << row)) != 0) {
+					continue;
+				}
+				long moment = moments[row];
+				if (moment < fromSecond || moment >= toSecond || (productId >= 0 && products[row] != productId)
+						|| (status >= 0 && statuses[row] != status)) {
+					continue;
+				}
+				int quantity = units[row];
+				long amount = prices[row] * quantity;
+				switch (groupBy) {
+				case NONE -> {
+					items++;
+					unitSum += quantity;
+					cents += amount;
+				}
+				case PRODUCT -> groups.add(products[row], quantity, amount);
+				case ORDER -> groups.add(orders[row], quantity, amount);
+				case STATUS -> groups.add(statuses[row], quantity, amount);
+				case DAY -> groups.add(Math.floorDiv(moment, 86_400L), quantity, amount);
+				}
+			}
+		}
+		if (groupBy == GroupBy.NONE) {
+			groups.add(0, items, unitSum, cents);
+		}
+		groups.scanned = scanned;
+		return groups;
+	}
+
+	/* bits das primeiras count linhas de uma palavra (as faixas começam em múltiplos de 64) */
+	private static long mask(int count) {
+		return (count == 64) ? -1L : (1L << count) - 1;
+	}
+
+	private void ensureCapacity(int rows) {
+		if (rows > orderIds.length) {
+			int capacity = Math.max(rows, orderIds.length * 2);
+			orderIds = Arrays.copyOf(orderIds, capacity);
+			productIds = Arrays.copyOf(productIds, capacity);
+			priceCents = Arrays.copyOf(priceCents, capacity);
+			quantities = Arrays.copyOf(quantities, capacity);
+			moments = Arrays.copyOf(moments, capacity);
+			statuses = Arrays.copyOf(statuses, capacity);
+		}
+		if ((rows + 63) / 64 > deleted.length()) {
+			AtomicLongArray bits = new AtomicLongArray(Math.max((rows + 63) / 64, deleted.length() * 2));
+			for (int i = 0; i < deleted.length(); i++) {
+				bits.set(i, deleted.get(i));
+			}
+			deleted = bits;
+		}
+	}
+
+	/*
+	 * Totais por chave em endereçamento aberto, sem um objeto por grupo,
+	 * usado por uma única thread de cada vez. Cada posição ocupa 4 longs
+	 * seguidos (chave, items, unidades, receita), assim somar uma linha
+	 * toca uma única linha de cache; uma posição vazia tem items 0.
+	 * */
+	private static final class LongGroups {
+
+		private static final int STRIDE = 4;
+
+		private long[] table;
+		private int count;
+		private long scanned;
+
+		LongGroups(int expected) {
+			table = new long[Integer.highestOneBit(Math.max(2, expected) * 2 - 1) * 2 * STRIDE];
+		}
+
+		int capacity() {
+			return table.length / STRIDE;
+		}
+
+		long key(int slot) {
+			return table[slot * STRIDE];
+		}
+
+		long items(int slot) {
+			return table[slot * STRIDE + 1];
+		}
+
+		long units(int slot) {
+			return table[slot * STRIDE + 2];
+		}
+
+		long cents(int slot) {
+			return table[slot * STRIDE + 3];
+		}
+
+		void add(long key, int quantity, long amount) {
+			add(key, 1, quantity, amount);
+		}
+
+		void add(long key, long itemCount, long unitCount, long amount) {
+			if (itemCount == 0) {
+				return;
+			}
+			int position = position(table, key);
+			if (table[position + 1] == 0) {
+				if ((count + 1) * 2 > capacity()) {
+					grow();
+					position = position(table, key);
+				}
+				table[position] = key;
+				count++;
+			}
+			table[position + 1] += itemCount;
+			table[position + 2] += unitCount;
+			table[position + 3] += amount;
+		}
+
+		private static int position(long[] table, long key) {
+			int mask = table.length / STRIDE - 1;
+			int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+			while (table[slot * STRIDE + 1] != 0 && table[slot * STRIDE] != key) {
+				slot = (slot + 1) & mask;
+			}
+			return slot * STRIDE;
+		}
+
+		private void grow() {
+			long[] old = table;
+			table = new long[old.length * 2];
+			for (int position = 0; position < old.length; position += STRIDE) {
+				if (old[position + 1] != 0) {
+					int target = position(table, old[position]);
+					System.arraycopy(old, position, table, target, STRIDE);
+				}
+			}
+		}
+
+		/* soma other neste, o maior dos dois recebe o menor */
+		LongGroups merge(LongGroups other) {
+			LongGroups target = (count >= other.count) ? this : other;
+			LongGroups source = (target == this) ? other : this;
+			for (int slot = 0; slot < source.capacity(); slot++) {
+				target.add(source.key(slot), source.items(slot), source.units(slot), source.cents(slot));
+			}
+			target.scanned = scanned + other.scanned;
+			return target;
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package com.educandoweb.course.services.analytics;
+
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.educandoweb.course.entities.enums.OrderStatus;
+
+/*
+ * Leitura por JDBC dos Orders com os seus items, uma linha por item, a
+ * mesma consulta para o SalesAnalytics e o OrderItemSnapshot, tanto na
+ * montagem quanto na atualização depois do commit (OrderAnalyticsRefresher).
+ * */
+@Component
+public class OrderItemReader {
+
+	private static final String SQL = "SELECT o.id, o.moment, o.order_status, i.product_id, i.price, i.quantity, o.version "
+			+ "FROM tb_order o LEFT JOIN tb_order_item i ON i.order_id = o.id ";
+
+	/*
+	 * Um Order lido: moment em segundos (epoch), status pelo ordinal de
+	 * OrderStatus, a versão (@Version) e os items, com o preço unitário
+	 * em centavos. Um Order sem items tem os arrays vazios.
+	 * */
+	public record OrderLines(long orderId, long moment, int status, long version, long[] productIds, long[] prices,
+			int[] quantities) {
+
+		public int items() {
+			return productIds.length;
+		}
+	}
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	/*
+	 * Lê os Orders da condição em ordem de id, para que os items de um
+	 * Order venham juntos. Um Order sem status ou sem moment não é
+	 * entregue, para quem lê ele é o mesmo que um Order apagado.
+	 * */
+	public void read(String where, Consumer<OrderLines> consumer) {
+		OrderRows rows = new OrderRows();
+		jdbcTemplate.query(SQL + where + " ORDER BY o.id", rs -> {
+			long id = rs.getLong(1);
+			if (id != rows.orderId) {
+				rows.flush(consumer);
+				rows.orderId = id;
+				/* wasNull vale para a última coluna lida, então o status é
+				 * testado logo depois do getInt
+				 * */
+				int code = rs.getInt(3);
+				boolean noStatus = rs.wasNull();
+				Timestamp moment = rs.getTimestamp(2);
+				rows.moment = (moment == null) ? 0 : moment.toInstant().getEpochSecond();
+				rows.status = (noStatus || moment == null) ? -1 : OrderStatus.valueOf(code).ordinal();
+				rows.version = rs.getLong(7);
+			}
+			long productId = rs.getLong(4);
+			if (!rs.wasNull()) {
+				rows.add(productId, Math.round(rs.getDouble(5) * 100), rs.getInt(6));
+			}
+		});
+		rows.flush(consumer);
+	}
+
+	/* os Orders dos ids, no máximo algumas centenas por chamada */
+	public Map<Long, OrderLines> read(List<Long> orderIds) {
+		Map<Long, OrderLines> orders = new HashMap<>();
+		String in = String.join(",", orderIds.stream().map(String::valueOf).toList());
+		read("WHERE o.id IN (" + in + ")", lines -> orders.put(lines.orderId(), lines));
+		return orders;
+	}
+
+	/* items do Order sendo lido */
+	private static final class OrderRows {
+
+		private long orderId = -1;
+		private long moment;
+		private int status;
+		private long version;
+		private long[] productIds = new long[8];
+		private long[] prices = new long[8];
+		private int[] quantities = new int[8];
+		private int count;
+
+		void add(long productId, long price, int quantity) {
+			if (count == productIds.length) {
+				productIds = Arrays.copyOf(productIds, count * 2);
+				prices = Arrays.copyOf(prices, count * 2);
+				quantities = Arrays.copyOf(quantities, count * 2);
+			}
+			productIds[count] = productId;
+			prices[count] = price;
+			quantities[count] = quantity;
+			count++;
+		}
+
+		void flush(Consumer<OrderLines> consumer) {
+			if (orderId >= 0 && status >= 0) {
+				consumer.accept(new OrderLines(orderId, moment, status, version, Arrays.copyOf(productIds, count),
+						Arrays.copyOf(prices, count), Arrays.copyOf(quantities, count)));
+			}
+			count = 0;
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package com.educandoweb.course.services.analytics;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.educandoweb.course.dto.ItemGroup;
+import com.educandoweb.course.dto.ItemScanReport;
+import com.educandoweb.course.entities.enums.OrderStatus;
+import com.educandoweb.course.services.analytics.OrderItemReader.OrderLines;
+
+/*
+ * Cópia em colunas (OrderItemColumns) de todos os OrderItems, para
+ * varreduras analíticas ad hoc sem carregar entidades.
+ *
+ * É montada a partir do banco de dados na inicialização e atualizada
+ * depois de cada commit que altera um Order ou OrderItem com os items
+ * dos Orders alterados, relidos uma única vez para ela e para o
+ * SalesAnalytics (OrderAnalyticsRefresher). Quando as linhas apagadas
+ * passam das vivas as colunas são trocadas por uma cópia compacta.
+ * */
+@Component
+public class OrderItemSnapshot implements SmartInitializingSingleton {
+
+	private static final Logger log = LoggerFactory.getLogger(OrderItemSnapshot.class);
+
+	private static final int MIN_DELETED_FOR_COMPACT = 100_000;
+
+	@Autowired
+	private OrderItemReader orderItemReader;
+
+	private volatile OrderItemColumns columns = new OrderItemColumns();
+
+	/* versão (@Version) de cada Order nas colunas, só usado pelas escritas */
+	private Map<Long, Long> versions = new HashMap<>();
+	private volatile boolean built;
+
+	/* o DataSeeder, quando ligado, monta a cópia no fim do seed */
+	@Override
+	public void afterSingletonsInstantiated() {
+		if (!built) {
+			rebuild();
+		}
+	}
+
+	public OrderItemColumns getColumns() {
+		return columns;
+	}
+
+	public ItemScanReport scan(OrderItemColumns.Filter filter, OrderItemColumns.GroupBy groupBy, int limit) {
+		long start = System.nanoTime();
+		OrderItemColumns.Result result = columns.scan(filter, groupBy, limit);
+		double millis = (System.nanoTime() - start) / 1e6;
+		List<ItemGroup> groups = result.groups().stream()
+				.map(group -> new ItemGroup(key(groupBy, group.key()), group.items(), group.units(),
+						BigDecimal.valueOf(group.cents(), 2)))
+				.toList();
+		return new ItemScanReport(result.scanned(), result.matched(), millis, groups);
+	}
+
+	private static String key(OrderItemColumns.GroupBy groupBy, long key) {
+		return switch (groupBy) {
+		case NONE -> null;
+		case STATUS -> OrderStatus.values()[(int) key].name();
+		case DAY -> LocalDate.ofEpochDay(key).toString();
+		default -> String.valueOf(key);
+		};
+	}
+
+	/* monta colunas novas com todos os OrderItems e troca as atuais por elas */
+	public synchronized void rebuild() {
+		long start = System.nanoTime();
+		OrderItemColumns fresh = new OrderItemColumns();
+		Map<Long, Long> freshVersions = new HashMap<>();
+		orderItemReader.read("", lines -> put(fresh, freshVersions, lines));
+		columns = fresh;
+		versions = freshVersions;
+		built = true;
+		log.info("Loaded {} order items of {} orders into columns ({} KB) in {} ms", fresh.size(),
+				fresh.orderCount(), fresh.sizeInBytes() / 1024, (System.nanoTime() - start) / 1_000_000);
+	}
+
+	/* um Order sem items não tem linhas nas colunas */
+	private static void put(OrderItemColumns target, Map<Long, Long> targetVersions, OrderLines lines) {
+		if (lines.items() > 0) {
+			target.put(lines.orderId(), lines.moment(), lines.status(), lines.productIds(), lines.prices(),
+					lines.quantities());
+			targetVersions.put(lines.orderId(), lines.version());
+		}
+	}
+
+	/* true se o Order tem linhas nas colunas */
+	public synchronized boolean contains(Long orderId) {
+		return versions.containsKey(orderId);
+	}
+
+	/*
+	 * Muda o status das linhas do Order sem reler o banco de dados,
+	 * usado depois do commit do UPDATE de status do OrderTransitionService,
+	 * se version (a versão do Order depois do UPDATE) for mais nova que a
+	 * das linhas, como no SalesAnalytics.changeStatus.
+	 * 
+	 * É synchronized como o apply: senão o status poderia ser gravado nas
+	 * colunas antigas durante a troca pela cópia compacta e se perder.
+	 * */
+	public synchronized void changeStatus(Long orderId, OrderStatus status, long version) {
+		Long current = versions.get(orderId);
+		if (current != null && current < version) {
+			columns.setStatus(orderId, status.ordinal());
+			versions.put(orderId, version);
+		}
+	}
+
+	/*
+	 * Troca as linhas dos Orders pelas dos lidos em orders, veja
+	 * OrderAnalyticsRefresher. Orders apagados (fora de orders) ou sem
+	 * items saem das colunas. Uma leitura de uma versão mais antiga que a
+	 * das linhas (um changeStatus chegou antes) é ignorada.
+	 * */
+	public synchronized void apply(Collection<Long> orderIds, Map<Long, OrderLines> orders) {
+		OrderItemColumns current = columns;
+		for (Long id : orderIds) {
+			OrderLines lines = orders.get(id);
+			Long version = versions.get(id);
+			if (lines != null && version != null && lines.version() < version) {
+				continue;
+			}
+			if (lines != null && lines.items() > 0) {
+				put(current, versions, lines);
+			} else {
+				current.remove(id);
+				versions.remove(id);
+			}
+		}
+		if (current.deletedCount() > Math.max(MIN_DELETED_FOR_COMPACT, current.size())) {
+			columns = current.compact();
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package com.educandoweb.course.services.analytics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+/*
+ * Os agregados de vendas: receita, unidades e items por product, por
+ * category, por dia e no total, cada um separado por status.
+ *
+ * Um item conta para todas as categories do seu product, então a soma
+ * das categories pode passar do total. O total por category é sempre a
+ * soma dos totais dos seus products, por isso quando as categories de
+ * um product mudam basta mover os totais dele (moveProduct).
+ *
+ * Não é thread-safe: o SalesAnalytics faz as escritas com o write lock,
+ * e na montagem paralela cada thread tem os seus próprios agregados,
+ * juntados depois com merge.
+ * */
+final class SalesAggregates {
+
+	final Map<Long, SalesTotals> products = new HashMap<>();
+	final Map<Long, SalesTotals> categories = new HashMap<>();
+	final Map<Long, SalesTotals> days = new HashMap<>();
+	final SalesTotals all = new SalesTotals();
+
+	/* sign 1 soma a contribuição do Order, -1 subtrai */
+	void apply(OrderFacts order, int sign, LongFunction<long[]> categoriesOf) {
+		SalesTotals day = days.computeIfAbsent(order.day(), d -> new SalesTotals());
+		int status = order.status();
+		for (int i = 0; i < order.items(); i++) {
+			long cents = sign * order.cents()[i];
+			long units = sign * (long) order.units()[i];
+			long productId = order.productIds()[i];
+			products.computeIfAbsent(productId, p -> new SalesTotals()).add(status, cents, units, sign);
+			for (long categoryId : categoriesOf.apply(productId)) {
+				categories.computeIfAbsent(categoryId, c -> new SalesTotals()).add(status, cents, units, sign);
+			}
+			day.add(status, cents, units, sign);
+			all.add(status, cents, units, sign);
+		}
+	}
+
+	void moveProduct(long productId, long[] from, long[] to) {
+		SalesTotals totals = products.get(productId);
+		if (totals == null) {
+			return;
+		}
+		for (long categoryId : from) {
+			categories.computeIfAbsent(categoryId, c -> new SalesTotals()).add(totals, -1);
+		}
+		for (long categoryId : to) {
+			categories.computeIfAbsent(categoryId, c -> new SalesTotals()).add(totals, 1);
+		}
+	}
+
+	void merge(SalesAggregates other) {
+		merge(products, other.products);
+		merge(categories, other.categories);
+		merge(days, other.days);
+		all.add(other.all, 1);
+	}
+
+	private static void merge(Map<Long, SalesTotals> target, Map<Long, SalesTotals> source) {
+		source.forEach((key, totals) -> {
+			SalesTotals existing = target.putIfAbsent(key, totals);
+			if (existing != null) {
+				existing.add(totals, 1);
+			}
+		});
+	}
+}
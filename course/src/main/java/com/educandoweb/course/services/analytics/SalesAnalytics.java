@@ -0,0 +1,319 @@
+package com.educandoweb.course.services.analytics;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.educandoweb.course.dto.DailySales;
+import com.educandoweb.course.dto.SalesFigures;
+import com.educandoweb.course.dto.SalesReport;
+import com.educandoweb.course.entities.enums.OrderStatus;
+import com.educandoweb.course.services.analytics.OrderItemReader.OrderLines;
+
+/*
+ * Agregados de vendas em memória (SalesAggregates), para que os
+ * relatórios de /analytics não precisem somar tb_order_item no banco de
+ * dados a cada requisição.
+ *
+ * Montagem (rebuild): os Orders são divididos em faixas de chunk-size
+ * ids, cada faixa é lida e agregada por uma thread, com os seus próprios
+ * agregados, que são juntados no fim e trocados pelos atuais.
+ *
+ * Atualização incremental: depois do commit de uma escrita em um Order
+ * ou OrderItem, o Order é relido do banco de dados pelo
+ * OrderAnalyticsRefresher e a contribuição antiga (guardada em applied)
+ * é trocada pela nova (apply). Um Order apagado só tem a contribuição antiga subtraída. As
+ * categories dos products vêm do ProductSearchIndex (updateProductCategories).
+ *
+ * Memória: além dos agregados, um OrderFacts por Order, da ordem de
+ * 100 bytes para um Order de 3 items.
+ *
+ * As leituras usam o read lock e copiam os valores de um único agregado,
+ * o custo não depende do número de Orders.
+ * */
+@Component
+public class SalesAnalytics implements SmartInitializingSingleton {
+
+	private static final Logger log = LoggerFactory.getLogger(SalesAnalytics.class);
+
+	private static final long[] NO_CATEGORIES = new long[0];
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private OrderItemReader orderItemReader;
+
+	/* 0 usa um thread por processador */
+	@Value("${course.analytics.threads:0}")
+	private int threads;
+
+	@Value("${course.analytics.chunk-size:20000}")
+	private int chunkSize;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private SalesAggregates aggregates = new SalesAggregates();
+	private Map<Long, OrderFacts> applied = new HashMap<>();
+	private Map<Long, long[]> productCategories = new HashMap<>();
+	private volatile boolean built;
+
+	/* o DataSeeder, quando ligado, monta os agregados no fim do seed */
+	@Override
+	public void afterSingletonsInstantiated() {
+		if (!built) {
+			rebuild();
+		}
+	}
+
+	public SalesReport product(long productId) {
+		return report(totals -> totals.products.get(productId));
+	}
+
+	public SalesReport category(long categoryId) {
+		return report(totals -> totals.categories.get(categoryId));
+	}
+
+	public SalesReport total() {
+		return report(totals -> totals.all);
+	}
+
+	/* um DailySales para cada dia de from até to, inclusive */
+	public List<DailySales> days(LocalDate from, LocalDate to) {
+		List<DailySales> days = new ArrayList<>();
+		for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+			long epochDay = day.toEpochDay();
+			days.add(new DailySales(day, report(totals -> totals.days.get(epochDay))));
+		}
+		return days;
+	}
+
+	private SalesReport report(Function<SalesAggregates, SalesTotals> select) {
+		SalesTotals copy;
+		lock.readLock().lock();
+		try {
+			SalesTotals totals = select.apply(aggregates);
+			copy = (totals == null) ? new SalesTotals() : totals.copy();
+		} finally {
+			lock.readLock().unlock();
+		}
+		Map<OrderStatus, SalesFigures> byStatus = new EnumMap<>(OrderStatus.class);
+		long cents = 0;
+		long units = 0;
+		long items = 0;
+		for (OrderStatus status : OrderStatus.values()) {
+			int s = status.ordinal();
+			byStatus.put(status, figures(copy.cents[s], copy.units[s], copy.items[s]));
+			cents += copy.cents[s];
+			units += copy.units[s];
+			items += copy.items[s];
+		}
+		return new SalesReport(figures(cents, units, items), byStatus);
+	}
+
+	private static SalesFigures figures(long cents, long units, long items) {
+		return new SalesFigures(BigDecimal.valueOf(cents, 2), units, items);
+	}
+
+	/*
+	 * Monta os agregados de novo, a partir de todos os Orders, com uma
+	 * thread por faixa de ids.
+	 * */
+	public synchronized void rebuild() {
+		long start = System.nanoTime();
+		Map<Long, long[]> categoriesByProduct = loadProductCategories();
+		Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM tb_order", Long.class);
+		long last = (maxId == null) ? 0 : maxId;
+
+		List<Callable<Partial>> tasks = new ArrayList<>();
+		for (long from = 1; from <= last; from += chunkSize) {
+			long first = from;
+			long to = Math.min(last, from + chunkSize - 1);
+			tasks.add(() -> aggregate(first, to, categoriesByProduct));
+		}
+
+		SalesAggregates fresh = new SalesAggregates();
+		Map<Long, OrderFacts> facts = new HashMap<>();
+		int poolSize = (threads > 0) ? threads : Runtime.getRuntime().availableProcessors();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(poolSize, tasks.size())));
+		try {
+			for (Future<Partial> future : executor.invokeAll(tasks)) {
+				Partial partial = future.get();
+				fresh.merge(partial.aggregates());
+				facts.putAll(partial.facts());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Analytics rebuild interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Analytics rebuild failed", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+
+		lock.writeLock().lock();
+		try {
+			aggregates = fresh;
+			applied = facts;
+			productCategories = categoriesByProduct;
+		} finally {
+			lock.writeLock().unlock();
+		}
+		built = true;
+		log.info("Aggregated {} orders ({} products, {} categories, {} days) in {} ms with {} tasks",
+				facts.size(), fresh.products.size(), fresh.categories.size(), fresh.days.size(),
+				(System.nanoTime() - start) / 1_000_000, tasks.size());
+	}
+
+	/* os agregados e os OrderFacts de uma faixa de ids */
+	private record Partial(SalesAggregates aggregates, Map<Long, OrderFacts> facts) {
+	}
+
+	private Partial aggregate(long from, long to, Map<Long, long[]> categoriesByProduct) {
+		Map<Long, OrderFacts> facts = new HashMap<>();
+		orderItemReader.read("WHERE o.id BETWEEN " + from + " AND " + to,
+				lines -> facts.put(lines.orderId(), facts(lines)));
+		SalesAggregates partial = new SalesAggregates();
+		for (OrderFacts order : facts.values()) {
+			partial.apply(order, 1, productId -> categoriesByProduct.getOrDefault(productId, NO_CATEGORIES));
+		}
+		return new Partial(partial, facts);
+	}
+
+	private Map<Long, long[]> loadProductCategories() {
+		Map<Long, List<Long>> lists = new HashMap<>();
+		jdbcTemplate.query("SELECT product_id, category_id FROM tb_product_category ORDER BY product_id, category_id", rs -> {
+			lists.computeIfAbsent(rs.getLong(1), id -> new ArrayList<>()).add(rs.getLong(2));
+		});
+		Map<Long, long[]> categoriesByProduct = new HashMap<>();
+		lists.forEach((productId, ids) -> categoriesByProduct.put(productId,
+				ids.stream().mapToLong(Long::longValue).toArray()));
+		return categoriesByProduct;
+	}
+
+	/* contribuição de um Order lido pelo OrderItemReader */
+	private static OrderFacts facts(OrderLines lines) {
+		long[] cents = new long[lines.items()];
+		for (int i = 0; i < cents.length; i++) {
+			cents[i] = lines.prices()[i] * lines.quantities()[i];
+		}
+		return new OrderFacts(Math.floorDiv(lines.moment(), 86_400L), lines.status(), lines.version(),
+				lines.productIds(), cents, lines.quantities());
+	}
+
+	/* true se o Order já foi agregado */
+	public boolean contains(Long orderId) {
+		lock.readLock().lock();
+		try {
+			return applied.containsKey(orderId);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/*
+	 * Troca a contribuição dos Orders pela dos lidos em orders; um Order
+	 * que não está em orders foi apagado e só tem a contribuição antiga
+	 * subtraída. Uma leitura de uma versão mais antiga que a aplicada
+	 * (um changeStatus chegou antes) é ignorada.
+	 * */
+	public synchronized void apply(Collection<Long> orderIds, Map<Long, OrderLines> orders) {
+		lock.writeLock().lock();
+		try {
+			for (Long id : orderIds) {
+				OrderLines lines = orders.get(id);
+				OrderFacts previous = applied.get(id);
+				if (previous != null && lines != null && lines.version() < previous.version()) {
+					continue;
+				}
+				applied.remove(id);
+				if (previous != null) {
+					aggregates.apply(previous, -1, this::categoriesOf);
+				}
+				if (lines != null) {
+					OrderFacts current = facts(lines);
+					aggregates.apply(current, 1, this::categoriesOf);
+					applied.put(id, current);
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/*
+	 * Muda o status de um Order já agregado sem reler o banco de dados,
+	 * usado depois do commit do UPDATE de status do
+	 * OrderTransitionService. Um Order que ainda não foi agregado é
+	 * ignorado: o OrderTransitionService pede a releitura dele ao
+	 * OrderAnalyticsRefresher, que atualiza também o OrderItemSnapshot.
+	 * 
+	 * version é a versão do Order depois do UPDATE: as mudanças chegam
+	 * depois do commit, cada uma na thread da sua transação, e podem
+	 * chegar fora de ordem; uma mudança que não é mais nova que a versão
+	 * aplicada é ignorada.
+	 * */
+	public synchronized void changeStatus(Long orderId, OrderStatus status, long version) {
+		lock.writeLock().lock();
+		try {
+			OrderFacts previous = applied.get(orderId);
+			if (previous != null && previous.version() < version) {
+				OrderFacts current = previous.withStatus(status.ordinal(), version);
+				aggregates.apply(previous, -1, this::categoriesOf);
+				aggregates.apply(current, 1, this::categoriesOf);
+				applied.put(orderId, current);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/*
+	 * Novas categories dos products (null para um product apagado, que
+	 * continua com as suas vendas nas categories que tinha).
+	 * */
+	public synchronized void updateProductCategories(Map<Long, long[]> products) {
+		lock.writeLock().lock();
+		try {
+			products.forEach((productId, categoryIds) -> {
+				if (categoryIds != null) {
+					long[] previous = categoriesOf(productId);
+					long[] current = categoryIds.clone();
+					Arrays.sort(current);
+					if (!Arrays.equals(previous, current)) {
+						aggregates.moveProduct(productId, previous, current);
+						productCategories.put(productId, current);
+					}
+				}
+			});
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private long[] categoriesOf(long productId) {
+		return productCategories.getOrDefault(productId, NO_CATEGORIES);
+	}
+}
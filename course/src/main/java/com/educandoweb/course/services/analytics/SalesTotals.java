@@ -0,0 +1,34 @@
+package com.educandoweb.course.services.analytics;
+
+import com.educandoweb.course.entities.enums.OrderStatus;
+
+/*
+ * Receita (centavos), unidades e items (linhas de Order) acumulados,
+ * separados por status do Order (índice = ordinal de OrderStatus).
+ * */
+final class SalesTotals {
+
+	static final int STATUSES = OrderStatus.values().length;
+
+	final long[] cents = new long[STATUSES];
+	final long[] units = new long[STATUSES];
+	final long[] items = new long[STATUSES];
+
+	void add(int status, long cents, long units, long items) {
+		this.cents[status] += cents;
+		this.units[status] += units;
+		this.items[status] += items;
+	}
+
+	void add(SalesTotals other, int sign) {
+		for (int s = 0; s < STATUSES; s++) {
+			add(s, sign * other.cents[s], sign * other.units[s], sign * other.items[s]);
+		}
+	}
+
+	SalesTotals copy() {
+		SalesTotals copy = new SalesTotals();
+		copy.add(this, 1);
+		return copy;
+	}
+}
@@ -0,0 +1,10 @@
+package com.educandoweb.course.services.cache;
+
+import java.io.Serializable;
+
+/* 
+ * Resposta já serializada em JSON, guardada no ResponseCache junto com
+ * o ETag que a identifica.
+ * */
+public record CachedResponse(byte[] body, String etag) implements Serializable {
+}
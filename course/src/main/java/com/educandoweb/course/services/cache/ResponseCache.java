@@ -0,0 +1,232 @@
+package com.educandoweb.course.services.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.educandoweb.course.config.CacheConfig;
+import com.educandoweb.course.services.transaction.AfterCommit;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/*
+ * Cache das respostas dos endpoints GET, guardadas já serializadas em
+ * JSON, assim uma resposta repetida não consulta o banco de dados nem
+ * serializa o objeto de novo.
+ *
+ * As listas (products, categories) são invalidadas por recurso: cada
+ * recurso tem uma geração, que faz parte da chave e do ETag das suas
+ * páginas, e invalidar o recurso é só avançar a geração. As páginas
+ * antigas deixam de ser encontradas e são descartadas pelo limite de
+ * tamanho ou pelo TTL da região (CacheConfig.RESPONSE_REGION).
+ *
+ * Os Orders (GET /orders/{id}) são guardados um a um, com a chave
+ * orders:<id>, e uma escrita só remove os Orders que ela altera: o
+ * próprio Order, ou os Orders do client, do product ou da category
+ * alterados, que aparecem dentro do Order serializado. Escrever um
+ * Order não invalida os outros.
+ *
+ * A geração (listas) ou o carimbo do Order (STAMPS) é lido antes de a
+ * resposta ser carregada do banco, então uma leitura que corre junto
+ * com uma escrita nunca é servida depois da invalidação.
+ * */
+@Component
+public class ResponseCache {
+
+	public static final String ORDERS = "orders";
+	public static final String PRODUCTS = "products";
+	public static final String CATEGORIES = "categories";
+
+	private static final int CHUNK = 1000;
+
+	/* carimbos dos Orders, um contador por faixa de chaves (hash da chave) */
+	private static final int STAMPS = 1024;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private final Cache<String, CachedResponse> cache;
+
+	/* 
+	 * As gerações começam no instante da inicialização, para que um
+	 * ETag emitido antes de a aplicação reiniciar não seja confundido
+	 * com um novo.
+	 * */
+	private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+	private final long epoch = System.currentTimeMillis();
+
+	private final AtomicLongArray stamps = new AtomicLongArray(STAMPS);
+
+	public ResponseCache(CacheManager jcacheManager) {
+		this.cache = jcacheManager.getCache(CacheConfig.RESPONSE_REGION, String.class, CachedResponse.class);
+	}
+
+	/*
+	 * Devolve a página guardada para a chave ou, se ela não existir,
+	 * carrega a página com o loader, serializa e guarda.
+	 * */
+	public <T> CachedResponse get(String resource, String key, Supplier<T> loader) {
+		long generation = generation(resource).get();
+		String cacheKey = resource + ":" + generation + ":" + key;
+		CachedResponse cached = cache.get(cacheKey);
+		if (cached != null) {
+			return cached;
+		}
+
+		T value = loader.get();
+		String etag = "\"" + resource + "-" + key + "-" + Long.toString(generation, 36) + "\"";
+		CachedResponse response = new CachedResponse(serialize(value), etag);
+		cache.put(cacheKey, response);
+		return response;
+	}
+
+	/*
+	 * Devolve a resposta guardada de uma entidade ou, se ela não existir,
+	 * carrega, serializa e guarda.
+	 *
+	 * O ETag é formado pelo id, pela coluna de versão (versionOf) e por
+	 * um CRC do corpo, que muda também quando muda uma entidade
+	 * serializada dentro dela (o client de um Order) sem mudar a versão.
+	 *
+	 * Se a entidade foi invalidada enquanto era carregada (o carimbo
+	 * mudou), a resposta carregada pode ser a antiga e sai do cache.
+	 * */
+	public <T> CachedResponse get(String resource, Long id, Supplier<T> loader, Function<T, Object> versionOf) {
+		String cacheKey = resource + ":" + id;
+		int stamp = stamp(cacheKey);
+		long before = stamps.get(stamp);
+		CachedResponse cached = cache.get(cacheKey);
+		if (cached != null) {
+			return cached;
+		}
+
+		T value = loader.get();
+		byte[] body = serialize(value);
+		CRC32C crc = new CRC32C();
+		crc.update(body);
+		Object version = versionOf.apply(value);
+		String etag = "\"" + resource + "-" + id + ((version != null) ? "-v" + version : "") + "-"
+				+ Long.toString(crc.getValue(), 36) + "\"";
+		CachedResponse response = new CachedResponse(body, etag);
+		cache.put(cacheKey, response);
+		if (stamps.get(stamp) != before) {
+			cache.remove(cacheKey);
+		}
+		return response;
+	}
+
+	/*
+	 * Invalida as listas dos recursos quando a transação atual for
+	 * confirmada (commit), antes disso as outras transações ainda leem
+	 * os dados antigos. Fora de uma transação a invalidação é imediata.
+	 * */
+	public void invalidateAfterCommit(String... resources) {
+		afterCommit(pending -> pending.resources.addAll(Arrays.asList(resources)));
+	}
+
+	/* invalida o Order depois do commit */
+	public void invalidateOrderAfterCommit(Long orderId) {
+		afterCommit(pending -> pending.orders.add(orderId));
+	}
+
+	/* invalida os Orders do client (User) depois do commit */
+	public void invalidateClientOrdersAfterCommit(Long clientId) {
+		afterCommit(pending -> pending.clients.add(clientId));
+	}
+
+	/* invalida os Orders com items do Product depois do commit */
+	public void invalidateProductOrdersAfterCommit(Long productId) {
+		afterCommit(pending -> pending.products.add(productId));
+	}
+
+	/* invalida os Orders com items de Products da Category depois do commit */
+	public void invalidateCategoryOrdersAfterCommit(Long categoryId) {
+		afterCommit(pending -> pending.categories.add(categoryId));
+	}
+
+	/* as invalidações de uma transação são acumuladas num único Pending */
+	private void afterCommit(Consumer<Pending> change) {
+		AfterCommit.collect(this, Pending::new, change, this::invalidate);
+	}
+
+	public void invalidate(Collection<String> resources) {
+		for (String resource : resources) {
+			generation(resource).incrementAndGet();
+		}
+	}
+
+	private void invalidate(Pending pending) {
+		invalidate(pending.resources);
+		Set<Long> orderIds = new HashSet<>(pending.orders);
+		findOrderIds("SELECT id FROM tb_order WHERE client_id IN ", pending.clients, orderIds);
+		findOrderIds("SELECT order_id FROM tb_order_item WHERE product_id IN ", pending.products, orderIds);
+		findOrderIds("SELECT i.order_id FROM tb_order_item i JOIN tb_product_category pc "
+				+ "ON pc.product_id = i.product_id WHERE pc.category_id IN ", pending.categories, orderIds);
+		for (Long orderId : orderIds) {
+			evict(ORDERS + ":" + orderId);
+		}
+	}
+
+	/* o carimbo muda antes da remoção, veja get */
+	private void evict(String cacheKey) {
+		stamps.incrementAndGet(stamp(cacheKey));
+		cache.remove(cacheKey);
+	}
+
+	private void findOrderIds(String sql, Set<Long> ids, Set<Long> orderIds) {
+		List<Long> list = new ArrayList<>(ids);
+		for (int from = 0; from < list.size(); from += CHUNK) {
+			List<Long> chunk = list.subList(from, Math.min(list.size(), from + CHUNK));
+			String in = String.join(",", chunk.stream().map(String::valueOf).toList());
+			jdbcTemplate.query(sql + "(" + in + ")", rs -> {
+				orderIds.add(rs.getLong(1));
+			});
+		}
+	}
+
+	private static int stamp(String cacheKey) {
+		return (cacheKey.hashCode() & 0x7fffffff) % STAMPS;
+	}
+
+	private AtomicLong generation(String resource) {
+		return generations.computeIfAbsent(resource, r -> new AtomicLong(epoch));
+	}
+
+	private byte[] serialize(Object value) {
+		try {
+			return objectMapper.writeValueAsBytes(value);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/* invalidações de uma transação */
+	private static final class Pending {
+		private final Set<String> resources = new HashSet<>();
+		private final Set<Long> orders = new HashSet<>();
+		private final Set<Long> clients = new HashSet<>();
+		private final Set<Long> products = new HashSet<>();
+		private final Set<Long> categories = new HashSet<>();
+	}
+}
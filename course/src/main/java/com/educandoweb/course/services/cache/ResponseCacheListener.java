@@ -0,0 +1,60 @@
+package com.educandoweb.course.services.cache;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.educandoweb.course.entities.Category;
+import com.educandoweb.course.entities.Order;
+import com.educandoweb.course.entities.OrderItem;
+import com.educandoweb.course.entities.Payment;
+import com.educandoweb.course.entities.Product;
+import com.educandoweb.course.entities.User;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/*
+ * Entity listener que invalida o ResponseCache a cada escrita de uma
+ * entidade, por qualquer caminho que passe pelo EntityManager (services,
+ * inserção em lote, TestConfig).
+ *
+ * Uma entidade invalida as listas em que ela aparece e só os Orders em
+ * que ela é serializada: o próprio Order (ou o dono do OrderItem e do
+ * Payment), os Orders do client (User) e os Orders com o product ou com
+ * products da category.
+ *
+ * Escritas que não passam pelo EntityManager (UPDATE em massa, JDBC)
+ * precisam chamar o ResponseCache diretamente.
+ *
+ * Como o OrderAnalyticsListener, o ResponseCache só é buscado na
+ * primeira escrita, ele usa o JdbcTemplate, criado depois do
+ * EntityManagerFactory.
+ * */
+public class ResponseCacheListener {
+
+	@Autowired
+	private ObjectProvider<ResponseCache> responseCacheProvider;
+
+	@PostPersist
+	@PostUpdate
+	@PostRemove
+	public void changed(Object entity) {
+		ResponseCache responseCache = responseCacheProvider.getObject();
+		if (entity instanceof Category category) {
+			responseCache.invalidateAfterCommit(ResponseCache.CATEGORIES, ResponseCache.PRODUCTS);
+			responseCache.invalidateCategoryOrdersAfterCommit(category.getId());
+		} else if (entity instanceof Product product) {
+			responseCache.invalidateAfterCommit(ResponseCache.PRODUCTS);
+			responseCache.invalidateProductOrdersAfterCommit(product.getId());
+		} else if (entity instanceof User user) {
+			responseCache.invalidateClientOrdersAfterCommit(user.getId());
+		} else if (entity instanceof Order order) {
+			responseCache.invalidateOrderAfterCommit(order.getId());
+		} else if (entity instanceof OrderItem item) {
+			responseCache.invalidateOrderAfterCommit(item.getOrder().getId());
+		} else if (entity instanceof Payment payment) {
+			responseCache.invalidateOrderAfterCommit(payment.getOrder().getId());
+		}
+	}
+}
@@ -0,0 +1,13 @@
+package com.educandoweb.course.services.events;
+
+/* 
+ * Tipo de um evento de alteração. STATUS_CHANGED é a mudança de status
+ * de um Order feita sem carregar a entidade (OrderTransitionService),
+ * o payload traz só o novo status.
+ * */
+public enum ChangeType {
+	CREATED,
+	UPDATED,
+	DELETED,
+	STATUS_CHANGED;
+}
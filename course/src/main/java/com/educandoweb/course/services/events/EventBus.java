@@ -0,0 +1,158 @@
+package com.educandoweb.course.services.events;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.educandoweb.course.dto.ChangeEvent;
+
+/*
+ * Barramento de eventos em memória: o OutboxRelay publica aqui os
+ * eventos depois de gravá-los no EventLog.
+ *
+ * - subscribe: o consumidor recebe cada evento publicado, na thread do
+ *   relay, então ele precisa ser rápido e não pode bloquear.
+ * - next: os eventos depois de um cursor (sequence), para GET /events.
+ *   Os últimos capacity eventos ficam em memória (um buffer circular),
+ *   cursores mais antigos são lidos do EventLog. Sem eventos novos o
+ *   CompletableFuture só é completado na próxima publicação.
+ * */
+@Component
+public class EventBus {
+
+	private static final Logger log = LoggerFactory.getLogger(EventBus.class);
+
+	/* um consumidor de next esperando eventos depois de after */
+	private record Waiter(long after, int limit, CompletableFuture<List<ChangeEvent>> future) {
+	}
+
+	@Autowired
+	private EventLog eventLog;
+
+	private final List<Consumer<ChangeEvent>> subscribers = new CopyOnWriteArrayList<>();
+	private final List<Waiter> waiters = new ArrayList<>();
+
+	/* buffer circular com os últimos eventos, em ordem de sequence */
+	private final ChangeEvent[] recent;
+	private int head;
+	private int size;
+
+	public EventBus(@Value("${course.events.buffer:10000}") int capacity) {
+		this.recent = new ChangeEvent[Math.max(1, capacity)];
+	}
+
+	/* devolve a ação que cancela a inscrição */
+	public Runnable subscribe(Consumer<ChangeEvent> subscriber) {
+		subscribers.add(subscriber);
+		return () -> subscribers.remove(subscriber);
+	}
+
+	public void publish(List<ChangeEvent> events) {
+		if (events.isEmpty()) {
+			return;
+		}
+		List<Waiter> ready = new ArrayList<>();
+		synchronized (this) {
+			for (ChangeEvent event : events) {
+				recent[(head + size) % recent.length] = event;
+				if (size < recent.length) {
+					size++;
+				} else {
+					head = (head + 1) % recent.length;
+				}
+			}
+			for (Iterator<Waiter> it = waiters.iterator(); it.hasNext();) {
+				Waiter waiter = it.next();
+				if (waiter.after() < last()) {
+					it.remove();
+					ready.add(waiter);
+				}
+			}
+		}
+		for (Waiter waiter : ready) {
+			waiter.future().complete(available(waiter.after(), waiter.limit()));
+		}
+		for (ChangeEvent event : events) {
+			for (Consumer<ChangeEvent> subscriber : subscribers) {
+				try {
+					subscriber.accept(event);
+				} catch (RuntimeException e) {
+					log.warn("Event subscriber failed on event {}", event.sequence(), e);
+				}
+			}
+		}
+	}
+
+	/*
+	 * Até limit eventos com sequence maior que after. O future já vem
+	 * completado quando há eventos, senão espera a próxima publicação;
+	 * quem desistir de esperar deve cancelá-lo.
+	 * */
+	public CompletableFuture<List<ChangeEvent>> next(long after, int limit) {
+		while (true) {
+			List<ChangeEvent> events = available(after, limit);
+			if (!events.isEmpty()) {
+				return CompletableFuture.completedFuture(events);
+			}
+			synchronized (this) {
+				/* sem publicação entre a leitura e o lock, espera a próxima */
+				if (size == 0 || after >= last()) {
+					CompletableFuture<List<ChangeEvent>> future = new CompletableFuture<>();
+					Waiter waiter = new Waiter(after, limit, future);
+					waiters.add(waiter);
+					future.whenComplete((result, error) -> removeWaiter(waiter));
+					return future;
+				}
+			}
+		}
+	}
+
+	private synchronized void removeWaiter(Waiter waiter) {
+		waiters.remove(waiter);
+	}
+
+	/* os eventos depois de after que já existem, do buffer ou do EventLog */
+	private List<ChangeEvent> available(long after, int limit) {
+		List<ChangeEvent> events;
+		synchronized (this) {
+			events = (size == 0) ? null : fromBuffer(after, limit);
+		}
+		return (events != null) ? events : eventLog.read(after, limit);
+	}
+
+	/* os eventos do buffer depois de after, ou null se after é mais antigo que o buffer */
+	private List<ChangeEvent> fromBuffer(long after, int limit) {
+		if (after + 1 < recent[head].sequence()) {
+			return null;
+		}
+		/* as sequences do buffer são crescentes, mas podem ter buracos (veja OutboxRelay) */
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (recent[(head + mid) % recent.length].sequence() <= after) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		List<ChangeEvent> events = new ArrayList<>(Math.min(limit, size - low));
+		for (int i = low; i < size && events.size() < limit; i++) {
+			events.add(recent[(head + i) % recent.length]);
+		}
+		return events;
+	}
+
+	private long last() {
+		return recent[(head + size - 1) % recent.length].sequence();
+	}
+}
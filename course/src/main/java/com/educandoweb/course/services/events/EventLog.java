@@ -0,0 +1,312 @@
+package com.educandoweb.course.services.events;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import com.educandoweb.course.dto.ChangeEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/*
+ * Log local dos eventos entregues pelo OutboxRelay: um arquivo NDJSON
+ * (um ChangeEvent por linha), só com escritas no fim. É o log que
+ * numera os eventos (sequence), continuando do último evento do arquivo,
+ * assim os cursores dos consumidores continuam valendo depois de
+ * reiniciar a aplicação.
+ *
+ * Um único escritor: cada instância precisa do seu próprio arquivo, e
+ * o EventLog segura um FileLock exclusivo (no arquivo .lock ao lado do
+ * log) enquanto está aberto. Uma segunda instância com o mesmo arquivo
+ * falha ao abrir em vez de gravar sequences repetidas no meio das da
+ * primeira.
+ *
+ * Ao abrir, as sequences do arquivo precisam ser crescentes (a busca
+ * binária do índice depende disso): a partir da primeira linha fora de
+ * ordem ou incompleta (uma escrita interrompida) o arquivo é cortado. A
+ * numeração continua da maior sequence já vista, cortada ou não, então
+ * nenhuma sequence entregue antes é repetida.
+ *
+ * Quando o arquivo passa de maxSize ele vira o segmento anterior
+ * (arquivo .1, que substitui o anterior a ele) e um arquivo novo é
+ * começado: o log ocupa no máximo umas duas vezes maxSize, e quem está
+ * atrás do segmento anterior recebe a partir do evento mais antigo
+ * guardado (as sequences já podem ter buracos, veja OutboxRelay).
+ *
+ * Para ler a partir de uma sequence sem percorrer o arquivo todo, a
+ * posição em bytes de um a cada INDEX_INTERVAL eventos fica em memória
+ * (um índice esparso por segmento, montado ao abrir o arquivo).
+ *
+ * O arquivo é aberto no primeiro uso. As escritas e as leituras são
+ * feitas uma por vez (synchronized): as leituras só acontecem quando um
+ * consumidor está atrás dos eventos que o EventBus guarda em memória.
+ * */
+@Component
+public class EventLog implements DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(EventLog.class);
+
+	private static final int INDEX_INTERVAL = 1024;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Value("${course.events.log-file:data/course-events.ndjson}")
+	private Path file;
+
+	@Value("${course.events.log-max-size:64MB}")
+	private DataSize maxSize;
+
+	private FileChannel lockChannel;
+	private FileLock lock;
+	private FileChannel channel;
+	private long lastSequence;
+
+	/* segmento anterior (null se não há) e o atual, onde as escritas são feitas */
+	private Segment previous;
+	private Segment current;
+
+	public synchronized long lastSequence() {
+		open();
+		return lastSequence;
+	}
+
+	/* grava os eventos no fim do arquivo e devolve os eventos já numerados */
+	public synchronized List<ChangeEvent> append(List<ChangeEvent> events) {
+		open();
+		try {
+			long offset = current.length;
+			StringBuilder lines = new StringBuilder();
+			List<ChangeEvent> numbered = new ArrayList<>(events.size());
+			for (ChangeEvent event : events) {
+				ChangeEvent next = event.withSequence(lastSequence + 1);
+				String line = objectMapper.writeValueAsString(next) + "\n";
+				current.add(next.sequence(), offset);
+				offset += line.getBytes(StandardCharsets.UTF_8).length;
+				lines.append(line);
+				lastSequence = next.sequence();
+				numbered.add(next);
+			}
+			ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(false);
+			current.length = offset;
+			if (current.length >= maxSize.toBytes()) {
+				rotate();
+			}
+			return numbered;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not append to " + file, e);
+		}
+	}
+
+	/* até limit eventos com sequence maior que after, lidos do arquivo */
+	public synchronized List<ChangeEvent> read(long after, int limit) {
+		open();
+		List<ChangeEvent> events = new ArrayList<>();
+		for (Segment segment : new Segment[] { previous, current }) {
+			if (segment != null && segment.count > 0 && after < segment.last && events.size() < limit) {
+				segment.read(after, limit, events);
+			}
+		}
+		return events;
+	}
+
+	/* abre o arquivo, segura o lock e monta o índice a partir das linhas existentes */
+	private void open() {
+		if (channel != null) {
+			return;
+		}
+		try {
+			Path parent = file.toAbsolutePath().getParent();
+			if (parent != null) {
+				Files.createDirectories(parent);
+			}
+			lock();
+			lastSequence = 0;
+			Path previousFile = previousFile();
+			previous = Files.exists(previousFile) ? load(previousFile) : null;
+			current = load(file);
+			channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+			/* corta o que ficou depois da última linha válida */
+			channel.truncate(current.length);
+			channel.position(current.length);
+			log.info("Opened event log {} ({} events, last sequence {})", file,
+					current.count + ((previous == null) ? 0 : previous.count), lastSequence);
+		} catch (IOException e) {
+			release();
+			throw new UncheckedIOException("Could not open " + file, e);
+		}
+	}
+
+	private void lock() throws IOException {
+		Path lockFile = file.resolveSibling(file.getFileName() + ".lock");
+		lockChannel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		try {
+			lock = lockChannel.tryLock();
+		} catch (OverlappingFileLockException e) {
+			lock = null;
+		}
+		if (lock == null) {
+			release();
+			throw new IllegalStateException("Event log " + file + " is already open by another instance, "
+					+ "give each instance its own course.events.log-file");
+		}
+	}
+
+	/*
+	 * Lê as linhas do arquivo até a primeira fora de ordem ou incompleta;
+	 * length do segmento é o fim da última linha válida.
+	 * */
+	private Segment load(Path path) throws IOException {
+		Segment segment = new Segment(path);
+		if (!Files.exists(path)) {
+			return segment;
+		}
+		long dropped = 0;
+		try (BufferedReader lines = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = lines.readLine()) != null) {
+				long sequence = sequenceOf(line);
+				if (dropped > 0 || sequence <= lastSequence) {
+					dropped++;
+					lastSequence = Math.max(lastSequence, sequence);
+					continue;
+				}
+				segment.add(sequence, segment.length);
+				segment.length += line.getBytes(StandardCharsets.UTF_8).length + 1;
+				lastSequence = sequence;
+			}
+		}
+		if (dropped > 0) {
+			log.warn("Dropped {} events of {} after the first event out of sequence or incomplete", dropped, path);
+		}
+		return segment;
+	}
+
+	/* sequence da linha, 0 para uma linha que não é um evento completo */
+	private long sequenceOf(String line) {
+		try {
+			JsonNode sequence = objectMapper.readTree(line).get("sequence");
+			return (sequence == null) ? 0 : sequence.asLong();
+		} catch (IOException e) {
+			return 0;
+		}
+	}
+
+	/* o arquivo atual vira o segmento anterior e um arquivo novo é começado */
+	private void rotate() throws IOException {
+		channel.close();
+		Files.move(file, previousFile(), StandardCopyOption.REPLACE_EXISTING);
+		previous = current;
+		previous.path = previousFile();
+		current = new Segment(file);
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		log.info("Rotated event log {} at sequence {}", file, lastSequence);
+	}
+
+	private Path previousFile() {
+		return file.resolveSibling(file.getFileName() + ".1");
+	}
+
+	/* um arquivo do log, com o seu índice esparso */
+	private final class Segment {
+
+		private Path path;
+		private long length;
+		private long count;
+		private long last;
+
+		/* índice esparso: sequence e posição em bytes de um a cada INDEX_INTERVAL eventos */
+		private long[] indexSequences = new long[64];
+		private long[] indexOffsets = new long[64];
+		private int indexSize;
+
+		Segment(Path path) {
+			this.path = path;
+		}
+
+		void add(long sequence, long offset) {
+			if (count % INDEX_INTERVAL == 0) {
+				if (indexSize == indexSequences.length) {
+					indexSequences = Arrays.copyOf(indexSequences, indexSize * 2);
+					indexOffsets = Arrays.copyOf(indexOffsets, indexSize * 2);
+				}
+				indexSequences[indexSize] = sequence;
+				indexOffsets[indexSize] = offset;
+				indexSize++;
+			}
+			last = sequence;
+			count++;
+		}
+
+		void read(long after, int limit, List<ChangeEvent> events) {
+			/* último ponto do índice que não passa de after + 1 */
+			int entry = Arrays.binarySearch(indexSequences, 0, indexSize, after + 1);
+			entry = (entry >= 0) ? entry : Math.max(0, -entry - 2);
+			try (FileChannel reader = FileChannel.open(path, StandardOpenOption.READ)) {
+				reader.position(indexOffsets[entry]);
+				BufferedReader lines = new BufferedReader(Channels.newReader(reader, StandardCharsets.UTF_8));
+				long position = indexOffsets[entry];
+				String line;
+				while (events.size() < limit && position < length && (line = lines.readLine()) != null) {
+					position += line.getBytes(StandardCharsets.UTF_8).length + 1;
+					ChangeEvent event = objectMapper.readValue(line, ChangeEvent.class);
+					if (event.sequence() > after) {
+						events.add(event);
+					}
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not read " + path, e);
+			}
+		}
+	}
+
+	private void release() {
+		try {
+			if (lock != null) {
+				lock.release();
+			}
+			if (lockChannel != null) {
+				lockChannel.close();
+			}
+		} catch (IOException e) {
+			log.warn("Could not release the lock of event log {}", file, e);
+		}
+		lock = null;
+		lockChannel = null;
+	}
+
+	@Override
+	public synchronized void destroy() throws IOException {
+		if (channel != null) {
+			channel.close();
+			channel = null;
+		}
+		release();
+	}
+}
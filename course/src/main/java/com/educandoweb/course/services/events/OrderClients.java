@@ -0,0 +1,121 @@
+package com.educandoweb.course.services.events;
+
+/*
+ * Client e status atual de cada Order, para o OrderStatusHub filtrar os
+ * eventos de status por client sem consultar o banco de dados (o evento
+ * STATUS_CHANGED só traz o novo status).
+ *
+ * Endereçamento aberto sem um objeto por Order: cada posição ocupa 2
+ * longs seguidos, o id do Order e o client e o status juntos
+ * ((client + 1) * 8 + ordinal do status, 0 para um Order sem client).
+ * Uma posição vazia tem id 0. Com 100 mil Orders a tabela ocupa uns
+ * 4 MB. Não é thread-safe, o OrderStatusHub sincroniza o acesso.
+ * */
+final class OrderClients {
+
+	private static final int STRIDE = 2;
+
+	/* devolvido por get para um Order desconhecido */
+	static final long UNKNOWN = -1;
+
+	private long[] table = new long[1024 * STRIDE];
+	private int count;
+
+	int size() {
+		return count;
+	}
+
+	static long pack(Long clientId, int status) {
+		return ((clientId == null) ? 0 : (clientId + 1)) * 8 + status;
+	}
+
+	/* client do valor de pack, null se o Order não tem client */
+	static Long clientId(long packed) {
+		long client = packed / 8;
+		return (client == 0) ? null : client - 1;
+	}
+
+	static int status(long packed) {
+		return (int) (packed % 8);
+	}
+
+	void clear() {
+		table = new long[1024 * STRIDE];
+		count = 0;
+	}
+
+	long get(long orderId) {
+		int position = position(table, orderId);
+		return (table[position] == 0) ? UNKNOWN : table[position + 1];
+	}
+
+	void put(long orderId, long packed) {
+		int position = position(table, orderId);
+		if (table[position] == 0) {
+			if ((count + 1) * 2 > capacity()) {
+				grow();
+				position = position(table, orderId);
+			}
+			table[position] = orderId;
+			count++;
+		}
+		table[position + 1] = packed;
+	}
+
+	/* apaga com deslocamento para trás, sem marcas de posição apagada */
+	void remove(long orderId) {
+		int position = position(table, orderId);
+		if (table[position] == 0) {
+			return;
+		}
+		int mask = capacity() - 1;
+		int hole = position / STRIDE;
+		int slot = hole;
+		while (true) {
+			slot = (slot + 1) & mask;
+			long key = table[slot * STRIDE];
+			if (key == 0) {
+				break;
+			}
+			int home = home(key, mask);
+			/* a chave pode ir para o buraco se o buraco está entre a posição ideal dela e a atual */
+			if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+				table[hole * STRIDE] = key;
+				table[hole * STRIDE + 1] = table[slot * STRIDE + 1];
+				hole = slot;
+			}
+		}
+		table[hole * STRIDE] = 0;
+		table[hole * STRIDE + 1] = 0;
+		count--;
+	}
+
+	private int capacity() {
+		return table.length / STRIDE;
+	}
+
+	private static int home(long key, int mask) {
+		return (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+	}
+
+	private static int position(long[] table, long key) {
+		int mask = table.length / STRIDE - 1;
+		int slot = home(key, mask);
+		while (table[slot * STRIDE] != 0 && table[slot * STRIDE] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot * STRIDE;
+	}
+
+	private void grow() {
+		long[] old = table;
+		table = new long[old.length * 2];
+		for (int position = 0; position < old.length; position += STRIDE) {
+			if (old[position] != 0) {
+				int target = position(table, old[position]);
+				table[target] = old[position];
+				table[target + 1] = old[position + 1];
+			}
+		}
+	}
+}
@@ -0,0 +1,486 @@
+package com.educandoweb.course.services.events;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.educandoweb.course.dto.ChangeEvent;
+import com.educandoweb.course.dto.OrderStatusEvent;
+import com.educandoweb.course.entities.enums.OrderStatus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/*
+ * Distribui as mudanças de status dos Orders para os inscritos em GET
+ * /orders/stream (Server-Sent Events), sem consultas ao banco de dados
+ * por inscrito ou por evento.
+ *
+ * Os eventos vêm do EventBus (outbox), inclusive os STATUS_CHANGED do
+ * caminho rápido do OrderTransitionService. Como o STATUS_CHANGED só
+ * traz o novo status, o hub guarda o client e o status atual de cada
+ * Order (OrderClients), lidos uma vez na inicialização e mantidos pelos
+ * próprios eventos; um evento só é distribuído quando o status muda.
+ *
+ * Cada evento é serializado uma única vez e entregue aos inscritos do
+ * client do Order e aos inscritos sem filtro de client, cada um com o
+ * seu filtro de status. A distribuição só coloca a mensagem no buffer
+ * de cada inscrito, limitado a bufferSize mensagens; o envio é feito
+ * por um pequeno grupo de threads (senders), então um inscrito lento
+ * não atrasa o relay nem os outros inscritos. O inscrito cujo buffer
+ * enche é desligado (slow consumer) e pode se inscrever de novo.
+ *
+ * O envio (emitter.send) é uma escrita bloqueante no socket: um cliente
+ * que para de ler prende o sender até o timeout de escrita do servidor.
+ * Um inscrito cujo envio passa de sendTimeout também é desligado, a
+ * thread do sender é interrompida e, enquanto ela continuar presa, o
+ * grupo ganha um sender a mais (até o dobro de senders), assim os
+ * clientes lentos nunca ocupam todos os senders.
+ *
+ * A cada heartbeat um comentário é enviado aos inscritos sem mensagens
+ * pendentes, para manter a conexão aberta e descobrir as que caíram.
+ * */
+@Component
+public class OrderStatusHub implements SmartInitializingSingleton, DisposableBean, MeterBinder {
+
+	private static final Logger log = LoggerFactory.getLogger(OrderStatusHub.class);
+
+	private static final Set<SseEmitter.DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("heartbeat").build();
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EventBus eventBus;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Value("${course.orders.stream.buffer-size:64}")
+	private int bufferSize;
+
+	@Value("${course.orders.stream.senders:4}")
+	private int senderCount;
+
+	@Value("${course.orders.stream.heartbeat:PT15S}")
+	private Duration heartbeat;
+
+	@Value("${course.orders.stream.send-timeout:PT5S}")
+	private Duration sendTimeout;
+
+	private final OrderClients orders = new OrderClients();
+
+	/* inscritos sem filtro de client e inscritos por client */
+	private final Set<Subscriber> everyone = ConcurrentHashMap.newKeySet();
+	private final Map<Long, Set<Subscriber>> byClient = new ConcurrentHashMap<>();
+	private final AtomicInteger subscriberCount = new AtomicInteger();
+	private final AtomicLong evictions = new AtomicLong();
+
+	/* senders presos num envio de um inscrito já desligado */
+	private final AtomicInteger stuckSenders = new AtomicInteger();
+
+	private ThreadPoolExecutor senders;
+	private ScheduledExecutorService heartbeats;
+	private Runnable unsubscribe;
+
+	@Override
+	public void afterSingletonsInstantiated() {
+		AtomicInteger counter = new AtomicInteger();
+		senderCount = Math.max(1, senderCount);
+		senders = new ThreadPoolExecutor(senderCount, senderCount, 0, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(), task -> {
+					Thread thread = new Thread(task, "order-stream-sender-" + counter.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		heartbeats = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "order-stream-heartbeat");
+			thread.setDaemon(true);
+			return thread;
+		});
+		heartbeats.scheduleWithFixedDelay(this::sendHeartbeats, heartbeat.toMillis(), heartbeat.toMillis(),
+				TimeUnit.MILLISECONDS);
+		long check = Math.max(100, sendTimeout.toMillis() / 2);
+		heartbeats.scheduleWithFixedDelay(this::expireSends, check, check, TimeUnit.MILLISECONDS);
+		unsubscribe = eventBus.subscribe(this::onEvent);
+		reload();
+	}
+
+	/* lê o client e o status de todos os Orders, o DataSeeder chama de novo depois do seed */
+	public void reload() {
+		long start = System.nanoTime();
+		synchronized (orders) {
+			orders.clear();
+			jdbcTemplate.query("SELECT id, client_id, order_status FROM tb_order", rs -> {
+				long clientId = rs.getLong(2);
+				Long client = rs.wasNull() ? null : clientId;
+				int code = rs.getInt(3);
+				/* um Order sem status fica desconhecido até o próximo evento dele */
+				if (!rs.wasNull()) {
+					orders.put(rs.getLong(1), OrderClients.pack(client, OrderStatus.valueOf(code).ordinal()));
+				}
+			});
+		}
+		log.info("Loaded client and status of {} orders for the order stream in {} ms", orders.size(),
+				(System.nanoTime() - start) / 1_000_000);
+	}
+
+	/*
+	 * Inscreve um SseEmitter que recebe as mudanças de status dos Orders
+	 * do client (todos, se null) para um dos statuses (todos, se vazio).
+	 * */
+	public SseEmitter subscribe(Long clientId, Collection<OrderStatus> statuses) {
+		int mask = 0;
+		for (OrderStatus status : statuses) {
+			mask |= 1 << status.ordinal();
+		}
+		SseEmitter emitter = new SseEmitter();
+		Subscriber subscriber = new Subscriber(emitter, clientId, (mask == 0) ? -1 : mask, bufferSize);
+		emitter.onCompletion(() -> remove(subscriber));
+		emitter.onTimeout(() -> remove(subscriber));
+		emitter.onError(error -> remove(subscriber));
+		if (clientId == null) {
+			everyone.add(subscriber);
+		} else {
+			byClient.computeIfAbsent(clientId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+		}
+		subscriberCount.incrementAndGet();
+		return emitter;
+	}
+
+	public int getSubscriberCount() {
+		return subscriberCount.get();
+	}
+
+	/* inscritos desligados por não acompanharem os eventos */
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	private void remove(Subscriber subscriber) {
+		boolean removed;
+		if (subscriber.clientId == null) {
+			removed = everyone.remove(subscriber);
+		} else {
+			Set<Subscriber> subscribers = byClient.get(subscriber.clientId);
+			removed = subscribers != null && subscribers.remove(subscriber);
+			if (subscribers != null && subscribers.isEmpty()) {
+				byClient.remove(subscriber.clientId, subscribers);
+			}
+		}
+		if (removed) {
+			subscriberCount.decrementAndGet();
+		}
+	}
+
+	/* chamado pelo EventBus, na thread do relay */
+	private void onEvent(ChangeEvent event) {
+		if (!event.aggregate().equals("Order")) {
+			return;
+		}
+		long orderId = event.aggregateId();
+		ChangeType type = ChangeType.valueOf(event.type());
+		Long clientId;
+		OrderStatus previous;
+		OrderStatus status;
+		synchronized (orders) {
+			long known = orders.get(orderId);
+			if (type == ChangeType.DELETED) {
+				orders.remove(orderId);
+				return;
+			}
+			JsonNode payload = event.payload();
+			JsonNode statusNode = payload.get("status");
+			if (statusNode == null || statusNode.isNull()) {
+				orders.remove(orderId);
+				return;
+			}
+			status = OrderStatus.valueOf(statusNode.asText());
+			previous = (known == OrderClients.UNKNOWN) ? null : OrderStatus.values()[OrderClients.status(known)];
+			if (type == ChangeType.STATUS_CHANGED) {
+				clientId = (known == OrderClients.UNKNOWN) ? null : OrderClients.clientId(known);
+			} else {
+				JsonNode client = payload.get("clientId");
+				clientId = (client == null || client.isNull()) ? null : client.asLong();
+			}
+			orders.put(orderId, OrderClients.pack(clientId, status.ordinal()));
+		}
+		if (status == previous) {
+			return;
+		}
+		publish(event.sequence(), new OrderStatusEvent(orderId, clientId, previous, status, event.moment()));
+	}
+
+	private void publish(long sequence, OrderStatusEvent event) {
+		if (subscriberCount.get() == 0) {
+			return;
+		}
+		Set<SseEmitter.DataWithMediaType> message;
+		try {
+			message = SseEmitter.event().id(String.valueOf(sequence)).name("status")
+					.data(objectMapper.writeValueAsString(event), MediaType.APPLICATION_JSON).build();
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Could not serialize order " + event.orderId() + " status event", e);
+		}
+		int bit = 1 << event.status().ordinal();
+		offer(everyone, bit, message);
+		if (event.clientId() != null) {
+			Set<Subscriber> subscribers = byClient.get(event.clientId());
+			if (subscribers != null) {
+				offer(subscribers, bit, message);
+			}
+		}
+	}
+
+	private void offer(Set<Subscriber> subscribers, int bit, Set<SseEmitter.DataWithMediaType> message) {
+		for (Subscriber subscriber : subscribers) {
+			if ((subscriber.statusMask & bit) != 0) {
+				deliver(subscriber, message, false);
+			}
+		}
+	}
+
+	private void sendHeartbeats() {
+		for (Subscriber subscriber : everyone) {
+			deliver(subscriber, HEARTBEAT, true);
+		}
+		for (Set<Subscriber> subscribers : byClient.values()) {
+			for (Subscriber subscriber : subscribers) {
+				deliver(subscriber, HEARTBEAT, true);
+			}
+		}
+	}
+
+	/* desliga os inscritos com um envio em andamento há mais de sendTimeout */
+	private void expireSends() {
+		long now = System.nanoTime();
+		for (Subscriber subscriber : everyone) {
+			expireSend(subscriber, now);
+		}
+		for (Set<Subscriber> subscribers : byClient.values()) {
+			for (Subscriber subscriber : subscribers) {
+				expireSend(subscriber, now);
+			}
+		}
+	}
+
+	private void expireSend(Subscriber subscriber, long now) {
+		if (subscriber.expire(now, sendTimeout.toNanos())) {
+			evictions.incrementAndGet();
+			remove(subscriber);
+			stuckSenders.incrementAndGet();
+			resizeSenders();
+			log.debug("Evicted order stream subscriber blocked in a send (client {})", subscriber.clientId);
+		}
+	}
+
+	/* um sender a mais por sender preso, até o dobro de senderCount */
+	private synchronized void resizeSenders() {
+		int size = senderCount + Math.min(senderCount, stuckSenders.get());
+		if (size > senders.getMaximumPoolSize()) {
+			senders.setMaximumPoolSize(size);
+			senders.setCorePoolSize(size);
+		} else if (size < senders.getMaximumPoolSize()) {
+			senders.setCorePoolSize(size);
+			senders.setMaximumPoolSize(size);
+		}
+	}
+
+	private void deliver(Subscriber subscriber, Set<SseEmitter.DataWithMediaType> message, boolean onlyIfIdle) {
+		Subscriber.Offer offer = subscriber.offer(message, onlyIfIdle);
+		if (offer == Subscriber.Offer.EVICTED) {
+			evictions.incrementAndGet();
+			remove(subscriber);
+			log.debug("Evicted slow order stream subscriber (client {})", subscriber.clientId);
+		}
+		if (offer == Subscriber.Offer.SCHEDULE || offer == Subscriber.Offer.EVICTED) {
+			senders.execute(() -> drain(subscriber));
+		}
+	}
+
+	/* envia as mensagens pendentes do inscrito, numa thread dos senders */
+	private void drain(Subscriber subscriber) {
+		Set<SseEmitter.DataWithMediaType> message;
+		while ((message = subscriber.next()) != null) {
+			subscriber.sending(Thread.currentThread());
+			try {
+				subscriber.emitter.send(message);
+			} catch (IOException | IllegalStateException e) {
+				/* a conexão caiu, o emitter já foi completado ou o envio foi interrompido */
+				subscriber.close();
+				remove(subscriber);
+			} finally {
+				if (subscriber.sent()) {
+					/* a interrupção do expire não pode valer para o próximo inscrito */
+					Thread.interrupted();
+					stuckSenders.decrementAndGet();
+					resizeSenders();
+				}
+			}
+		}
+		if (subscriber.completeOnce()) {
+			subscriber.emitter.complete();
+		}
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("orders.stream.subscribers", subscriberCount, AtomicInteger::get)
+				.description("Subscribers of GET /orders/stream").register(registry);
+		Gauge.builder("orders.stream.evictions", evictions, AtomicLong::get)
+				.description("Slow subscribers of GET /orders/stream that were disconnected").register(registry);
+	}
+
+	@Override
+	public void destroy() {
+		if (unsubscribe != null) {
+			unsubscribe.run();
+		}
+		if (heartbeats != null) {
+			heartbeats.shutdownNow();
+		}
+		if (senders != null) {
+			senders.shutdownNow();
+		}
+	}
+
+	/*
+	 * Um inscrito: o emitter, os filtros e o buffer de mensagens ainda
+	 * não enviadas. scheduled indica que um sender já vai esvaziar o
+	 * buffer, assim cada inscrito ocupa no máximo um sender por vez.
+	 * sender e sendingSince descrevem o envio em andamento, se houver.
+	 * */
+	static final class Subscriber {
+
+		enum Offer {
+			/* na fila, um sender já vai enviar */
+			QUEUED,
+			/* na fila, é preciso agendar um sender */
+			SCHEDULE,
+			/* o buffer encheu e o inscrito foi desligado, um sender completa o emitter */
+			EVICTED,
+			/* inscrito já desligado, ou heartbeat com mensagens pendentes */
+			DROPPED
+		}
+
+		final SseEmitter emitter;
+		final Long clientId;
+		final int statusMask;
+		private final int capacity;
+		private final ArrayDeque<Set<SseEmitter.DataWithMediaType>> buffer = new ArrayDeque<>(4);
+		private boolean scheduled;
+		private boolean closed;
+		private boolean completed;
+		private Thread sender;
+		private long sendingSince;
+		private boolean expired;
+
+		Subscriber(SseEmitter emitter, Long clientId, int statusMask, int capacity) {
+			this.emitter = emitter;
+			this.clientId = clientId;
+			this.statusMask = statusMask;
+			this.capacity = Math.max(1, capacity);
+		}
+
+		synchronized Offer offer(Set<SseEmitter.DataWithMediaType> message, boolean onlyIfIdle) {
+			if (closed || (onlyIfIdle && (scheduled || !buffer.isEmpty()))) {
+				return Offer.DROPPED;
+			}
+			if (buffer.size() >= capacity) {
+				closed = true;
+				buffer.clear();
+				return Offer.EVICTED;
+			}
+			buffer.add(message);
+			return schedule() ? Offer.SCHEDULE : Offer.QUEUED;
+		}
+
+		/* marca que um sender deve rodar, devolve false se já havia um agendado */
+		private boolean schedule() {
+			if (scheduled) {
+				return false;
+			}
+			scheduled = true;
+			return true;
+		}
+
+		/* próxima mensagem, ou null, liberando o agendamento, quando o buffer esvazia */
+		synchronized Set<SseEmitter.DataWithMediaType> next() {
+			Set<SseEmitter.DataWithMediaType> message = closed ? null : buffer.poll();
+			if (message == null) {
+				scheduled = false;
+			}
+			return message;
+		}
+
+		synchronized void close() {
+			closed = true;
+			buffer.clear();
+		}
+
+		/* o sender vai chamar emitter.send */
+		synchronized void sending(Thread thread) {
+			sender = thread;
+			sendingSince = System.nanoTime();
+		}
+
+		/* o envio terminou, devolve true se ele passou do timeout (expire) */
+		synchronized boolean sent() {
+			sender = null;
+			boolean wasExpired = expired;
+			expired = false;
+			return wasExpired;
+		}
+
+		/*
+		 * Desliga o inscrito e interrompe o sender se o envio em andamento
+		 * passou de timeoutNanos. A interrupção é feita com o lock, assim
+		 * ela nunca chega ao sender depois do sent() deste envio.
+		 * */
+		synchronized boolean expire(long now, long timeoutNanos) {
+			if (sender == null || expired || now - sendingSince <= timeoutNanos) {
+				return false;
+			}
+			expired = true;
+			closed = true;
+			buffer.clear();
+			sender.interrupt();
+			return true;
+		}
+
+		/* true uma única vez, depois que o inscrito foi desligado */
+		synchronized boolean completeOnce() {
+			if (!closed || completed) {
+				return false;
+			}
+			completed = true;
+			return true;
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package com.educandoweb.course.services.events;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.educandoweb.course.entities.Order;
+import com.educandoweb.course.entities.Payment;
+import com.educandoweb.course.entities.User;
+import com.educandoweb.course.entities.enums.OrderStatus;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/*
+ * Entity listener que grava no outbox um evento para cada escrita de
+ * um User, Order ou Payment feita pelo EntityManager (UserService,
+ * inserção em lote, pagamento de um Order), na mesma transação.
+ *
+ * Escritas que não passam pelo EntityManager (UPDATE em massa, JDBC)
+ * precisam chamar OutboxWriter.append diretamente, como a mudança de
+ * status do OrderTransitionService.
+ *
+ * Como o OrderAnalyticsListener, o OutboxWriter só é buscado na
+ * primeira escrita, ele usa o JdbcTemplate, criado depois do
+ * EntityManagerFactory.
+ * */
+public class OutboxListener {
+
+	/* estado gravado no payload de cada entidade, a senha do User fica de fora */
+	record UserState(String name, String email, String phone) {
+	}
+
+	record OrderState(Long clientId, OrderStatus status, BigDecimal total, Instant moment) {
+	}
+
+	record PaymentState(Long orderId, Instant moment) {
+	}
+
+	@Autowired
+	private ObjectProvider<OutboxWriter> outboxWriter;
+
+	@PostPersist
+	public void created(Object entity) {
+		append(entity, ChangeType.CREATED);
+	}
+
+	@PostUpdate
+	public void updated(Object entity) {
+		append(entity, ChangeType.UPDATED);
+	}
+
+	@PostRemove
+	public void deleted(Object entity) {
+		append(entity, ChangeType.DELETED);
+	}
+
+	private void append(Object entity, ChangeType type) {
+		boolean deleted = type == ChangeType.DELETED;
+		if (entity instanceof User user) {
+			outboxWriter.getObject().append("User", user.getId(), type,
+					deleted ? null : new UserState(user.getName(), user.getEmail(), user.getPhone()));
+		} else if (entity instanceof Order order) {
+			Long clientId = (order.getClient() == null) ? null : order.getClient().getId();
+			outboxWriter.getObject().append("Order", order.getId(), type,
+					deleted ? null : new OrderState(clientId, order.getOrderStatus(), order.getTotal(), order.getMoment()));
+		} else if (entity instanceof Payment payment) {
+			outboxWriter.getObject().append("Payment", payment.getId(), type,
+					deleted ? null : new PaymentState(payment.getId(), payment.getMoment()));
+		}
+	}
+}
@@ -0,0 +1,219 @@
+package com.educandoweb.course.services.events;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.educandoweb.course.dto.ChangeEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+
+/*
+ * Entrega os eventos do outbox (tb_outbox): uma thread lê as linhas
+ * confirmadas em lotes de batchSize, grava os eventos no EventLog, que
+ * os numera, apaga as linhas e, depois do commit, publica os eventos no
+ * EventBus.
+ *
+ * Entrega por escritor: cada instância tem o seu writer (um UUID novo a
+ * cada inicialização), gravado pelo OutboxWriter em cada linha, e
+ * entrega só as suas linhas. O EventLog (um arquivo por instância) e o
+ * EventBus de uma instância, e portanto o GET /events dela, têm os
+ * eventos das alterações feitas por ela, com as suas próprias sequences.
+ * Um consumidor que precise de todos os eventos lê o /events de cada
+ * instância.
+ *
+ * A thread é acordada depois de cada commit que grava no outbox
+ * (OutboxWriter) e entrega as linhas da instância. A cada sweepInterval
+ * ela também adota as linhas de outros writers mais velhas que
+ * orphanAge: linhas de uma instância que parou (ou da inicialização
+ * anterior desta) antes de entregá-las. orphanAge precisa ser maior que
+ * o atraso normal de uma entrega, senão uma instância viva perde os
+ * seus eventos para outra.
+ *
+ * Como na fila de Orders (OrderQueue), os ids de cada lote são lidos
+ * sem bloqueio e bloqueados com FOR UPDATE SKIP LOCKED, assim duas
+ * instâncias adotando as mesmas linhas nunca entregam a mesma linha ao
+ * mesmo tempo.
+ *
+ * A entrega é pelo menos uma vez: se a transação falhar depois da
+ * escrita no EventLog, as linhas continuam no outbox e são entregues de
+ * novo, com outras sequences. Por isso as sequences do EventBus podem
+ * ter buracos, mas são sempre crescentes.
+ * */
+@Component
+public class OutboxRelay implements SmartInitializingSingleton, DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+	private static final String OWN_SQL = "SELECT id FROM tb_outbox WHERE writer = ? ORDER BY id LIMIT ?";
+
+	private static final String ORPHANS_SQL = "SELECT id FROM tb_outbox WHERE writer <> ? AND moment <= ? "
+			+ "ORDER BY id LIMIT ?";
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private EventLog eventLog;
+
+	@Autowired
+	private EventBus eventBus;
+
+	@Value("${course.events.relay.batch-size:500}")
+	private int batchSize;
+
+	@Value("${course.events.relay.sweep-interval:PT5S}")
+	private Duration sweepInterval;
+
+	@Value("${course.events.relay.orphan-age:PT1M}")
+	private Duration orphanAge;
+
+	private final String writer = UUID.randomUUID().toString();
+
+	private final Object signal = new Object();
+	private boolean woken;
+	private volatile boolean running;
+	private Thread thread;
+
+	@Override
+	public synchronized void afterSingletonsInstantiated() {
+		running = true;
+		thread = new Thread(this::run, "outbox-relay");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/* o writer das linhas gravadas por esta instância */
+	public String getWriter() {
+		return writer;
+	}
+
+	/* pede uma entrega, sem esperar por ela */
+	public void wakeUp() {
+		synchronized (signal) {
+			woken = true;
+			signal.notifyAll();
+		}
+	}
+
+	private void run() {
+		boolean sweep = true;
+		while (running) {
+			try {
+				relay();
+				if (sweep) {
+					adoptOrphans();
+				}
+			} catch (RuntimeException e) {
+				log.warn("Could not relay outbox events", e);
+			}
+			synchronized (signal) {
+				if (!woken && running) {
+					try {
+						signal.wait(sweepInterval.toMillis());
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+				}
+				sweep = !woken;
+				woken = false;
+			}
+		}
+	}
+
+	/* entrega, em lotes, as linhas desta instância */
+	public void relay() {
+		int read;
+		do {
+			read = transactionTemplate.execute(status -> relayBatch(
+					jdbcTemplate.queryForList(OWN_SQL, Long.class, writer, batchSize)));
+		} while (read == batchSize);
+	}
+
+	/* entrega, em lotes, as linhas de outros writers mais velhas que orphanAge */
+	public void adoptOrphans() {
+		Timestamp before = Timestamp.from(Instant.now().minus(orphanAge));
+		int read;
+		do {
+			read = transactionTemplate.execute(status -> relayBatch(
+					jdbcTemplate.queryForList(ORPHANS_SQL, Long.class, writer, before, batchSize)));
+		} while (read == batchSize);
+	}
+
+	/* devolve quantos candidatos foram lidos, um lote cheio indica que ainda há linhas */
+	private int relayBatch(List<Long> candidates) {
+		if (candidates.isEmpty()) {
+			return 0;
+		}
+		String in = String.join(",", candidates.stream().map(String::valueOf).toList());
+		List<Long> ids = new ArrayList<>();
+		List<ChangeEvent> events = jdbcTemplate.query(
+				"SELECT id, aggregate, aggregate_id, type, moment, payload FROM tb_outbox WHERE id IN (" + in + ") "
+						+ "ORDER BY id FOR UPDATE SKIP LOCKED",
+				(rs, row) -> {
+					ids.add(rs.getLong(1));
+					String payload = rs.getString(6);
+					return new ChangeEvent(0, rs.getString(2), rs.getLong(3), rs.getString(4),
+							rs.getTimestamp(5).toInstant(), (payload == null) ? NullNode.getInstance() : readTree(payload));
+				});
+		if (events.isEmpty()) {
+			return candidates.size();
+		}
+		List<ChangeEvent> numbered = eventLog.append(events);
+		jdbcTemplate.update("DELETE FROM tb_outbox WHERE id IN ("
+				+ String.join(",", ids.stream().map(String::valueOf).toList()) + ")");
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				eventBus.publish(numbered);
+			}
+		});
+		return candidates.size();
+	}
+
+	private JsonNode readTree(String json) {
+		try {
+			return objectMapper.readTree(json);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Invalid outbox payload " + json, e);
+		}
+	}
+
+	@Override
+	public void destroy() throws InterruptedException {
+		Thread current;
+		synchronized (this) {
+			running = false;
+			current = thread;
+			thread = null;
+		}
+		wakeUp();
+		if (current != null) {
+			current.join(10_000);
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package com.educandoweb.course.services.events;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/*
+ * Grava os eventos de alteração na tabela tb_outbox, por JDBC, na
+ * transação atual: o evento só existe se a alteração for confirmada
+ * (commit), e uma alteração confirmada sempre tem o seu evento.
+ *
+ * Os eventos de uma transação são juntados e gravados num único
+ * batchUpdate no fim dela, depois do flush do commit (que dispara o
+ * OutboxListener) e ainda dentro da transação: um processo
+ * BeforeTransactionCompletionProcess registrado na sessão do
+ * Hibernate. Assim uma inserção em lote (POST /orders/batch) grava o
+ * outbox em lotes, como as entidades, em vez de um insert por evento.
+ * Num rollback o processo não roda e nada é gravado. O JdbcTemplate usa
+ * a mesma conexão da transação do JPA.
+ *
+ * Fora de uma transação o evento é gravado na hora.
+ *
+ * Cada linha leva o writer do OutboxRelay desta instância, que é
+ * acordado depois do commit para entregar os eventos.
+ * */
+@Component
+public class OutboxWriter {
+
+	private static final String INSERT_SQL = "INSERT INTO tb_outbox (aggregate, aggregate_id, type, moment, payload, writer) "
+			+ "VALUES (?, ?, ?, ?, ?, ?)";
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private OutboxRelay outboxRelay;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	/* payload é serializado em JSON, null para entidades apagadas */
+	public void append(String aggregate, Long aggregateId, ChangeType type, Object payload) {
+		String json;
+		try {
+			json = (payload == null) ? null : objectMapper.writeValueAsString(payload);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Could not serialize " + aggregate + " " + aggregateId + " event", e);
+		}
+		Object[] row = { aggregate, aggregateId, type.name(), Timestamp.from(Instant.now()), json,
+				outboxRelay.getWriter() };
+		if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+			jdbcTemplate.update(INSERT_SQL, row);
+			outboxRelay.wakeUp();
+			return;
+		}
+		pendingRows().add(row);
+	}
+
+	/*
+	 * As linhas da transação: o primeiro evento registra o batchUpdate na
+	 * sessão e uma única sincronização, que acorda o relay depois do commit.
+	 * */
+	private List<Object[]> pendingRows() {
+		@SuppressWarnings("unchecked")
+		List<Object[]> rows = (List<Object[]>) TransactionSynchronizationManager.getResource(this);
+		if (rows == null) {
+			List<Object[]> transactionRows = new ArrayList<>();
+			TransactionSynchronizationManager.bindResource(this, transactionRows);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					outboxRelay.wakeUp();
+				}
+
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(OutboxWriter.this);
+				}
+			});
+			entityManager.unwrap(SessionImplementor.class).getActionQueue()
+					.registerProcess((BeforeTransactionCompletionProcess) session -> {
+						jdbcTemplate.batchUpdate(INSERT_SQL, transactionRows);
+						transactionRows.clear();
+					});
+			rows = transactionRows;
+		}
+		return rows;
+	}
+}
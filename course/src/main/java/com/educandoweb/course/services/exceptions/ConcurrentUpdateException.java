@@ -0,0 +1,16 @@
+package com.educandoweb.course.services.exceptions;
+
+/* 
+ * Classe responsável por tratar exceções quando uma escrita continua
+ * perdendo para escritas concorrentes no mesmo registro (conflito de
+ * versão) depois de todas as tentativas.
+ * */
+public class ConcurrentUpdateException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+	
+	public ConcurrentUpdateException(Object id, int attempts) {
+		super("Resource " + id + " kept changing, gave up after " + attempts + " attempts");
+	}
+
+}
@@ -0,0 +1,18 @@
+package com.educandoweb.course.services.exceptions;
+
+import com.educandoweb.course.entities.enums.OrderStatus;
+
+/* 
+ * Classe responsável por tratar exceções quando o cliente pede uma
+ * mudança de status que o Order não pode fazer a partir do status
+ * atual, veja OrderStatus.canTransitionTo.
+ * */
+public class IllegalTransitionException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+	
+	public IllegalTransitionException(Long id, OrderStatus from, OrderStatus to) {
+		super("Order " + id + " cannot go from " + from + " to " + to);
+	}
+
+}
@@ -0,0 +1,15 @@
+package com.educandoweb.course.services.exceptions;
+
+/* 
+ * Classe responsável por tratar exceções quando o cliente envia
+ * um token de paginação (cursor) malformado.
+ * */
+public class InvalidCursorException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+	
+	public InvalidCursorException(String cursor) {
+		super("Invalid cursor. " + cursor);
+	}
+
+}
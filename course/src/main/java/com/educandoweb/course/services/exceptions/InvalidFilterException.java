@@ -0,0 +1,15 @@
+package com.educandoweb.course.services.exceptions;
+
+/* 
+ * Classe responsável por tratar exceções quando o cliente envia
+ * um filtro de categories malformado.
+ * */
+public class InvalidFilterException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+	
+	public InvalidFilterException(String filter) {
+		super("Invalid filter. " + filter);
+	}
+
+}
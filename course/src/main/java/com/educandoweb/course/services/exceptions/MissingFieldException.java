@@ -0,0 +1,16 @@
+package com.educandoweb.course.services.exceptions;
+
+/* 
+ * Classe responsável por tratar exceções quando o corpo da requisição
+ * não traz um campo obrigatório, por exemplo o status de uma mudança
+ * de status de um Order.
+ * */
+public class MissingFieldException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+	
+	public MissingFieldException(String field) {
+		super("Field " + field + " is required");
+	}
+
+}
@@ -0,0 +1,16 @@
+package com.educandoweb.course.services.exceptions;
+
+/* 
+ * Classe responsável por tratar exceções quando o cliente continua uma
+ * paginação cujo cursor foi emitido antes de os resultados mudarem,
+ * por exemplo a busca de Products depois de uma escrita no índice.
+ * */
+public class StaleCursorException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+	
+	public StaleCursorException(String cursor) {
+		super("Results changed since the cursor was issued, start again from the first page. " + cursor);
+	}
+
+}
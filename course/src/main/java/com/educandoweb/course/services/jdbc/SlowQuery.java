@@ -0,0 +1,18 @@
+package com.educandoweb.course.services.jdbc;
+
+import java.time.Instant;
+
+/*
+ * Um comando SQL registrado pelo SlowQueryLog.
+ *
+ * parameters são os valores ligados aos parâmetros (?) do comando, na
+ * ordem, já mascarados (SlowQueryLog.redact) e sem conversão para texto
+ * (a conversão só é feita quando o log é consultado). Num batch são os valores da primeira
+ * linha e batchSize é o número de linhas.
+ *
+ * rows é o número de linhas lidas (consulta) ou alteradas (insert,
+ * update, delete), ou -1 quando não é conhecido.
+ * */
+public record SlowQuery(long sequence, Instant moment, long elapsedNanos, String sql, Object[] parameters,
+		int batchSize, long rows, boolean sampled, String thread, String error) {
+}
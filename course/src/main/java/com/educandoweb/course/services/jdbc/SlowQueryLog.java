@@ -0,0 +1,138 @@
+package com.educandoweb.course.services.jdbc;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/*
+ * Log dos comandos SQL lentos, substitui o spring.jpa.show-sql.
+ *
+ * Só são registrados os comandos que levaram pelo menos threshold, mais
+ * uma amostra aleatória (sampleRate) dos outros, para se ter uma ideia
+ * do comando típico e não só dos piores.
+ *
+ * O log é um buffer circular (ring buffer) de capacity posições: cada
+ * registro pega a próxima posição com um contador atômico e grava nela,
+ * sem lock e sem I/O na thread que executou o comando. Quando o buffer
+ * enche os registros mais antigos são sobrescritos. A leitura (snapshot)
+ * roda separada, só quando o log é consultado.
+ *
+ * Os valores dos parâmetros são mascarados já no registro (redact): só
+ * números, datas, booleanos e enums ficam como estão, de um texto fica
+ * só o tamanho, assim senhas, emails e telefones gravados em tb_user
+ * nunca chegam ao log.
+ * */
+@Component
+public class SlowQueryLog {
+
+	public enum Reason {
+		SLOW, SAMPLED
+	}
+
+	private final long thresholdNanos;
+	private final double sampleRate;
+	private final AtomicReferenceArray<SlowQuery> entries;
+	private final AtomicLong sequence = new AtomicLong();
+
+	public SlowQueryLog(@Value("${course.slow-query.threshold:100ms}") Duration threshold,
+			@Value("${course.slow-query.sample-rate:0}") double sampleRate,
+			@Value("${course.slow-query.capacity:1024}") int capacity) {
+		this.thresholdNanos = threshold.toNanos();
+		this.sampleRate = sampleRate;
+		this.entries = new AtomicReferenceArray<>(capacity);
+	}
+
+	/*
+	 * Decide se um comando que levou elapsedNanos deve ser registrado:
+	 * SLOW, SAMPLED ou null (não registrar).
+	 * */
+	public Reason reasonFor(long elapsedNanos) {
+		if (elapsedNanos >= thresholdNanos) {
+			return Reason.SLOW;
+		}
+		if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+			return Reason.SAMPLED;
+		}
+		return null;
+	}
+
+	public void record(long elapsedNanos, String sql, Object[] parameters, int batchSize, long rows, Reason reason,
+			String error) {
+		long seq = sequence.getAndIncrement();
+		entries.set(index(seq), new SlowQuery(seq, Instant.now(), elapsedNanos, sql, redact(parameters), batchSize, rows,
+				reason == Reason.SAMPLED, Thread.currentThread().getName(), error));
+	}
+
+	static Object[] redact(Object[] parameters) {
+		Object[] redacted = new Object[parameters.length];
+		for (int i = 0; i < parameters.length; i++) {
+			redacted[i] = redact(parameters[i]);
+		}
+		return redacted;
+	}
+
+	private static Object redact(Object parameter) {
+		if (parameter == null || parameter instanceof Number || parameter instanceof Boolean
+				|| parameter instanceof Enum<?> || parameter instanceof Date || parameter instanceof Temporal) {
+			return parameter;
+		}
+		if (parameter instanceof CharSequence text) {
+			return "<string, " + text.length() + " chars>";
+		}
+		if (parameter instanceof byte[] bytes) {
+			return "<" + bytes.length + " bytes>";
+		}
+		return "<" + parameter.getClass().getSimpleName() + ">";
+	}
+
+	/*
+	 * Devolve até limit registros, do mais novo para o mais antigo, com
+	 * pelo menos minElapsed de duração.
+	 * */
+	public List<SlowQuery> snapshot(int limit, Duration minElapsed) {
+		long minNanos = minElapsed.toNanos();
+		long end = sequence.get();
+		long start = Math.max(0, end - entries.length());
+		List<SlowQuery> result = new ArrayList<>(Math.min(limit, entries.length()));
+		for (long seq = end - 1; seq >= start && result.size() < limit; seq--) {
+			SlowQuery entry = entries.get(index(seq));
+			/* a posição pode ainda não ter sido gravada ou já ter sido
+			 * sobrescrita por um registro mais novo
+			 * */
+			if (entry != null && entry.sequence() == seq && entry.elapsedNanos() >= minNanos) {
+				result.add(entry);
+			}
+		}
+		return result;
+	}
+
+	/* total de comandos registrados desde a inicialização */
+	public long getRecorded() {
+		return sequence.get();
+	}
+
+	public int getCapacity() {
+		return entries.length();
+	}
+
+	public Duration getThreshold() {
+		return Duration.ofNanos(thresholdNanos);
+	}
+
+	public double getSampleRate() {
+		return sampleRate;
+	}
+
+	private int index(long seq) {
+		return (int) (seq % entries.length());
+	}
+}
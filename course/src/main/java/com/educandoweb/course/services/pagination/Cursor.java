@@ -0,0 +1,115 @@
+package com.educandoweb.course.services.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+
+import com.educandoweb.course.services.exceptions.InvalidCursorException;
+
+/* 
+ * Classe responsável por codificar e decodificar os tokens de
+ * continuação usados pela paginação por chave.
+ * 
+ * O token é opaco para o cliente (Base64 url-safe), assim podemos
+ * mudar a chave de ordenação no futuro sem quebrar o contrato da API.
+ * */
+public final class Cursor {
+
+	private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+	private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+	/* Chave composta (moment, id) usada na ordenação dos Orders. */
+	public record MomentKey(Instant moment, Long id) {
+	}
+
+	/* 
+	 * Chave composta (score, id) usada na ordenação da busca de Products,
+	 * com a geração do índice em que o score foi calculado.
+	 * */
+	public record ScoreKey(double score, Long id, long generation) {
+	}
+
+	private Cursor() {
+	}
+
+	public static String encode(Long id) {
+		return encodeRaw(String.valueOf(id));
+	}
+
+	/* 
+	 * A chave (moment, id) só ordena Orders com moment, a coluna é
+	 * NOT NULL (veja Order.moment), então um moment nulo aqui é um erro
+	 * de quem montou o Order e não uma posição da paginação.
+	 * */
+	public static String encode(Instant moment, Long id) {
+		if (moment == null) {
+			throw new IllegalArgumentException("Cannot build a cursor for id " + id + ": moment is null");
+		}
+		return encodeRaw(moment.getEpochSecond() + "." + moment.getNano() + ":" + id);
+	}
+
+	/* o score é gravado com os bits exatos do double, sem perder precisão */
+	public static String encode(double score, Long id, long generation) {
+		return encodeRaw(Long.toHexString(Double.doubleToRawLongBits(score)) + ":" + id + ":" + generation);
+	}
+
+	/* Devolve null quando o cliente está pedindo a primeira página. */
+	public static Long decodeId(String cursor) {
+		if (cursor == null || cursor.isBlank()) {
+			return null;
+		}
+		try {
+			return Long.valueOf(decodeRaw(cursor));
+		} catch (NumberFormatException e) {
+			throw new InvalidCursorException(cursor);
+		}
+	}
+
+	public static MomentKey decodeMoment(String cursor) {
+		if (cursor == null || cursor.isBlank()) {
+			return null;
+		}
+		try {
+			String raw = decodeRaw(cursor);
+			int dot = raw.indexOf('.');
+			int colon = raw.indexOf(':');
+			if (dot < 0 || colon < dot) {
+				throw new InvalidCursorException(cursor);
+			}
+			Instant moment = Instant.ofEpochSecond(Long.parseLong(raw.substring(0, dot)),
+					Long.parseLong(raw.substring(dot + 1, colon)));
+			return new MomentKey(moment, Long.valueOf(raw.substring(colon + 1)));
+		} catch (NumberFormatException | DateTimeException e) {
+			throw new InvalidCursorException(cursor);
+		}
+	}
+
+	public static ScoreKey decodeScore(String cursor) {
+		if (cursor == null || cursor.isBlank()) {
+			return null;
+		}
+		try {
+			String[] parts = decodeRaw(cursor).split(":");
+			if (parts.length != 3) {
+				throw new InvalidCursorException(cursor);
+			}
+			double score = Double.longBitsToDouble(Long.parseUnsignedLong(parts[0], 16));
+			return new ScoreKey(score, Long.valueOf(parts[1]), Long.parseLong(parts[2]));
+		} catch (NumberFormatException e) {
+			throw new InvalidCursorException(cursor);
+		}
+	}
+
+	private static String encodeRaw(String raw) {
+		return ENCODER.encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String decodeRaw(String cursor) {
+		try {
+			return new String(DECODER.decode(cursor), StandardCharsets.UTF_8);
+		} catch (IllegalArgumentException e) {
+			throw new InvalidCursorException(cursor);
+		}
+	}
+}
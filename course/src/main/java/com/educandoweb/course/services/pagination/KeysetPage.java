@@ -0,0 +1,48 @@
+package com.educandoweb.course.services.pagination;
+
+import java.util.List;
+import java.util.function.Function;
+
+/* 
+ * Classe responsável por representar uma página de uma consulta
+ * paginada por chave (keyset/seek pagination).
+ * 
+ * Em vez de usar OFFSET, que obriga o banco de dados a percorrer e
+ * descartar todas as linhas das páginas anteriores, a próxima página
+ * é buscada a partir da última chave devolvida, então a página 10.000
+ * custa o mesmo que a página 1.
+ * 
+ * O nextCursor é um token opaco que o cliente devolve para buscar a
+ * próxima página, ele vale null quando não há mais páginas.
+ * */
+public record KeysetPage<T>(List<T> content, int size, String nextCursor) {
+
+	public static final int DEFAULT_SIZE = 20;
+	public static final int MAX_SIZE = 100;
+
+	/* 
+	 * Limita o tamanho de página pedido pelo cliente ao intervalo
+	 * [1, MAX_SIZE], usando DEFAULT_SIZE quando nenhum foi informado.
+	 * */
+	public static int clampSize(Integer requested) {
+		if (requested == null) {
+			return DEFAULT_SIZE;
+		}
+		return Math.max(1, Math.min(requested, MAX_SIZE));
+	}
+
+	/* 
+	 * Monta a página a partir das linhas buscadas no repository.
+	 * 
+	 * O repository deve buscar size + 1 linhas, a linha extra serve
+	 * apenas para saber se existe uma próxima página sem precisar
+	 * fazer um count na tabela.
+	 * */
+	public static <T> KeysetPage<T> of(List<T> rows, int size, Function<T, String> cursorOf) {
+		if (rows.size() <= size) {
+			return new KeysetPage<>(rows, rows.size(), null);
+		}
+		List<T> content = rows.subList(0, size);
+		return new KeysetPage<>(content, size, cursorOf.apply(content.get(size - 1)));
+	}
+}
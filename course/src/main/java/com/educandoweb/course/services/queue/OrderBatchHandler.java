@@ -0,0 +1,12 @@
+package com.educandoweb.course.services.queue;
+
+/*
+ * Processa um lote de Orders reservado pelo OrderWorkerPool. O lote é
+ * liberado no fim, com ou sem exceção; os Orders que continuarem no
+ * status da fila voltam a ser reservados por outro worker.
+ * */
+@FunctionalInterface
+public interface OrderBatchHandler {
+
+	void process(OrderClaim claim) throws Exception;
+}
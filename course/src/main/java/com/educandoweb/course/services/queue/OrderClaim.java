@@ -0,0 +1,16 @@
+package com.educandoweb.course.services.queue;
+
+import java.time.Instant;
+import java.util.List;
+
+/*
+ * Um lote de Orders reservado por OrderQueue.claim: o dono da reserva
+ * (um id aleatório por lote), os ids dos Orders e o fim da reserva.
+ * Depois de until os Orders podem ser reservados por outro worker.
+ * */
+public record OrderClaim(String owner, List<Long> orderIds, Instant until) {
+
+	public boolean isEmpty() {
+		return orderIds.isEmpty();
+	}
+}
@@ -0,0 +1,90 @@
+package com.educandoweb.course.services.queue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.educandoweb.course.entities.enums.OrderStatus;
+import com.educandoweb.course.repositories.OrderRepository;
+
+/*
+ * Fila de Orders por status, para workers (por exemplo, o envio dos
+ * Orders PAID): cada claim reserva os próximos Orders do status que não
+ * têm uma reserva válida, em ordem de id.
+ *
+ * A reserva é feita numa transação curta: os candidatos são lidos sem
+ * bloqueio, CANDIDATES vezes o limit por vez, e bloqueados aos poucos,
+ * só os que faltam para completar o lote, com SELECT ... FOR UPDATE SKIP
+ * LOCKED, para que claims concorrentes peguem linhas diferentes sem se
+ * esperar; depois um UPDATE grava o dono e o fim da reserva (lease).
+ * Bloquear uma lista de ids, e não "os próximos limit", evita que o
+ * banco de dados bloqueie mais linhas que o lote (o H2 bloqueia todas
+ * as linhas que lê num FOR UPDATE com LIMIT). Depois do commit as linhas não ficam bloqueadas; é a
+ * reserva que as tira da fila até ela vencer, assim um worker que
+ * morre no meio do lote não prende os Orders para sempre.
+ *
+ * Um Order sai da fila de vez quando muda de status (por exemplo, pelo
+ * OrderTransitionService), o que também impede que ele seja processado
+ * duas vezes se a reserva vencer durante o processamento: a segunda
+ * mudança de status recebe 409.
+ * */
+@Service
+@Transactional(readOnly = true)
+public class OrderQueue {
+
+	/* candidatos lidos por claim, em múltiplos do limit */
+	private static final int CANDIDATES = 4;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	/* duração de cada reserva */
+	@Value("${course.queue.lease:PT5M}")
+	private Duration lease;
+
+	@Transactional
+	public OrderClaim claim(OrderStatus status, int limit) {
+		Instant now = Instant.now();
+		int window = limit * CANDIDATES;
+		List<Long> ids = new ArrayList<>(limit);
+		long after = Long.MIN_VALUE;
+		List<Long> candidates;
+		do {
+			/* candidatos bloqueados por outros claims ficam para trás, a próxima janela começa depois deles */
+			candidates = orderRepository.findClaimable(status.getCode(), after, now, window);
+			int next = 0;
+			while (ids.size() < limit && next < candidates.size()) {
+				List<Long> slice = candidates.subList(next, Math.min(candidates.size(), next + limit - ids.size()));
+				next += slice.size();
+				ids.addAll(orderRepository.lockClaimable(slice, status.getCode(), now));
+			}
+			if (!candidates.isEmpty()) {
+				after = candidates.get(candidates.size() - 1);
+			}
+		} while (ids.size() < limit && candidates.size() == window);
+		if (ids.isEmpty()) {
+			return new OrderClaim(null, List.of(), now);
+		}
+		String owner = UUID.randomUUID().toString();
+		Instant until = now.plus(lease);
+		orderRepository.lease(ids, owner, until);
+		return new OrderClaim(owner, List.copyOf(ids), until);
+	}
+
+	/* devolve à fila os Orders do lote que ainda estão reservados por ele */
+	@Transactional
+	public int release(OrderClaim claim) {
+		if (claim.isEmpty()) {
+			return 0;
+		}
+		return orderRepository.release(claim.orderIds(), claim.owner());
+	}
+
+}
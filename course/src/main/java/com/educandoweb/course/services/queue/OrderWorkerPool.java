@@ -0,0 +1,133 @@
+package com.educandoweb.course.services.queue;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.educandoweb.course.entities.enums.OrderStatus;
+
+/*
+ * Grupo de workers que consomem a fila de Orders de um status: cada
+ * worker reserva um lote (OrderQueue.claim), entrega ao handler e
+ * libera a reserva, em laço, até o close. Com a fila vazia o worker
+ * espera idleWait antes de tentar de novo.
+ *
+ * Os workers não dividem nada além do banco de dados: o SKIP LOCKED
+ * faz cada claim pegar Orders diferentes, então a vazão cresce com o
+ * número de workers até o limite do banco de dados ou do handler.
+ * */
+public class OrderWorkerPool implements AutoCloseable {
+
+	private static final Logger log = LoggerFactory.getLogger(OrderWorkerPool.class);
+
+	private static final Duration IDLE_WAIT = Duration.ofMillis(200);
+
+	private final OrderQueue queue;
+	private final OrderStatus status;
+	private final int workers;
+	private final int batchSize;
+	private final OrderBatchHandler handler;
+	private final AtomicLong processed = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+
+	private volatile boolean running;
+	private ExecutorService executor;
+
+	/* queue é o bean do Spring, para que claim e release abram as suas transações */
+	public OrderWorkerPool(OrderQueue queue, OrderStatus status, int workers, int batchSize, OrderBatchHandler handler) {
+		this.queue = queue;
+		this.status = status;
+		this.workers = workers;
+		this.batchSize = batchSize;
+		this.handler = handler;
+	}
+
+	public synchronized OrderWorkerPool start() {
+		if (executor == null) {
+			AtomicInteger counter = new AtomicInteger();
+			String prefix = "order-worker-" + status.name().toLowerCase() + "-";
+			executor = Executors.newFixedThreadPool(workers, task -> {
+				Thread thread = new Thread(task, prefix + counter.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+			running = true;
+			for (int i = 0; i < workers; i++) {
+				executor.execute(this::work);
+			}
+		}
+		return this;
+	}
+
+	/* Orders processados sem exceção */
+	public long getProcessed() {
+		return processed.get();
+	}
+
+	/* Orders de lotes em que o handler lançou uma exceção */
+	public long getFailed() {
+		return failed.get();
+	}
+
+	private void work() {
+		while (running) {
+			OrderClaim claim;
+			try {
+				claim = queue.claim(status, batchSize);
+			} catch (RuntimeException e) {
+				log.warn("Could not claim {} orders", status, e);
+				idle();
+				continue;
+			}
+			if (claim.isEmpty()) {
+				idle();
+				continue;
+			}
+			try {
+				handler.process(claim);
+				processed.addAndGet(claim.orderIds().size());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				failed.addAndGet(claim.orderIds().size());
+			} catch (Exception e) {
+				log.warn("Failed to process {} {} orders", claim.orderIds().size(), status, e);
+				failed.addAndGet(claim.orderIds().size());
+			} finally {
+				queue.release(claim);
+			}
+		}
+	}
+
+	private void idle() {
+		try {
+			Thread.sleep(IDLE_WAIT.toMillis());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			running = false;
+		}
+	}
+
+	/* para de reservar lotes e espera os lotes em andamento terminarem */
+	@Override
+	public synchronized void close() {
+		running = false;
+		if (executor != null) {
+			executor.shutdown();
+			try {
+				if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+					executor.shutdownNow();
+				}
+			} catch (InterruptedException e) {
+				executor.shutdownNow();
+				Thread.currentThread().interrupt();
+			}
+			executor = null;
+		}
+	}
+}
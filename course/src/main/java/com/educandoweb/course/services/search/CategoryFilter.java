@@ -0,0 +1,42 @@
+package com.educandoweb.course.services.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.educandoweb.course.services.exceptions.InvalidFilterException;
+
+/*
+ * Filtro de categories no formato do parâmetro categories do
+ * GET /products: cláusulas separadas por vírgula (E), cada cláusula com
+ * termos separados por | (OU), cada termo um id de Category, negado
+ * quando começa com ! (NÃO).
+ *
+ * Por exemplo 1,2|3,!4 são os Products na Category 1, na 2 ou na 3, e
+ * fora da 4.
+ * */
+public record CategoryFilter(List<List<Term>> clauses) {
+
+	public record Term(long categoryId, boolean negated) {
+	}
+
+	public static CategoryFilter parse(String filter) {
+		if (filter == null || filter.isBlank()) {
+			throw new InvalidFilterException(filter);
+		}
+		List<List<Term>> clauses = new ArrayList<>();
+		for (String clause : filter.split(",", -1)) {
+			List<Term> terms = new ArrayList<>();
+			for (String term : clause.split("\\|", -1)) {
+				String value = term.strip();
+				boolean negated = value.startsWith("!");
+				try {
+					terms.add(new Term(Long.parseLong(negated ? value.substring(1).strip() : value), negated));
+				} catch (NumberFormatException e) {
+					throw new InvalidFilterException(filter);
+				}
+			}
+			clauses.add(List.copyOf(terms));
+		}
+		return new CategoryFilter(List.copyOf(clauses));
+	}
+}
@@ -0,0 +1,188 @@
+package com.educandoweb.course.services.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+
+/*
+ * Índice das categories dos Products: para cada Category, um bitmap
+ * comprimido (RoaringBitmap) com os ids dos seus Products, o mesmo
+ * conteúdo da tabela tb_product_category, mantido pelo
+ * ProductSearchIndex junto com o índice de busca.
+ *
+ * Os filtros E/OU/NÃO são operações entre bitmaps e a contagem de cada
+ * Category (facets) é a cardinalidade da interseção, sem nenhuma
+ * consulta ao banco de dados.
+ *
+ * Os bitmaps publicados nunca são alterados: uma escrita copia os bitmaps
+ * das categories afetadas e publica um novo Snapshot, as leituras não
+ * usam lock. Os ids dos Products precisam caber num int.
+ * */
+@Component
+public class CategoryIndex {
+
+	/* Products com o filtro, em ordem de id, e a contagem de cada Category entre eles */
+	public record Result(RoaringBitmap products, Map<Long, Long> facets) {
+
+		public long total() {
+			return products.getLongCardinality();
+		}
+
+		/* até limit ids depois de afterId (null na primeira página) */
+		public List<Long> page(Long afterId, int limit) {
+			List<Long> ids = new ArrayList<>(limit);
+			PeekableIntIterator iterator = products.getIntIterator();
+			if (afterId != null) {
+				if (afterId >= Integer.MAX_VALUE) {
+					return ids;
+				}
+				iterator.advanceIfNeeded((int) Math.max(0, afterId + 1));
+			}
+			while (iterator.hasNext() && ids.size() < limit) {
+				ids.add((long) iterator.next());
+			}
+			return ids;
+		}
+	}
+
+	private static final RoaringBitmap EMPTY = new RoaringBitmap();
+
+	private record Snapshot(Map<Long, RoaringBitmap> categories, RoaringBitmap all) {
+	}
+
+	private volatile Snapshot snapshot = new Snapshot(Map.of(), new RoaringBitmap());
+
+	/* acumula os Products de uma montagem completa do índice */
+	public static class Builder {
+
+		private final Map<Long, RoaringBitmap> categories = new HashMap<>();
+		private final RoaringBitmap all = new RoaringBitmap();
+
+		public void add(long productId, long[] categoryIds) {
+			int id = Math.toIntExact(productId);
+			all.add(id);
+			for (long categoryId : categoryIds) {
+				categories.computeIfAbsent(categoryId, c -> new RoaringBitmap()).add(id);
+			}
+		}
+	}
+
+	public void replace(Builder builder) {
+		builder.all.runOptimize();
+		builder.categories.values().forEach(RoaringBitmap::runOptimize);
+		snapshot = new Snapshot(Map.copyOf(builder.categories), builder.all);
+	}
+
+	/*
+	 * Substitui as categories dos Products informados, um valor null
+	 * remove o Product do índice.
+	 * */
+	public synchronized void update(Map<Long, long[]> products) {
+		if (products.isEmpty()) {
+			return;
+		}
+		Snapshot current = snapshot;
+		Map<Long, RoaringBitmap> categories = new HashMap<>(current.categories());
+		RoaringBitmap all = current.all().clone();
+		Map<Long, RoaringBitmap> copies = new HashMap<>();
+		for (Map.Entry<Long, long[]> entry : products.entrySet()) {
+			int id = Math.toIntExact(entry.getKey());
+			for (Map.Entry<Long, RoaringBitmap> category : categories.entrySet()) {
+				if (category.getValue().contains(id)) {
+					copy(categories, copies, category.getKey()).remove(id);
+				}
+			}
+			if (entry.getValue() == null) {
+				all.remove(id);
+				continue;
+			}
+			all.add(id);
+			for (long categoryId : entry.getValue()) {
+				copy(categories, copies, categoryId).add(id);
+			}
+		}
+		categories.values().removeIf(RoaringBitmap::isEmpty);
+		snapshot = new Snapshot(Map.copyOf(categories), all);
+	}
+
+	/* copia o bitmap da Category uma vez por escrita, antes de alterá-lo */
+	private static RoaringBitmap copy(Map<Long, RoaringBitmap> categories, Map<Long, RoaringBitmap> copies,
+			long categoryId) {
+		return copies.computeIfAbsent(categoryId, id -> {
+			RoaringBitmap bitmap = categories.get(id);
+			RoaringBitmap copy = (bitmap == null) ? new RoaringBitmap() : bitmap.clone();
+			categories.put(id, copy);
+			return copy;
+		});
+	}
+
+	public int size() {
+		return snapshot.all().getCardinality();
+	}
+
+	public long sizeInBytes() {
+		Snapshot current = snapshot;
+		long bytes = current.all().getLongSizeInBytes();
+		for (RoaringBitmap bitmap : current.categories().values()) {
+			bytes += bitmap.getLongSizeInBytes();
+		}
+		return bytes;
+	}
+
+	/*
+	 * Aplica o filtro: as cláusulas com termos positivos são calculadas
+	 * primeiro e a interseção começa pela menor; as cláusulas formadas só
+	 * por um termo negado são subtraídas (andNot) no fim, sem montar o
+	 * complemento. Sem nenhuma cláusula positiva o ponto de partida são
+	 * todos os Products.
+	 * */
+	public Result filter(CategoryFilter filter) {
+		Snapshot current = snapshot;
+		List<RoaringBitmap> positives = new ArrayList<>();
+		List<RoaringBitmap> negatives = new ArrayList<>();
+		for (List<CategoryFilter.Term> clause : filter.clauses()) {
+			if (clause.size() == 1 && clause.get(0).negated()) {
+				negatives.add(bitmap(current, clause.get(0).categoryId()));
+			} else {
+				positives.add(clause(current, clause));
+			}
+		}
+		positives.sort(Comparator.comparingInt(RoaringBitmap::getCardinality));
+
+		RoaringBitmap result = (positives.isEmpty()) ? current.all() : positives.get(0);
+		for (int i = 1; i < positives.size() && !result.isEmpty(); i++) {
+			result = RoaringBitmap.and(result, positives.get(i));
+		}
+		for (RoaringBitmap negative : negatives) {
+			result = RoaringBitmap.andNot(result, negative);
+		}
+
+		Map<Long, Long> facets = new HashMap<>();
+		for (Map.Entry<Long, RoaringBitmap> category : current.categories().entrySet()) {
+			long count = RoaringBitmap.andCardinality(result, category.getValue());
+			if (count > 0) {
+				facets.put(category.getKey(), count);
+			}
+		}
+		return new Result(result, facets);
+	}
+
+	private static RoaringBitmap clause(Snapshot current, List<CategoryFilter.Term> terms) {
+		RoaringBitmap union = new RoaringBitmap();
+		for (CategoryFilter.Term term : terms) {
+			RoaringBitmap bitmap = bitmap(current, term.categoryId());
+			union.or(term.negated() ? RoaringBitmap.andNot(current.all(), bitmap) : bitmap);
+		}
+		return union;
+	}
+
+	private static RoaringBitmap bitmap(Snapshot current, long categoryId) {
+		return current.categories().getOrDefault(categoryId, EMPTY);
+	}
+}
@@ -0,0 +1,271 @@
+package com.educandoweb.course.services.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * Índice invertido dos Products: para cada termo do nome e da descrição,
+ * a lista dos documentos em que ele aparece (Postings).
+ *
+ * Cada versão de um Product é um documento, com um número (doc) denso,
+ * atribuído em ordem crescente, assim as listas só crescem no fim.
+ * Alterar um Product marca o documento antigo como apagado e acrescenta
+ * um novo. As categories do Product também são termos (#c<id>), então o
+ * filtro por category é só mais uma lista na interseção.
+ *
+ * A busca é uma interseção (todos os termos precisam aparecer) que
+ * percorre a menor lista e avança as outras com advance, e os
+ * documentos encontrados são ordenados pela pontuação BM25, com os
+ * termos do nome valendo NAME_WEIGHT vezes os da descrição.
+ *
+ * As escritas são feitas uma por vez (synchronized), as buscas não usam
+ * lock: elas leem as Postings publicadas no mapa de termos, que são
+ * imutáveis, e os arrays dos documentos, que só crescem.
+ *
+ * A pontuação depende do índice inteiro (número de documentos, tamanho
+ * médio, idf), então cada escrita avança a geração do índice. A busca
+ * devolve a geração lida antes de começar, e a paginação só continua
+ * com a mesma geração (veja ProductService.search).
+ * */
+public class InvertedIndex {
+
+	public record Hit(long productId, double score) {
+	}
+
+	public record Result(long total, List<Hit> hits, long generation) {
+	}
+
+	/* maior pontuação primeiro, empate pelo menor id */
+	public static final Comparator<Hit> RANKING = Comparator.comparingDouble(Hit::score).reversed()
+			.thenComparingLong(Hit::productId);
+
+	static final int NAME_WEIGHT = 3;
+	private static final double K1 = 1.2;
+	private static final double B = 0.75;
+
+	private final Map<String, Postings> terms = new ConcurrentHashMap<>();
+
+	/* por documento: o id do Product e o tamanho (termos, com o peso do nome) */
+	private volatile long[] productIds = new long[1024];
+	private volatile int[] lengths = new int[1024];
+	private volatile AtomicLongArray deleted = new AtomicLongArray(16);
+	private volatile int docCount;
+	private volatile int liveCount;
+	private volatile long totalLength;
+
+	/* documento atual de cada Product, só usado pelas escritas */
+	private final Map<Long, Integer> docOf = new HashMap<>();
+
+	/* avança no fim de cada escrita, depois de as Postings serem publicadas */
+	private volatile long generation;
+
+	public InvertedIndex() {
+		this(0);
+	}
+
+	/* um índice montado de novo continua a partir da geração do anterior */
+	public InvertedIndex(long generation) {
+		this.generation = generation;
+	}
+
+	public long generation() {
+		return generation;
+	}
+
+	public static String categoryTerm(long categoryId) {
+		return "#c" + categoryId;
+	}
+
+	/* inclui ou substitui o Product */
+	public synchronized void put(long productId, String name, String description, long[] categoryIds) {
+		remove(productId);
+
+		Map<String, Integer> weights = new HashMap<>();
+		int length = 0;
+		for (String token : Tokenizer.tokens(name)) {
+			weights.merge(token, NAME_WEIGHT, Integer::sum);
+			length += NAME_WEIGHT;
+		}
+		for (String token : Tokenizer.tokens(description)) {
+			weights.merge(token, 1, Integer::sum);
+			length++;
+		}
+		for (long categoryId : categoryIds) {
+			weights.put(categoryTerm(categoryId), 0);
+		}
+
+		int doc = docCount;
+		ensureCapacity(doc + 1);
+		productIds[doc] = productId;
+		lengths[doc] = length;
+		docCount = doc + 1;
+		docOf.put(productId, doc);
+		liveCount++;
+		totalLength += length;
+
+		for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+			Postings postings = terms.get(entry.getKey());
+			terms.put(entry.getKey(), ((postings != null) ? postings : Postings.empty()).append(doc, entry.getValue()));
+		}
+		generation++;
+	}
+
+	public synchronized void remove(long productId) {
+		Integer doc = docOf.remove(productId);
+		if (doc != null) {
+			AtomicLongArray bits = deleted;
+			bits.getAndUpdate(doc >>> 6, word -> word | (1L << doc));
+			liveCount--;
+			totalLength -= lengths[doc];
+			generation++;
+		}
+	}
+
+	/* Products no índice */
+	public int size() {
+		return liveCount;
+	}
+
+	/* documentos apagados que ainda ocupam espaço nas listas */
+	public int deletedCount() {
+		return docCount - liveCount;
+	}
+
+	public int termCount() {
+		return terms.size();
+	}
+
+	public long sizeInBytes() {
+		long bytes = (long) productIds.length * 12 + deleted.length() * 8L;
+		for (Postings postings : terms.values()) {
+			bytes += postings.sizeInBytes();
+		}
+		return bytes;
+	}
+
+	/*
+	 * Busca os Products com todos os termos da consulta (e da category,
+	 * quando informada) e devolve até limit resultados, na ordem de
+	 * RANKING, depois de after (a última linha da página anterior).
+	 * total é o número de Products encontrados.
+	 * */
+	public Result search(String query, Long categoryId, int limit, Hit after) {
+		long searched = generation;
+		Result empty = new Result(0, List.of(), searched);
+		Set<String> tokens = Tokenizer.distinctTokens(query);
+		if (tokens.isEmpty()) {
+			return empty;
+		}
+
+		int live = liveCount;
+		double averageLength = (live == 0) ? 1.0 : Math.max(1.0, (double) totalLength / live);
+		List<Postings.Cursor> cursors = new ArrayList<>(tokens.size() + 1);
+		List<Double> idfs = new ArrayList<>(tokens.size() + 1);
+		for (String token : tokens) {
+			Postings postings = terms.get(token);
+			if (postings == null) {
+				return empty;
+			}
+			cursors.add(postings.cursor());
+			idfs.add(idf(postings.count(), live));
+		}
+		if (categoryId != null) {
+			Postings postings = terms.get(categoryTerm(categoryId));
+			if (postings == null) {
+				return empty;
+			}
+			cursors.add(postings.cursor());
+			idfs.add(0.0);
+		}
+
+		/* a menor lista conduz a interseção */
+		Integer[] order = new Integer[cursors.size()];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, Comparator.comparingInt(i -> cursors.get(i).count()));
+		Postings.Cursor[] sorted = new Postings.Cursor[order.length];
+		double[] idf = new double[order.length];
+		for (int i = 0; i < order.length; i++) {
+			sorted[i] = cursors.get(order[i]);
+			idf[i] = idfs.get(order[i]);
+		}
+
+		long[] ids = productIds;
+		int[] docLengths = lengths;
+		AtomicLongArray deletedDocs = deleted;
+		PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, RANKING.reversed());
+		long total = 0;
+
+		Postings.Cursor lead = sorted[0];
+		int doc = lead.nextDoc();
+		outer: while (doc != Postings.NO_MORE_DOCS) {
+			for (int i = 1; i < sorted.length; i++) {
+				int other = sorted[i].advance(doc);
+				if (other > doc) {
+					doc = lead.advance(other);
+					continue outer;
+				}
+			}
+			if ((deletedDocs.get(doc >>> 6) & (1L << doc)) == 0) {
+				total++;
+				double norm = K1 * (1 - B + B * docLengths[doc] / averageLength);
+				double score = 0;
+				for (int i = 0; i < sorted.length; i++) {
+					int weight = sorted[i].weight();
+					score += idf[i] * weight * (K1 + 1) / (weight + norm);
+				}
+				long productId = ids[doc];
+				if ((after == null || precedes(after, score, productId))
+						&& (top.size() < limit || precedes(score, productId, top.peek()))) {
+					top.add(new Hit(productId, score));
+					if (top.size() > limit) {
+						top.poll();
+					}
+				}
+			}
+			doc = lead.nextDoc();
+		}
+
+		List<Hit> hits = new ArrayList<>(top);
+		hits.sort(RANKING);
+		return new Result(total, hits, searched);
+	}
+
+	/* comparações do RANKING sem criar um Hit para cada documento */
+	private static boolean precedes(double score, long productId, Hit hit) {
+		return score > hit.score() || (score == hit.score() && productId < hit.productId());
+	}
+
+	private static boolean precedes(Hit hit, double score, long productId) {
+		return hit.score() > score || (hit.score() == score && hit.productId() < productId);
+	}
+
+	private static double idf(int documentFrequency, int documents) {
+		/* documentFrequency conta os documentos apagados, então pode passar de documents */
+		return Math.log(1 + (Math.max(0, documents - documentFrequency) + 0.5) / (documentFrequency + 0.5));
+	}
+
+	private void ensureCapacity(int docs) {
+		if (docs > productIds.length) {
+			int capacity = Math.max(docs, productIds.length * 2);
+			productIds = Arrays.copyOf(productIds, capacity);
+			lengths = Arrays.copyOf(lengths, capacity);
+		}
+		if ((docs + 63) / 64 > deleted.length()) {
+			AtomicLongArray bits = new AtomicLongArray(Math.max((docs + 63) / 64, deleted.length() * 2));
+			for (int i = 0; i < deleted.length(); i++) {
+				bits.set(i, deleted.get(i));
+			}
+			deleted = bits;
+		}
+	}
+}
@@ -0,0 +1,171 @@
+package com.educandoweb.course.services.search;
+
+import java.util.Arrays;
+
+/*
+ * Lista de ocorrências (posting list) de um termo: os documentos em que
+ * ele aparece, em ordem crescente, cada um com o seu peso (0 a 255).
+ *
+ * A lista é compacta: cada documento é gravado como a diferença para o
+ * anterior (delta) em varint, de 1 a 5 bytes, seguido de 1 byte de peso.
+ * A cada BLOCK documentos é guardado um ponto de salto (skip), com o
+ * documento e a posição em bytes, para que o cursor possa pular direto
+ * para o bloco de um documento (advance) sem decodificar a lista toda.
+ *
+ * Uma Postings é imutável para quem lê. O append só escreve depois de
+ * length, numa parte do array que nenhum leitor enxerga, e devolve uma
+ * nova Postings com o novo tamanho, o array só é copiado quando enche.
+ * Só pode haver um escritor por vez (veja InvertedIndex).
+ * */
+final class Postings {
+
+	static final int BLOCK = 64;
+	static final int NO_MORE_DOCS = Integer.MAX_VALUE;
+
+	private final byte[] data;
+	private final int length;
+	private final int count;
+	private final int lastDoc;
+
+	/* triplas (primeiro documento do bloco, documento anterior, posição em bytes) */
+	private final int[] skips;
+
+	private Postings(byte[] data, int length, int count, int lastDoc, int[] skips) {
+		this.data = data;
+		this.length = length;
+		this.count = count;
+		this.lastDoc = lastDoc;
+		this.skips = skips;
+	}
+
+	/* cada lista nova tem os seus próprios arrays, eles não podem ser compartilhados */
+	static Postings empty() {
+		return new Postings(new byte[16], 0, 0, -1, new int[6]);
+	}
+
+	int count() {
+		return count;
+	}
+
+	int lastDoc() {
+		return lastDoc;
+	}
+
+	/* bytes ocupados pela lista */
+	int sizeInBytes() {
+		return length + (count / BLOCK + 1) * 12;
+	}
+
+	/* doc precisa ser maior que lastDoc */
+	Postings append(int doc, int weight) {
+		byte[] bytes = data;
+		if (length + 6 > bytes.length) {
+			bytes = Arrays.copyOf(bytes, bytes.length * 2);
+		}
+		int[] skipTable = skips;
+		if (count % BLOCK == 0) {
+			int entry = (count / BLOCK) * 3;
+			if (entry + 3 > skipTable.length) {
+				skipTable = Arrays.copyOf(skipTable, skipTable.length * 2);
+			}
+			skipTable[entry] = doc;
+			skipTable[entry + 1] = lastDoc;
+			skipTable[entry + 2] = length;
+		}
+		int position = length;
+		int delta = doc - lastDoc;
+		while ((delta & ~0x7F) != 0) {
+			bytes[position++] = (byte) ((delta & 0x7F) | 0x80);
+			delta >>>= 7;
+		}
+		bytes[position++] = (byte) delta;
+		bytes[position++] = (byte) Math.min(255, weight);
+		return new Postings(bytes, position, count + 1, doc, skipTable);
+	}
+
+	Cursor cursor() {
+		return new Cursor(this);
+	}
+
+	/*
+	 * Percorre a lista em ordem: nextDoc() avança um documento e
+	 * advance(target) avança até o primeiro documento >= target. Os dois
+	 * devolvem NO_MORE_DOCS no fim da lista.
+	 * */
+	static final class Cursor {
+
+		private final Postings postings;
+		private int position;
+		private int index;
+		private int doc = -1;
+		private int weight;
+
+		private Cursor(Postings postings) {
+			this.postings = postings;
+		}
+
+		int doc() {
+			return doc;
+		}
+
+		int weight() {
+			return weight;
+		}
+
+		int count() {
+			return postings.count;
+		}
+
+		int nextDoc() {
+			if (index >= postings.count) {
+				return doc = NO_MORE_DOCS;
+			}
+			byte[] bytes = postings.data;
+			int delta = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = bytes[position++];
+				delta |= (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+			weight = bytes[position++] & 0xFF;
+			index++;
+			return doc += delta;
+		}
+
+		int advance(int target) {
+			if (doc >= target) {
+				return doc;
+			}
+			skipTo(target);
+			while (doc < target) {
+				nextDoc();
+			}
+			return doc;
+		}
+
+		/* pula para o último bloco que começa em um documento <= target */
+		private void skipTo(int target) {
+			int[] skips = postings.skips;
+			int blocks = (postings.count + BLOCK - 1) / BLOCK;
+			int current = index / BLOCK;
+			if (current + 1 >= blocks || skips[(current + 1) * 3] > target) {
+				return;
+			}
+			int low = current + 1;
+			int high = blocks - 1;
+			while (low < high) {
+				int mid = (low + high + 1) >>> 1;
+				if (skips[mid * 3] <= target) {
+					low = mid;
+				} else {
+					high = mid - 1;
+				}
+			}
+			doc = skips[low * 3 + 1];
+			position = skips[low * 3 + 2];
+			index = low * BLOCK;
+		}
+	}
+}
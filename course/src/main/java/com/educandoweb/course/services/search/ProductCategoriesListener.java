@@ -0,0 +1,61 @@
+package com.educandoweb.course.services.search;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.educandoweb.course.entities.Product;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+/*
+ * Quando só a coleção de categories de um Product muda, o Hibernate
+ * atualiza a tabela tb_product_category sem atualizar o Product, e os
+ * callbacks do JPA (ProductSearchListener) não são chamados. Este
+ * listener de eventos do Hibernate cobre esse caso, reindexando o
+ * Product dono da coleção depois do commit.
+ * */
+@Component
+public class ProductCategoriesListener implements PostCollectionUpdateEventListener,
+		PostCollectionRecreateEventListener {
+
+	private static final String ROLE = Product.class.getName() + ".categories";
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private ProductSearchIndex productSearchIndex;
+
+	@PostConstruct
+	void register() {
+		EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+				.getServiceRegistry().getService(EventListenerRegistry.class);
+		registry.appendListeners(EventType.POST_COLLECTION_UPDATE, this);
+		registry.appendListeners(EventType.POST_COLLECTION_RECREATE, this);
+	}
+
+	@Override
+	public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+		changed(event);
+	}
+
+	@Override
+	public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+		changed(event);
+	}
+
+	private void changed(AbstractCollectionEvent event) {
+		if (ROLE.equals(event.getCollection().getRole()) && event.getAffectedOwnerIdOrNull() instanceof Long id) {
+			productSearchIndex.reindexAfterCommit(id);
+		}
+	}
+}
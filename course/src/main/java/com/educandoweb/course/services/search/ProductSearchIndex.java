@@ -0,0 +1,163 @@
+package com.educandoweb.course.services.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.educandoweb.course.services.analytics.SalesAnalytics;
+import com.educandoweb.course.services.transaction.AfterCommit;
+
+/*
+ * Índice de busca dos Products (InvertedIndex), montado a partir do
+ * banco de dados na inicialização e atualizado depois de cada commit
+ * que altera um Product (ProductSearchListener).
+ *
+ * A atualização relê do banco de dados os Products alterados, já com o
+ * commit feito, em vez de usar as entidades da transação, assim o índice
+ * vê exatamente o que foi gravado, inclusive as categories.
+ *
+ * Cada versão de um Product ocupa um documento novo no índice, quando os
+ * documentos apagados passam dos vivos o índice é montado de novo.
+ *
+ * As mesmas leituras mantêm o CategoryIndex, os bitmaps das categories,
+ * e as categories usadas pelo SalesAnalytics.
+ * */
+@Component
+public class ProductSearchIndex implements SmartInitializingSingleton {
+
+	private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+	private static final int CHUNK = 1000;
+	private static final int MIN_DELETED_FOR_REBUILD = 1000;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private CategoryIndex categoryIndex;
+
+	@Autowired
+	private SalesAnalytics salesAnalytics;
+
+	private volatile InvertedIndex index = new InvertedIndex();
+	private volatile boolean built;
+
+	/*
+	 * O DataSeeder, quando ligado, grava os Products por JDBC e monta o
+	 * índice de novo no fim, então ele só é montado aqui se ainda não foi.
+	 * */
+	@Override
+	public void afterSingletonsInstantiated() {
+		if (!built) {
+			rebuild();
+		}
+	}
+
+	public InvertedIndex.Result search(String query, Long categoryId, int limit, InvertedIndex.Hit after) {
+		return index.search(query, categoryId, limit, after);
+	}
+
+	public InvertedIndex getIndex() {
+		return index;
+	}
+
+	/* monta um índice novo com todos os Products e troca o atual por ele */
+	public synchronized void rebuild() {
+		long start = System.nanoTime();
+		InvertedIndex fresh = new InvertedIndex(index.generation() + 1);
+		CategoryIndex.Builder categories = new CategoryIndex.Builder();
+
+		/* pares (product, category) ordenados por product, lidos junto com os Products */
+		long[][] pairs = { new long[1024], new long[1024] };
+		int[] pairCount = { 0 };
+		jdbcTemplate.query("SELECT product_id, category_id FROM tb_product_category ORDER BY product_id, category_id",
+				rs -> {
+					int n = pairCount[0];
+					if (n == pairs[0].length) {
+						pairs[0] = Arrays.copyOf(pairs[0], n * 2);
+						pairs[1] = Arrays.copyOf(pairs[1], n * 2);
+					}
+					pairs[0][n] = rs.getLong(1);
+					pairs[1][n] = rs.getLong(2);
+					pairCount[0] = n + 1;
+				});
+
+		int[] next = { 0 };
+		jdbcTemplate.query("SELECT id, name, description FROM tb_product ORDER BY id", rs -> {
+			long id = rs.getLong(1);
+			while (next[0] < pairCount[0] && pairs[0][next[0]] < id) {
+				next[0]++;
+			}
+			int from = next[0];
+			while (next[0] < pairCount[0] && pairs[0][next[0]] == id) {
+				next[0]++;
+			}
+			long[] categoryIds = Arrays.copyOfRange(pairs[1], from, next[0]);
+			fresh.put(id, rs.getString(2), rs.getString(3), categoryIds);
+			categories.add(id, categoryIds);
+		});
+
+		index = fresh;
+		categoryIndex.replace(categories);
+		built = true;
+		log.info("Indexed {} products ({} terms, {} KB) in {} ms", fresh.size(), fresh.termCount(),
+				fresh.sizeInBytes() / 1024, (System.nanoTime() - start) / 1_000_000);
+	}
+
+	/*
+	 * Reindexa os Products quando a transação atual for confirmada
+	 * (commit), veja AfterCommit. Fora de uma transação a reindexação é
+	 * imediata.
+	 * */
+	public void reindexAfterCommit(Long productId) {
+		AfterCommit.collectId(this, productId, this::reindex);
+	}
+
+	public synchronized void reindex(Collection<Long> productIds) {
+		List<Long> ids = new ArrayList<>(productIds);
+		for (int from = 0; from < ids.size(); from += CHUNK) {
+			reindexChunk(ids.subList(from, Math.min(ids.size(), from + CHUNK)));
+		}
+		InvertedIndex current = index;
+		if (current.deletedCount() > Math.max(MIN_DELETED_FOR_REBUILD, current.size())) {
+			rebuild();
+		}
+	}
+
+	private void reindexChunk(List<Long> ids) {
+		String in = String.join(",", ids.stream().map(String::valueOf).toList());
+		Map<Long, List<Long>> categories = new HashMap<>();
+		jdbcTemplate.query("SELECT product_id, category_id FROM tb_product_category WHERE product_id IN (" + in + ")",
+				rs -> {
+					categories.computeIfAbsent(rs.getLong(1), id -> new ArrayList<>()).add(rs.getLong(2));
+				});
+
+		/* categories de cada Product encontrado, null para os apagados */
+		Map<Long, long[]> found = new HashMap<>();
+		InvertedIndex current = index;
+		jdbcTemplate.query("SELECT id, name, description FROM tb_product WHERE id IN (" + in + ")", rs -> {
+			long id = rs.getLong(1);
+			long[] categoryIds = categories.getOrDefault(id, List.of()).stream().mapToLong(Long::longValue).toArray();
+			found.put(id, categoryIds);
+			current.put(id, rs.getString(2), rs.getString(3), categoryIds);
+		});
+		for (Long id : ids) {
+			if (!found.containsKey(id)) {
+				current.remove(id);
+				found.put(id, null);
+			}
+		}
+		categoryIndex.update(found);
+		salesAnalytics.updateProductCategories(found);
+	}
+}
@@ -0,0 +1,35 @@
+package com.educandoweb.course.services.search;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.educandoweb.course.entities.Product;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/*
+ * Entity listener que reindexa o Product no ProductSearchIndex depois do
+ * commit de qualquer escrita feita pelo EntityManager. Mudanças só na
+ * coleção de categories são cobertas pelo ProductCategoriesListener.
+ *
+ * Escritas por JDBC (DataSeeder) precisam chamar rebuild ou reindex
+ * diretamente.
+ *
+ * O listener é criado junto com o EntityManagerFactory, antes do
+ * JdbcTemplate usado pelo ProductSearchIndex, por isso o índice só é
+ * buscado (ObjectProvider) na primeira escrita.
+ * */
+public class ProductSearchListener {
+
+	@Autowired
+	private ObjectProvider<ProductSearchIndex> productSearchIndex;
+
+	@PostPersist
+	@PostUpdate
+	@PostRemove
+	public void changed(Product product) {
+		productSearchIndex.getObject().reindexAfterCommit(product.getId());
+	}
+}
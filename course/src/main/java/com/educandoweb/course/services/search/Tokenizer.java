@@ -0,0 +1,58 @@
+package com.educandoweb.course.services.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/*
+ * Quebra um texto em termos para o índice de busca: letras e dígitos,
+ * em minúsculas e sem acentos ("Café" e "cafe" são o mesmo termo).
+ * Termos de uma única letra são descartados.
+ * */
+public final class Tokenizer {
+
+	private Tokenizer() {
+	}
+
+	public static List<String> tokens(String text) {
+		List<String> tokens = new ArrayList<>();
+		if (text == null || text.isEmpty()) {
+			return tokens;
+		}
+		String normalized = normalize(text);
+		int start = -1;
+		for (int i = 0; i <= normalized.length(); i++) {
+			boolean word = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+			if (word && start < 0) {
+				start = i;
+			} else if (!word && start >= 0) {
+				if (i - start > 1 || Character.isDigit(normalized.charAt(start))) {
+					tokens.add(normalized.substring(start, i));
+				}
+				start = -1;
+			}
+		}
+		return tokens;
+	}
+
+	/* os termos de uma consulta, sem repetição, na ordem em que aparecem */
+	public static Set<String> distinctTokens(String text) {
+		return new LinkedHashSet<>(tokens(text));
+	}
+
+	/* só paga o Normalizer quando o texto tem algum caractere não ASCII */
+	private static String normalize(String text) {
+		boolean ascii = true;
+		for (int i = 0; i < text.length() && ascii; i++) {
+			ascii = text.charAt(i) < 0x80;
+		}
+		String lower = text.toLowerCase(Locale.ROOT);
+		if (ascii) {
+			return lower;
+		}
+		return Normalizer.normalize(lower, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+	}
+}
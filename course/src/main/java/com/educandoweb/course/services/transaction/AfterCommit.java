@@ -0,0 +1,64 @@
+package com.educandoweb.course.services.transaction;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/*
+ * Mudanças aplicadas depois do commit da transação atual (índice de
+ * busca, agregados, cache de respostas): antes do commit as outras
+ * transações ainda leem os dados antigos, e num rollback nada muda.
+ *
+ * As mudanças de uma transação são acumuladas num único objeto (por
+ * exemplo um Set de ids) ligado à transação com a chave owner, assim
+ * uma transação que grava milhares de entidades (inserção em lote)
+ * registra uma única sincronização. Fora de uma transação a mudança é
+ * aplicada na hora.
+ * */
+public final class AfterCommit {
+
+	private AfterCommit() {
+	}
+
+	/*
+	 * create cria o objeto das mudanças da transação, change acrescenta
+	 * uma mudança a ele e apply aplica todas depois do commit.
+	 * */
+	public static <T> void collect(Object owner, Supplier<T> create, Consumer<T> change, Consumer<T> apply) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			T pending = create.get();
+			change.accept(pending);
+			apply.accept(pending);
+			return;
+		}
+		@SuppressWarnings("unchecked")
+		T pending = (T) TransactionSynchronizationManager.getResource(owner);
+		if (pending == null) {
+			T transactionPending = create.get();
+			TransactionSynchronizationManager.bindResource(owner, transactionPending);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					apply.accept(transactionPending);
+				}
+
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(owner);
+				}
+			});
+			pending = transactionPending;
+		}
+		change.accept(pending);
+	}
+
+	/* o caso mais comum: os ids das entidades alteradas na transação */
+	public static void collectId(Object owner, Long id, Consumer<Collection<Long>> apply) {
+		AfterCommit.<Set<Long>>collect(owner, HashSet::new, ids -> ids.add(id), apply::accept);
+	}
+}
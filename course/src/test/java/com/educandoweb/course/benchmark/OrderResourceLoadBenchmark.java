@@ -0,0 +1,148 @@
+package com.educandoweb.course.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.educandoweb.course.entities.Order;
+import com.educandoweb.course.entities.OrderItem;
+import com.educandoweb.course.entities.Product;
+import com.educandoweb.course.entities.User;
+import com.educandoweb.course.entities.enums.OrderStatus;
+
+import jakarta.persistence.EntityManager;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/*
+ * Teste de carga com um pool de apenas 2 conexões.
+ *
+ * O SlowNetworkConfig simula uma rede lenta: cada requisição leva mais
+ * NETWORK_DELAY_MS depois que o controller termina. Se a conexão ficasse
+ * presa durante a requisição inteira (open-in-view ligado), a vazão nunca
+ * passaria de POOL_SIZE / NETWORK_DELAY_MS. Como o open-in-view está
+ * desligado, a conexão volta ao pool no fim da transação do service e
+ * a vazão passa desse limite.
+ *
+ * A vazão (requisições por segundo) vai para o log, para comparar rode
+ * o teste com spring.jpa.open-in-view=true. Como ele mede tempo de
+ * relógio, só roda no profile benchmark:
+ *
+ *   mvn test -Pbenchmark -Dtest=OrderResourceLoadBenchmark
+ * */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"spring.jpa.open-in-view=false",
+		"spring.jpa.show-sql=false",
+		"spring.datasource.hikari.maximum-pool-size=2",
+		"spring.datasource.hikari.connection-timeout=30000" })
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Tag("benchmark")
+class OrderResourceLoadBenchmark {
+
+	private static final Logger log = LoggerFactory.getLogger(OrderResourceLoadBenchmark.class);
+
+	private static final int POOL_SIZE = 2;
+	private static final long NETWORK_DELAY_MS = 50;
+	private static final int ORDERS = 300;
+	private static final int CLIENTS = 48;
+	private static final int REQUESTS_PER_CLIENT = 10;
+
+	@TestConfiguration
+	static class SlowNetworkConfig implements WebMvcConfigurer {
+
+		@Override
+		public void addInterceptors(InterceptorRegistry registry) {
+			registry.addInterceptor(new HandlerInterceptor() {
+				@Override
+				public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+						ModelAndView modelAndView) throws Exception {
+					Thread.sleep(NETWORK_DELAY_MS);
+				}
+			});
+		}
+	}
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@BeforeAll
+	void seed() {
+		transactionTemplate.executeWithoutResult(status -> {
+			User client = new User(null, "Load Client", "load@gmail.com", "999999999", "123456");
+			entityManager.persist(client);
+			for (int i = 0; i < ORDERS; i++) {
+				Product product = new Product(null, "Product " + i, "Lorem ipsum dolor sit amet.", 10.0 + i, "");
+				entityManager.persist(product);
+				Order order = new Order(null, Instant.parse("2021-01-01T00:00:00Z").plusSeconds(i), OrderStatus.PAID, client);
+				entityManager.persist(order);
+				entityManager.persist(new OrderItem(order, product, 2, product.getPrice()));
+			}
+		});
+	}
+
+	@Test
+	void concurrentClientsAreServedWithSmallPool() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+		try {
+			List<Future<Integer>> results = new ArrayList<>();
+			long start = System.nanoTime();
+			for (int c = 0; c < CLIENTS; c++) {
+				results.add(executor.submit(() -> {
+					int failures = 0;
+					for (int r = 0; r < REQUESTS_PER_CLIENT; r++) {
+						ResponseEntity<String> response = restTemplate.getForEntity("/orders?size=10", String.class);
+						if (!response.getStatusCode().is2xxSuccessful()) {
+							failures++;
+						}
+					}
+					return failures;
+				}));
+			}
+
+			int failures = 0;
+			for (Future<Integer> result : results) {
+				failures += result.get();
+			}
+			double seconds = (System.nanoTime() - start) / 1e9;
+			int total = CLIENTS * REQUESTS_PER_CLIENT;
+			double throughput = total / seconds;
+			double heldConnectionLimit = POOL_SIZE * 1000.0 / NETWORK_DELAY_MS;
+			log.info(String.format("GET /orders: %d requests in %.2f s (%.1f req/s, limit with held connections %.1f req/s)",
+					total, seconds, throughput, heldConnectionLimit));
+
+			assertEquals(0, failures);
+			assertTrue(throughput > heldConnectionLimit, "throughput: " + throughput);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,181 @@
+package com.educandoweb.course.benchmark;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.educandoweb.course.CourseApplication;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/*
+ * Compara o servidor com o pool de threads da plataforma (Tomcat, 200
+ * threads) e com virtual threads, com CLIENTS clientes simultâneos, cada
+ * um fazendo REQUESTS_PER_CLIENT requisições GET /users/{id} em sequência.
+ *
+ * O SlowDownstreamConfig faz cada requisição esperar DOWNSTREAM_DELAY_MS
+ * depois da consulta ao banco de dados, como uma chamada a outro serviço.
+ * Com o pool da plataforma cada espera prende uma das 200 threads, com
+ * virtual threads a espera não prende nada e o limite passa a ser o
+ * banco de dados (as licenças do JdbcPermitDataSource).
+ *
+ * O modo virtual threads só roda em Java 21 ou mais novo:
+ *
+ *   mvn test -Pjava21,benchmark -Dtest=VirtualThreadsBenchmark
+ * */
+@Tag("benchmark")
+class VirtualThreadsBenchmark {
+
+	private static final Logger log = LoggerFactory.getLogger(VirtualThreadsBenchmark.class);
+
+	private static final int CLIENTS = Integer.getInteger("benchmark.clients", 5000);
+	private static final int REQUESTS_PER_CLIENT = Integer.getInteger("benchmark.requests", 4);
+	private static final long DOWNSTREAM_DELAY_MS = 50;
+	private static final int USERS = 1000;
+	private static final int CLIENT_THREADS = 2;
+
+	@TestConfiguration
+	static class SlowDownstreamConfig implements WebMvcConfigurer {
+
+		@Override
+		public void addInterceptors(InterceptorRegistry registry) {
+			registry.addInterceptor(new HandlerInterceptor() {
+				@Override
+				public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+						ModelAndView modelAndView) throws Exception {
+					Thread.sleep(DOWNSTREAM_DELAY_MS);
+				}
+			});
+		}
+	}
+
+	@Test
+	void platformThreads() throws Exception {
+		run(false);
+	}
+
+	@Test
+	void virtualThreads() throws Exception {
+		assumeTrue(Runtime.version().feature() >= 21, "virtual threads need Java 21");
+		run(true);
+	}
+
+	private void run(boolean virtual) throws Exception {
+		String mode = virtual ? "virtual" : "platform";
+
+		/*
+		 * O cliente usa poucas threads, senão as threads dele disputam a CPU
+		 * com as carrier threads das virtual threads do servidor.
+		 * */
+		ExecutorService clientExecutor = Executors.newFixedThreadPool(CLIENT_THREADS);
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(CourseApplication.class,
+				SlowDownstreamConfig.class).run(
+						"--server.port=0",
+						"--server.tomcat.accept-count=" + CLIENTS,
+						"--spring.threads.virtual.enabled=" + virtual,
+						"--spring.datasource.url=jdbc:h2:mem:" + mode,
+						"--spring.jpa.show-sql=false",
+						"--spring.h2.console.enabled=false",
+						"--logging.level.root=warn",
+						"--course.seed.enabled=true",
+						"--course.seed.users=" + USERS,
+						"--course.seed.orders=1000")) {
+			int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+			HttpClient client = HttpClient.newBuilder()
+					.executor(clientExecutor)
+					.connectTimeout(Duration.ofSeconds(30))
+					.build();
+
+			/*
+			 * A primeira rodada só aquece o JIT e não é medida, sem ela o modo
+			 * que roda primeiro fica em desvantagem.
+			 * */
+			load(client, port, CLIENTS, new ConcurrentLinkedQueue<>(), new AtomicInteger());
+
+			ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+			threads.resetPeakThreadCount();
+			ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+			AtomicInteger errors = new AtomicInteger();
+
+			long start = System.nanoTime();
+			load(client, port, CLIENTS, latencies, errors);
+			double seconds = (System.nanoTime() - start) / 1e9;
+
+			long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+			int total = CLIENTS * REQUESTS_PER_CLIENT;
+			log.info(String.format("%s threads: %d clients, %d requests in %.2f s = %.0f req/s, "
+					+ "p50 %d ms, p99 %d ms, max %d ms, %d errors, peak %d platform threads",
+					mode, CLIENTS, total, seconds, total / seconds, percentile(sorted, 0.50),
+					percentile(sorted, 0.99), sorted.length == 0 ? 0 : sorted[sorted.length - 1],
+					errors.get(), threads.getPeakThreadCount()));
+		} finally {
+			clientExecutor.shutdownNow();
+		}
+	}
+
+	private void load(HttpClient client, int port, int clients, ConcurrentLinkedQueue<Long> latencies,
+			AtomicInteger errors) {
+		List<CompletableFuture<Void>> futures = new ArrayList<>(clients);
+		for (int c = 0; c < clients; c++) {
+			futures.add(request(client, port, new SplittableRandom(c), REQUESTS_PER_CLIENT, latencies, errors));
+		}
+		CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+	}
+
+	/* as requisições de um cliente são feitas uma depois da outra */
+	private CompletableFuture<Void> request(HttpClient client, int port, SplittableRandom random, int remaining,
+			ConcurrentLinkedQueue<Long> latencies, AtomicInteger errors) {
+		if (remaining == 0) {
+			return CompletableFuture.completedFuture(null);
+		}
+		HttpRequest request = HttpRequest.newBuilder(
+				URI.create("http://localhost:" + port + "/users/" + (1 + random.nextInt(USERS))))
+				.timeout(Duration.ofSeconds(60))
+				.build();
+		long start = System.nanoTime();
+		return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+				.handle((response, failure) -> {
+					latencies.add((System.nanoTime() - start) / 1_000_000);
+					if (failure != null || response.statusCode() != 200) {
+						errors.incrementAndGet();
+					}
+					return null;
+				})
+				.thenCompose(ignored -> request(client, port, random, remaining - 1, latencies, errors));
+	}
+
+	private static long percentile(long[] sorted, double p) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+	}
+}
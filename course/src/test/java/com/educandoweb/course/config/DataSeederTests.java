@@ -0,0 +1,84 @@
+package com.educandoweb.course.config;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.educandoweb.course.entities.User;
+import com.educandoweb.course.services.UserService;
+
+/*
+ * Garante que o DataSeeder grava os tamanhos pedidos, que o total de
+ * cada Order bate com os seus items, que a geração é determinística e
+ * que as sequences continuam depois dos ids gravados.
+ * */
+@SpringBootTest(properties = {
+		"course.seed.enabled=true",
+		"course.seed.users=50",
+		"course.seed.categories=5",
+		"course.seed.products=200",
+		"course.seed.orders=2000",
+		"course.seed.batch-size=300",
+		"course.seed.threads=3",
+		"spring.datasource.url=jdbc:h2:mem:seed",
+		"spring.jpa.show-sql=false" })
+class DataSeederTests {
+
+	@Autowired
+	private DataSeeder dataSeeder;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private UserService userService;
+
+	@Test
+	void seedsRequestedSizes() {
+		assertEquals(50, count("tb_user"));
+		assertEquals(5, count("tb_category"));
+		assertEquals(200, count("tb_product"));
+		assertEquals(2000, count("tb_order"));
+		assertEquals(0, (long) jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_order o "
+				+ "WHERE o.total <> (SELECT ROUND(SUM(i.price * i.quantity), 2) FROM tb_order_item i "
+				+ "WHERE i.order_id = o.id)",
+				Long.class));
+	}
+
+	@Test
+	void generationIsDeterministic() {
+		double[] prices = dataSeeder.generatePrices();
+		assertArrayEquals(prices, dataSeeder.generatePrices());
+
+		DataSeeder.Block first = dataSeeder.generateBlock(3, prices);
+		DataSeeder.Block second = dataSeeder.generateBlock(3, prices);
+		assertRowsEqual(first.orders(), second.orders());
+		assertRowsEqual(first.items(), second.items());
+		assertRowsEqual(first.payments(), second.payments());
+	}
+
+	@Test
+	void sequencesContinueAfterSeededIds() {
+		User user = userService.insert(new User(null, "New User", "new@gmail.com", "999999999", "123456"));
+		assertNotNull(user.getId());
+		assertEquals(true, user.getId() > 50);
+	}
+
+	private long count(String table) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+	}
+
+	private static void assertRowsEqual(List<Object[]> expected, List<Object[]> actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertArrayEquals(expected.get(i), actual.get(i));
+		}
+	}
+}
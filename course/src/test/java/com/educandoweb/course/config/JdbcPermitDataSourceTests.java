@@ -0,0 +1,40 @@
+package com.educandoweb.course.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import org.h2.Driver;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+class JdbcPermitDataSourceTests {
+
+	private final JdbcPermitDataSource dataSource = new JdbcPermitDataSource(
+			new SimpleDriverDataSource(new Driver(), "jdbc:h2:mem:permits", "sa", ""), 2, Duration.ofMillis(50));
+
+	@Test
+	void connectionTakesPermitUntilClosedOnce() throws Exception {
+		Connection first = dataSource.getConnection();
+		Connection second = dataSource.getConnection();
+		assertEquals(0, dataSource.getAvailablePermits());
+
+		first.close();
+		first.close();
+		assertEquals(1, dataSource.getAvailablePermits());
+
+		second.close();
+		assertEquals(2, dataSource.getAvailablePermits());
+	}
+
+	@Test
+	void getConnectionFailsWhenNoPermitIsReleasedInTime() throws Exception {
+		try (Connection first = dataSource.getConnection(); Connection second = dataSource.getConnection()) {
+			assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+		}
+		assertEquals(2, dataSource.getAvailablePermits());
+	}
+}
@@ -0,0 +1,48 @@
+package com.educandoweb.course.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+
+import com.educandoweb.course.entities.enums.OrderStatus;
+
+class OrderTests {
+
+	private final Order order = new Order(1L, Instant.parse("2019-06-20T19:53:07Z"), OrderStatus.PAID, null);
+	private final Product book = new Product(1L, "The Lord of the Rings", "", 90.5, "");
+	private final Product tv = new Product(2L, "Smart TV", "", 2190.0, "");
+
+	@Test
+	void totalFollowsItemsAddedChangedAndRemoved() {
+		OrderItem books = new OrderItem(order, book, 2, book.getPrice());
+		OrderItem tvs = new OrderItem(order, tv, 1, tv.getPrice());
+		assertEquals(new BigDecimal("2371.00"), order.getTotal());
+
+		books.setQuantity(3);
+		tvs.setPrice(2000.0);
+		assertEquals(new BigDecimal("2271.50"), order.getTotal());
+
+		order.removeItem(tvs);
+		assertEquals(new BigDecimal("271.50"), order.getTotal());
+	}
+
+	@Test
+	void recalculateTotalMatchesIncrementalTotal() {
+		new OrderItem(order, book, 2, 0.1);
+		new OrderItem(order, tv, 3, 0.2);
+		BigDecimal incremental = order.getTotal();
+
+		order.recalculateTotal();
+		assertEquals(incremental, order.getTotal());
+		assertEquals(new BigDecimal("0.80"), order.getTotal());
+	}
+
+	@Test
+	void statusIsRequired() {
+		assertThrows(IllegalArgumentException.class, () -> new Order(null, Instant.now(), null, null));
+	}
+}
@@ -0,0 +1,122 @@
+package com.educandoweb.course.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.educandoweb.course.entities.Category;
+import com.educandoweb.course.entities.Order;
+import com.educandoweb.course.entities.OrderItem;
+import com.educandoweb.course.entities.Payment;
+import com.educandoweb.course.entities.Product;
+import com.educandoweb.course.entities.User;
+import com.educandoweb.course.entities.enums.OrderStatus;
+import com.educandoweb.course.services.OrderService;
+import com.educandoweb.course.services.pagination.Cursor;
+import com.educandoweb.course.services.pagination.KeysetPage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManager;
+
+/*
+ * Garante que serializar uma página de Orders (com items, products,
+ * categories, payment e client) custa um número fixo de consultas,
+ * independente do tamanho da página (sem o problema N+1).
+ *
+ * As páginas começam logo antes do primeiro Order inserido aqui (AFTER),
+ * assim elas não dependem dos Orders do TestConfig nem dos outros testes.
+ * */
+@SpringBootTest(properties = {
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn" })
+@Transactional
+class OrderRepositoryTests {
+
+	private static final int ORDERS = 40;
+
+	private static final Instant START = Instant.parse("2020-01-01T00:00:00Z");
+	private static final String AFTER = Cursor.encode(START.minusSeconds(1), 0L);
+
+	/* consulta da página + items + products + categories */
+	private static final long MAX_STATEMENTS = 4;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private final List<Long> orderIds = new ArrayList<>();
+
+	@BeforeEach
+	void seed() {
+		Category category = new Category(null, "Games");
+		entityManager.persist(category);
+
+		for (int i = 0; i < ORDERS; i++) {
+			User client = new User(null, "Client " + i, "client" + i + "@gmail.com", "999999999", "123456");
+			entityManager.persist(client);
+
+			Product product = new Product(null, "Product " + i, "Lorem ipsum.", 10.0 + i, "");
+			product.getCategories().add(category);
+			entityManager.persist(product);
+
+			Order order = new Order(null, START.plusSeconds(i), OrderStatus.PAID, client);
+			entityManager.persist(order);
+			orderIds.add(order.getId());
+			entityManager.persist(new OrderItem(order, product, 1 + i % 3, product.getPrice()));
+
+			Payment payment = new Payment(null, order.getMoment(), order);
+			order.setPayment(payment);
+			entityManager.persist(payment);
+		}
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	@Test
+	void findPageLoadsOrderGraphInBoundedStatements() throws Exception {
+		Statistics statistics = entityManager.getEntityManagerFactory()
+				.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		KeysetPage<Order> page = orderService.findPage(AFTER, KeysetPage.MAX_SIZE);
+		String json = objectMapper.writeValueAsString(page);
+
+		assertEquals(orderIds, page.content().stream().limit(ORDERS).map(Order::getId).toList());
+		assertTrue(json.contains("\"items\":[{"));
+		assertTrue(statistics.getPrepareStatementCount() <= MAX_STATEMENTS,
+				"statements: " + statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void findPageStatementCountDoesNotGrowWithPageSize() throws Exception {
+		Statistics statistics = entityManager.getEntityManagerFactory()
+				.unwrap(SessionFactory.class).getStatistics();
+
+		statistics.clear();
+		objectMapper.writeValueAsString(orderService.findPage(AFTER, 5));
+		long smallPage = statistics.getPrepareStatementCount();
+
+		entityManager.clear();
+		statistics.clear();
+		objectMapper.writeValueAsString(orderService.findPage(AFTER, KeysetPage.MAX_SIZE));
+		long largePage = statistics.getPrepareStatementCount();
+
+		assertEquals(smallPage, largePage);
+	}
+}
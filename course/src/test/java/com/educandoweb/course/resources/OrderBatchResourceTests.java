@@ -0,0 +1,183 @@
+package com.educandoweb.course.resources;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.educandoweb.course.dto.BatchItemResult;
+import com.educandoweb.course.dto.BatchItemResult.Status;
+import com.educandoweb.course.dto.BatchResult;
+import com.educandoweb.course.dto.OrderInsertDTO;
+import com.educandoweb.course.dto.OrderItemInsertDTO;
+import com.educandoweb.course.dto.PaymentInsertDTO;
+import com.educandoweb.course.entities.Product;
+import com.educandoweb.course.entities.User;
+import com.educandoweb.course.entities.enums.OrderStatus;
+import com.educandoweb.course.services.jdbc.SlowQuery;
+import com.educandoweb.course.services.jdbc.SlowQueryLog;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/*
+ * POST /orders/batch com blocos de CHUNK Orders: os registros inválidos
+ * falham sozinhos, um bloco recusado pelo banco de dados é gravado de
+ * novo Order a Order, os resultados vêm na ordem enviada e cada Order
+ * custa só inserts (o total é gravado junto com ele), com os eventos do
+ * outbox de cada bloco num único batch.
+ * */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"course.batch.chunk-size=" + OrderBatchResourceTests.CHUNK, "course.slow-query.threshold=0ms" })
+class OrderBatchResourceTests {
+
+	static final int CHUNK = 2;
+
+	/* passa na validação, mas o total não cabe em numeric(19, 2) e o banco de dados recusa o insert */
+	private static final double OVERFLOW_PRICE = 1e20;
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private SlowQueryLog slowQueryLog;
+
+	private Long clientId;
+	private Long productId;
+	private final List<Long> orderIds = new ArrayList<>();
+
+	@BeforeEach
+	void seed() {
+		transactionTemplate.executeWithoutResult(status -> {
+			User client = new User(null, "Batch Client", "batch@gmail.com", "999999999", "123456");
+			entityManager.persist(client);
+			Product product = new Product(null, "Batch Product", "Lorem ipsum.", 12.5, "");
+			entityManager.persist(product);
+			clientId = client.getId();
+			productId = product.getId();
+		});
+	}
+
+	@AfterEach
+	void cleanUp() {
+		for (Long id : orderIds) {
+			jdbcTemplate.update("DELETE FROM tb_payment WHERE order_id = ?", id);
+			jdbcTemplate.update("DELETE FROM tb_order_item WHERE order_id = ?", id);
+			jdbcTemplate.update("DELETE FROM tb_order WHERE id = ?", id);
+		}
+		jdbcTemplate.update("DELETE FROM tb_product WHERE id = ?", productId);
+		jdbcTemplate.update("DELETE FROM tb_user WHERE id = ?", clientId);
+	}
+
+	@Test
+	void invalidOrdersFailAloneAndResultsKeepRequestOrder() {
+		BatchResult result = insert(List.of(
+				order(2, null),
+				new OrderInsertDTO(null, null, 999_999L, List.of(new OrderItemInsertDTO(productId, 1, null)), null),
+				order(3, 10.0),
+				new OrderInsertDTO(null, null, clientId, List.of(), null),
+				order(1, null)));
+
+		assertEquals(3, result.created());
+		assertEquals(2, result.failed());
+		assertEquals(IntStream.range(0, 5).boxed().toList(), result.results().stream().map(BatchItemResult::index).toList());
+		assertEquals(List.of(Status.CREATED, Status.FAILED, Status.CREATED, Status.FAILED, Status.CREATED),
+				result.results().stream().map(BatchItemResult::status).toList());
+		assertEquals(new BigDecimal("25.00"), total(result.results().get(0).id()));
+		assertEquals(new BigDecimal("30.00"), total(result.results().get(2).id()));
+		assertEquals(1, payments(result.results().get(0).id()));
+	}
+
+	@Test
+	void chunkRejectedByTheDatabaseIsRetriedOrderByOrder() {
+		BatchResult result = insert(List.of(order(1, null), order(1, OVERFLOW_PRICE), order(2, null), order(3, null)));
+
+		assertEquals(List.of(Status.CREATED, Status.FAILED, Status.CREATED, Status.CREATED),
+				result.results().stream().map(BatchItemResult::status).toList());
+		assertNull(result.results().get(1).id());
+		assertNotNull(result.results().get(1).error());
+		assertEquals(new BigDecimal("12.50"), total(result.results().get(0).id()));
+		assertEquals(new BigDecimal("37.50"), total(result.results().get(3).id()));
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_order_item WHERE order_id IN "
+				+ "(SELECT id FROM tb_order WHERE client_id = ?) AND price = ?", Integer.class, clientId, OVERFLOW_PRICE));
+	}
+
+	@Test
+	void ordersAreInsertedWithoutFollowUpUpdates() {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		BatchResult result = insert(List.of(order(1, null), order(2, null), order(3, null)));
+
+		assertEquals(3, result.created());
+		assertEquals(0, statistics.getEntityUpdateCount());
+		assertEquals(3 * 3, statistics.getEntityInsertCount());
+	}
+
+	@Test
+	void outboxEventsOfAChunkAreInsertedInOneBatch() {
+		long before = slowQueryLog.getRecorded();
+
+		insert(List.of(order(1, null), order(2, null), order(3, null)));
+
+		/* um Order e um Payment CREATED por Order, um batch por bloco de CHUNK Orders */
+		List<Integer> batches = slowQueryLog.snapshot(slowQueryLog.getCapacity(), Duration.ZERO).stream()
+				.filter(query -> query.sequence() >= before
+						&& query.sql().toLowerCase().startsWith("insert into tb_outbox"))
+				.map(SlowQuery::batchSize).sorted().toList();
+		assertEquals(List.of(2, 2 * CHUNK), batches);
+	}
+
+	/* Order do client com um item de quantity unidades do product e um payment */
+	private OrderInsertDTO order(int quantity, Double price) {
+		return new OrderInsertDTO(null, OrderStatus.PAID, clientId,
+				List.of(new OrderItemInsertDTO(productId, quantity, price)), new PaymentInsertDTO(null));
+	}
+
+	private BatchResult insert(List<OrderInsertDTO> orders) {
+		ResponseEntity<BatchResult> response = restTemplate.postForEntity("/orders/batch", orders, BatchResult.class);
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		response.getBody().results().stream()
+				.filter(r -> r.id() != null)
+				.forEach(r -> orderIds.add(r.id()));
+		return response.getBody();
+	}
+
+	private BigDecimal total(Long id) {
+		return jdbcTemplate.queryForObject("SELECT total FROM tb_order WHERE id = ?", BigDecimal.class, id);
+	}
+
+	private int payments(Long id) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_payment WHERE order_id = ?", Integer.class, id);
+	}
+}
@@ -0,0 +1,114 @@
+package com.educandoweb.course.resources;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.time.Instant;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.educandoweb.course.dto.OrderTransitionDTO;
+import com.educandoweb.course.entities.Order;
+
+import com.educandoweb.course.entities.User;
+import com.educandoweb.course.entities.enums.OrderStatus;
+import com.educandoweb.course.services.UserService;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/*
+ * Garante que GET /orders/{id} devolve 304 para um If-None-Match igual
+ * ao ETag sem consultar o banco de dados, e que uma escrita que altera
+ * a resposta (o client do Order) muda o ETag. Escrever outro Order não
+ * invalida a resposta guardada.
+ * */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class OrderResourceETagTests {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void notModifiedIsServedWithoutQueries() {
+		String etag = restTemplate.getForEntity("/orders/2", String.class).getHeaders().getETag();
+		assertNotNull(etag);
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		ResponseEntity<String> response = get("/orders/2", etag);
+
+		assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+		assertEquals(0, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void updatingTheClientChangesTheETag() {
+		String etag = restTemplate.getForEntity("/orders/2", String.class).getHeaders().getETag();
+
+		User client = new User(null, "Alex Green Jr", "alex@gmail.com", "977777777", "123456");
+		userService.update(2L, client);
+		ResponseEntity<String> response = get("/orders/2", etag);
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertNotEquals(etag, response.getHeaders().getETag());
+		assertEquals(true, response.getBody().contains("Alex Green Jr"));
+	}
+
+	@Test
+	void writingAnotherOrderKeepsTheCachedResponse() {
+		Long kept = newOrder();
+		Long changed = newOrder();
+		String keptETag = restTemplate.getForEntity("/orders/" + kept, String.class).getHeaders().getETag();
+		String changedETag = restTemplate.getForEntity("/orders/" + changed, String.class).getHeaders().getETag();
+
+		restTemplate.postForEntity("/orders/" + changed + "/transitions",
+				new OrderTransitionDTO(null, OrderStatus.CANCELLED), String.class);
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		assertEquals(HttpStatus.NOT_MODIFIED, get("/orders/" + kept, keptETag).getStatusCode());
+		assertEquals(0, statistics.getPrepareStatementCount());
+		assertEquals(HttpStatus.OK, get("/orders/" + changed, changedETag).getStatusCode());
+	}
+
+	private Long newOrder() {
+		return transactionTemplate.execute(status -> {
+			User client = new User(null, "ETag Client", "etag@gmail.com", "999999999", "123456");
+			entityManager.persist(client);
+			Order order = new Order(null, Instant.now(), OrderStatus.WAITING_PAYMENT, client);
+			entityManager.persist(order);
+			return order.getId();
+		});
+	}
+
+	private ResponseEntity<String> get(String url, String etag) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setIfNoneMatch(etag);
+		return restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+	}
+}
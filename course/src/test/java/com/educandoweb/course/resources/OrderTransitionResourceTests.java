@@ -0,0 +1,123 @@
+package com.educandoweb.course.resources;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.educandoweb.course.dto.OrderTransitionDTO;
+import com.educandoweb.course.entities.Order;
+import com.educandoweb.course.entities.User;
+import com.educandoweb.course.entities.enums.OrderStatus;
+
+import jakarta.persistence.EntityManager;
+
+/*
+ * Percorre as transições de status de um Order por POST
+ * /orders/{id}/transitions, confere que as ilegais recebem 409, que
+ * GET /orders/{id} mostra o novo status e que, entre pedidos
+ * concorrentes para o mesmo Order, só um vence (um único Payment).
+ * */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class OrderTransitionResourceTests {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void followsTheLifecycleAndRejectsIllegalTransitions() {
+		Long id = newOrder();
+		String etag = restTemplate.getForEntity("/orders/" + id, String.class).getHeaders().getETag();
+
+		assertEquals(HttpStatus.CONFLICT, transition(id, OrderStatus.SHIPPED).getStatusCode());
+		assertEquals(HttpStatus.OK, transition(id, OrderStatus.PAID).getStatusCode());
+		assertEquals(1, payments(id));
+		assertEquals(HttpStatus.OK, transition(id, OrderStatus.SHIPPED).getStatusCode());
+
+		ResponseEntity<String> order = restTemplate.getForEntity("/orders/" + id, String.class);
+		assertNotEquals(etag, order.getHeaders().getETag());
+		assertEquals(true, order.getBody().contains("\"orderStatus\":\"SHIPPED\""), order.getBody());
+
+		assertEquals(HttpStatus.CONFLICT, transition(id, OrderStatus.CANCELLED).getStatusCode());
+		assertEquals(HttpStatus.OK, transition(id, OrderStatus.DELIVERED).getStatusCode());
+		assertEquals(HttpStatus.CONFLICT, transition(id, OrderStatus.PAID).getStatusCode());
+		assertEquals(HttpStatus.NOT_FOUND, transition(999_999L, OrderStatus.SHIPPED).getStatusCode());
+		assertEquals(HttpStatus.BAD_REQUEST, transition(id, null).getStatusCode());
+	}
+
+	@Test
+	void onlyOneOfConcurrentTransitionsWins() throws Exception {
+		Long paid = newOrder();
+		assertEquals(List.of(1L, 7L), outcomes(paid, OrderStatus.PAID, 8));
+		assertEquals(1, payments(paid));
+
+		assertEquals(List.of(1L, 15L), outcomes(paid, null, 16));
+	}
+
+	/* [vencedores, 409] entre threads pedindo target (ou, com null, SHIPPED e CANCELLED alternados) */
+	private List<Long> outcomes(Long id, OrderStatus target, int threads) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Callable<HttpStatus>> tasks = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				OrderStatus status = (target != null) ? target : (i % 2 == 0) ? OrderStatus.SHIPPED : OrderStatus.CANCELLED;
+				tasks.add(() -> HttpStatus.valueOf(transition(id, status).getStatusCode().value()));
+			}
+			long ok = 0;
+			long conflict = 0;
+			for (Future<HttpStatus> future : executor.invokeAll(tasks)) {
+				if (future.get() == HttpStatus.OK) {
+					ok++;
+				} else if (future.get() == HttpStatus.CONFLICT) {
+					conflict++;
+				}
+			}
+			return List.of(ok, conflict);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private ResponseEntity<String> transition(Long id, OrderStatus status) {
+		return restTemplate.postForEntity("/orders/" + id + "/transitions", new OrderTransitionDTO(null, status),
+				String.class);
+	}
+
+	private Long newOrder() {
+		return transactionTemplate.execute(status -> {
+			User client = new User(null, "Transition Client", "transition@gmail.com", "999999999", "123456");
+			entityManager.persist(client);
+			Order order = new Order(null, Instant.now(), OrderStatus.WAITING_PAYMENT, client);
+			entityManager.persist(order);
+			return order.getId();
+		});
+	}
+
+	private int payments(Long id) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_payment WHERE order_id = ?", Integer.class, id);
+	}
+}
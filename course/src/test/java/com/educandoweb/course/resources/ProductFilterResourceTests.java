@@ -0,0 +1,59 @@
+package com.educandoweb.course.resources;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+
+import com.educandoweb.course.dto.CategoryFacet;
+import com.educandoweb.course.dto.ProductDTO;
+import com.educandoweb.course.dto.ProductFilterResult;
+import com.educandoweb.course.entities.Category;
+import com.educandoweb.course.repositories.CategoryRepository;
+
+/*
+ * Garante o filtro por categories do GET /products sobre os dados do
+ * TestConfig: Smart TV em Eletronics e Computers, Macbook Pro e PC Gamer
+ * só em Computers.
+ * */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ProductFilterResourceTests {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private CategoryRepository categoryRepository;
+
+	@Test
+	void filtersByCategoriesWithFacets() {
+		Map<String, Long> ids = categoryRepository.findAll().stream()
+				.collect(Collectors.toMap(Category::getName, Category::getId));
+		Long eletronics = ids.get("Eletronics");
+		Long computers = ids.get("Computers");
+
+		ProductFilterResult result = restTemplate.getForObject(
+				"/products?categories=" + computers + ",!" + eletronics, ProductFilterResult.class);
+		assertEquals(List.of("Macbook Pro", "PC Gamer"), result.content().stream().map(ProductDTO::name).toList());
+		assertEquals(List.of(new CategoryFacet(computers, 2)), result.facets());
+		assertNull(result.nextCursor());
+
+		ProductFilterResult first = restTemplate.getForObject(
+				"/products?categories=" + computers + "|" + eletronics + "&size=2", ProductFilterResult.class);
+		assertEquals(3, first.total());
+		ProductFilterResult second = restTemplate.getForObject(
+				"/products?categories=" + computers + "&size=2&cursor=" + first.nextCursor(), ProductFilterResult.class);
+		assertEquals(List.of("PC Gamer"), second.content().stream().map(ProductDTO::name).toList());
+
+		assertEquals(HttpStatus.BAD_REQUEST,
+				restTemplate.getForEntity("/products?categories=1|x", String.class).getStatusCode());
+	}
+}
@@ -0,0 +1,88 @@
+package com.educandoweb.course.resources;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+
+import com.educandoweb.course.dto.ProductSearchResult;
+import com.educandoweb.course.entities.Product;
+import com.educandoweb.course.repositories.ProductRepository;
+
+/*
+ * Garante que a busca encontra os Products gravados pelo TestConfig,
+ * que um Product alterado pelo JPA é reindexado depois do commit e que
+ * um cursor emitido antes de uma escrita no índice é recusado.
+ * */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ProductSearchResourceTests {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Test
+	void searchesByTermsAndCategory() {
+		ProductSearchResult result = restTemplate.getForObject("/products/search?q=lord rings", ProductSearchResult.class);
+		assertEquals(1, result.total());
+		assertEquals("The Lord of the Rings", result.content().get(0).product().name());
+		assertNull(result.nextCursor());
+
+		/* Smart TV está em Eletronics e Computers, Macbook Pro só em Computers */
+		ProductSearchResult tv = restTemplate.getForObject("/products/search?q=smart tv", ProductSearchResult.class);
+		Long eletronics = tv.content().get(0).product().categories().get(0).id();
+		assertEquals(1, restTemplate.getForObject("/products/search?q=smart&category=" + eletronics,
+				ProductSearchResult.class).total());
+		assertEquals(0, restTemplate.getForObject("/products/search?q=macbook&category=" + eletronics,
+				ProductSearchResult.class).total());
+
+		assertEquals(HttpStatus.BAD_REQUEST,
+				restTemplate.getForEntity("/products/search?q=pc&cursor=@@", String.class).getStatusCode());
+	}
+
+	@Test
+	void reindexesProductAfterCommit() {
+		Product product = productRepository.save(new Product(null, "Quantum Toaster", "Toasts bread", 10.0, ""));
+
+		ProductSearchResult result = restTemplate.getForObject("/products/search?q=quantum", ProductSearchResult.class);
+		assertEquals(List.of(product.getId()), result.content().stream().map(hit -> hit.product().id()).toList());
+
+		productRepository.deleteById(product.getId());
+		assertEquals(0, restTemplate.getForObject("/products/search?q=quantum", ProductSearchResult.class).total());
+	}
+
+	@Test
+	void rejectsCursorIssuedBeforeTheIndexChanged() {
+		Product first = productRepository.save(new Product(null, "Zeppelin Lamp", "Lights", 30.0, ""));
+		Product second = productRepository.save(new Product(null, "Zeppelin Zeppelin Model", "Flies", 40.0, ""));
+		try {
+			ProductSearchResult page = restTemplate.getForObject("/products/search?q=zeppelin&size=1",
+					ProductSearchResult.class);
+			assertEquals(2, page.total());
+			String cursor = page.nextCursor();
+
+			/* sem escritas, o cursor continua valendo */
+			ProductSearchResult next = restTemplate.getForObject("/products/search?q=zeppelin&size=1&cursor=" + cursor,
+					ProductSearchResult.class);
+			assertEquals(1, next.content().size());
+			assertNull(next.nextCursor());
+
+			/* qualquer escrita muda os scores, a paginação precisa recomeçar */
+			first.setName("Zeppelin Zeppelin Zeppelin Lamp");
+			productRepository.save(first);
+			assertEquals(HttpStatus.CONFLICT, restTemplate.getForEntity(
+					"/products/search?q=zeppelin&size=1&cursor=" + cursor, String.class).getStatusCode());
+		} finally {
+			productRepository.deleteById(first.getId());
+			productRepository.deleteById(second.getId());
+		}
+	}
+}
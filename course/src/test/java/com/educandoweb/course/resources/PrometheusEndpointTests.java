@@ -0,0 +1,50 @@
+package com.educandoweb.course.resources;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/*
+ * Garante que o /actuator/prometheus exporta os histogramas de latência
+ * dos endpoints e dos repositories e as métricas do Hibernate e do pool
+ * de conexões, e que o log de comandos lentos não fica exposto sem ser
+ * incluído em management.endpoints.web.exposure.include.
+ * */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "spring.jpa.show-sql=false")
+@AutoConfigureObservability(tracing = false)
+class PrometheusEndpointTests {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Test
+	void scrapeContainsEndpointRepositoryHibernateAndPoolMetrics() {
+		assertEquals(HttpStatus.OK, restTemplate.getForEntity("/users/1", String.class).getStatusCode());
+
+		ResponseEntity<String> scrape = restTemplate.getForEntity("/actuator/prometheus", String.class);
+		assertEquals(HttpStatus.OK, scrape.getStatusCode());
+		String body = scrape.getBody();
+
+		assertTrue(body.contains("http_server_requests_seconds_bucket{") && body.contains("uri=\"/users/{id}\""));
+		assertTrue(body.contains("http_server_requests_seconds{") && body.contains("quantile=\"0.99\""));
+		assertTrue(body.contains("spring_data_repository_invocations_seconds_bucket{")
+				&& body.contains("repository=\"UserRepository\""));
+		assertTrue(body.contains("hibernate_statements_total{"));
+		assertTrue(body.contains("hibernate_entities_loads_total{"));
+		assertTrue(body.contains("hikaricp_connections_acquire_seconds_bucket{"));
+	}
+
+	@Test
+	void slowQueryLogIsNotExposedByDefault() {
+		assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity("/actuator/slowqueries", String.class).getStatusCode());
+		assertEquals(HttpStatus.NOT_FOUND, restTemplate.getForEntity("/admin/slow-queries", String.class).getStatusCode());
+	}
+}
@@ -0,0 +1,64 @@
+package com.educandoweb.course.resources;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.educandoweb.course.dto.SlowQueryDTO;
+import com.educandoweb.course.dto.SlowQueryReport;
+import com.educandoweb.course.entities.User;
+
+/*
+ * Com threshold 0 todos os comandos são registrados: o log deve ter a
+ * consulta do GET /users/{id} com o id ligado ao parâmetro e a linha
+ * lida, e o insert de um User não pode expor o email nem a senha.
+ * */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"course.slow-query.threshold=0ms",
+		"course.slow-query.sample-rate=0",
+		"management.endpoints.web.exposure.include=slowqueries" })
+class SlowQueryEndpointTests {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Test
+	void recordsStatementWithBoundParametersAndRowCount() {
+		assertEquals(HttpStatus.OK, restTemplate.getForEntity("/users/2", String.class).getStatusCode());
+
+		SlowQueryReport report = restTemplate.getForObject("/actuator/slowqueries?limit=20", SlowQueryReport.class);
+		List<SlowQueryDTO> userQueries = report.queries().stream()
+				.filter(query -> query.sql().contains("tb_user") && query.sql().startsWith("select"))
+				.toList();
+
+		assertTrue(report.recorded() > 0);
+		assertTrue(!userQueries.isEmpty(), "queries: " + report.queries());
+		assertEquals(List.of("2"), userQueries.get(0).parameters());
+		assertEquals(1, userQueries.get(0).rows());
+	}
+
+	@Test
+	void stringParametersAreMasked() {
+		User user = new User(null, "Masked Client", "masked@gmail.com", "955555555", "s3cret-password");
+		ResponseEntity<User> created = restTemplate.postForEntity("/users", user, User.class);
+		assertEquals(HttpStatus.CREATED, created.getStatusCode());
+
+		String report = restTemplate.getForObject("/actuator/slowqueries?limit=50", String.class);
+		restTemplate.delete("/users/" + created.getBody().getId());
+
+		assertTrue(report.contains("insert into tb_user"), report);
+		assertFalse(report.contains("masked@gmail.com"));
+		assertFalse(report.contains("s3cret-password"));
+		assertFalse(report.contains("955555555"));
+		assertTrue(report.contains("<string, 15 chars>"), report);
+	}
+}
@@ -0,0 +1,145 @@
+package com.educandoweb.course.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.educandoweb.course.dto.OrderSummary;
+import com.educandoweb.course.entities.Order;
+import com.educandoweb.course.entities.User;
+import com.educandoweb.course.entities.enums.OrderStatus;
+import com.educandoweb.course.services.exceptions.ResourceNotFoundException;
+import com.educandoweb.course.services.jdbc.SlowQuery;
+import com.educandoweb.course.services.jdbc.SlowQueryLog;
+import com.educandoweb.course.services.pagination.KeysetPage;
+
+import jakarta.persistence.EntityManager;
+
+/*
+ * Garante a ordem (moment desc, id desc) do histórico de Orders de um
+ * User, o filtro por status, que cada página custa uma única consulta
+ * sem carregar a coleção User.orders e que a consulta usa o índice
+ * ix_order_client_moment_id.
+ * */
+@SpringBootTest(properties = {
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn",
+		"course.slow-query.threshold=0ms" })
+@Transactional
+class OrderServiceClientPageTests {
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private SlowQueryLog slowQueryLog;
+
+	private User client;
+
+	@BeforeEach
+	void seed() {
+		client = new User(null, "History Client", "history@gmail.com", "999999999", "123456");
+		entityManager.persist(client);
+		User other = new User(null, "Other Client", "other@gmail.com", "999999999", "123456");
+		entityManager.persist(other);
+
+		Instant start = Instant.parse("2021-01-01T00:00:00Z");
+		for (int i = 0; i < 25; i++) {
+			/* dois Orders por instante, para que o desempate pelo id seja usado */
+			OrderStatus status = (i % 3 == 0) ? OrderStatus.PAID : OrderStatus.DELIVERED;
+			entityManager.persist(new Order(null, start.plusSeconds(i / 2), status, client));
+			entityManager.persist(new Order(null, start.plusSeconds(i / 2), status, other));
+		}
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	@Test
+	void pagesNewestFirstWithoutLoadingUserOrders() {
+		Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		List<OrderSummary> all = new ArrayList<>();
+		String cursor = null;
+		int pages = 0;
+		do {
+			KeysetPage<OrderSummary> page = orderService.findClientPage(client.getId(), null, cursor, 7);
+			all.addAll(page.content());
+			cursor = page.nextCursor();
+			pages++;
+		} while (cursor != null);
+
+		assertEquals(25, all.size());
+		for (int i = 1; i < all.size(); i++) {
+			OrderSummary previous = all.get(i - 1);
+			OrderSummary current = all.get(i);
+			assertTrue(previous.moment().isAfter(current.moment())
+					|| (previous.moment().equals(current.moment()) && previous.id() > current.id()));
+			assertEquals(client.getId(), current.clientId());
+		}
+		assertEquals(pages, statistics.getPrepareStatementCount());
+		assertEquals(0, statistics.getCollectionFetchCount());
+	}
+
+	@Test
+	void filtersByStatus() {
+		KeysetPage<OrderSummary> page = orderService.findClientPage(client.getId(), OrderStatus.PAID, null, 100);
+
+		assertEquals(9, page.content().size());
+		assertTrue(page.content().stream().allMatch(order -> order.orderStatus() == OrderStatus.PAID));
+		assertNull(page.nextCursor());
+	}
+
+	@Test
+	void unknownClientIsNotFound() {
+		assertThrows(ResourceNotFoundException.class, () -> orderService.findClientPage(-1L, null, null, 10));
+	}
+
+	/* 
+	 * O EXPLAIN roda sobre o SQL que o Hibernate gerou para as duas
+	 * consultas, lido do SlowQueryLog (threshold 0 registra todos os
+	 * comandos) com os mesmos valores de parâmetros.
+	 * */
+	@Test
+	void queriesUseClientMomentIndex() {
+		KeysetPage<OrderSummary> first = orderService.findClientPage(client.getId(), null, null, 7);
+		assertIndexUsed(lastClientPageQuery());
+
+		orderService.findClientPage(client.getId(), OrderStatus.PAID, first.nextCursor(), 7);
+		assertIndexUsed(lastClientPageQuery());
+	}
+
+	private SlowQuery lastClientPageQuery() {
+		return slowQueryLog.snapshot(slowQueryLog.getCapacity(), Duration.ZERO).stream()
+				.filter(query -> query.sql().toLowerCase().contains("from tb_order")
+						&& query.sql().toLowerCase().contains("order by"))
+				.findFirst().orElseThrow();
+	}
+
+	private void assertIndexUsed(SlowQuery query) {
+		String plan = jdbcTemplate.queryForObject("EXPLAIN " + query.sql(), String.class, query.parameters());
+
+		assertTrue(plan.toUpperCase().contains("IX_ORDER_CLIENT_MOMENT_ID"), plan);
+	}
+}
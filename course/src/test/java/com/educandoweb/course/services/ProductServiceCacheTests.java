@@ -0,0 +1,42 @@
+package com.educandoweb.course.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.educandoweb.course.dto.ProductDTO;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/*
+ * Garante que a busca por id do catálogo é atendida pelo cache de
+ * segundo nível: depois da primeira leitura nenhuma consulta chega ao
+ * banco de dados.
+ * */
+@SpringBootTest
+class ProductServiceCacheTests {
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void findByIdIsServedFromSecondLevelCache() {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		ProductDTO first = productService.findById(3L);
+
+		statistics.clear();
+		ProductDTO second = productService.findById(3L);
+
+		assertEquals(first, second);
+		assertEquals(0, statistics.getPrepareStatementCount());
+		assertTrue(statistics.getSecondLevelCacheHitCount() > 0);
+	}
+}
@@ -0,0 +1,107 @@
+package com.educandoweb.course.services.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import com.educandoweb.course.services.analytics.OrderItemColumns.Filter;
+import com.educandoweb.course.services.analytics.OrderItemColumns.Group;
+import com.educandoweb.course.services.analytics.OrderItemColumns.GroupBy;
+
+/*
+ * Compara as varreduras paralelas com as somas feitas linha a linha
+ * sobre os mesmos Orders, com Orders substituídos e apagados e mais de
+ * uma faixa de LEAF_ROWS linhas, antes e depois de compact.
+ * */
+class OrderItemColumnsTests {
+
+	private record Row(long orderId, long productId, long price, int quantity, long moment, int status) {
+	}
+
+	@Test
+	void scansMatchRowByRowTotals() {
+		SplittableRandom random = new SplittableRandom(7);
+		OrderItemColumns columns = new OrderItemColumns();
+		Map<Long, List<Row>> orders = new HashMap<>();
+		for (int round = 0; round < 3; round++) {
+			for (long orderId = 1; orderId <= 60_000; orderId++) {
+				if (round > 0 && random.nextInt(4) != 0) {
+					continue;
+				}
+				if (round == 2 && random.nextInt(3) == 0) {
+					columns.remove(orderId);
+					orders.remove(orderId);
+					continue;
+				}
+				List<Row> rows = randomOrder(random, orderId);
+				columns.put(orderId, rows.get(0).moment(), rows.get(0).status(),
+						rows.stream().mapToLong(Row::productId).toArray(), rows.stream().mapToLong(Row::price).toArray(),
+						rows.stream().mapToInt(Row::quantity).toArray());
+				orders.put(orderId, rows);
+			}
+		}
+		List<Row> live = orders.values().stream().flatMap(List::stream).toList();
+		assertEquals(live.size(), columns.size());
+
+		assertScans(columns, live);
+		OrderItemColumns compacted = columns.compact();
+		assertEquals(0, compacted.deletedCount());
+		assertScans(compacted, live);
+
+		compacted.remove(1);
+		List<Row> withoutFirst = live.stream().filter(row -> row.orderId() != 1).toList();
+		assertEquals(withoutFirst.size(), compacted.scan(Filter.ALL, GroupBy.NONE, 1).matched());
+	}
+
+	private static List<Row> randomOrder(SplittableRandom random, long orderId) {
+		long moment = 1_600_000_000L + random.nextInt(365 * 86_400);
+		int status = random.nextInt(5);
+		List<Row> rows = new ArrayList<>();
+		for (int i = random.nextInt(4); i >= 0; i--) {
+			rows.add(new Row(orderId, 1 + random.nextInt(50), 100 + random.nextInt(100_000), 1 + random.nextInt(5),
+					moment, status));
+		}
+		return rows;
+	}
+
+	private static void assertScans(OrderItemColumns columns, List<Row> live) {
+		Filter recentPaid = new Filter(1_610_000_000L, 1_620_000_000L, -1, 1);
+		Filter product = new Filter(Long.MIN_VALUE, Long.MAX_VALUE, 7, -1);
+		for (Filter filter : List.of(Filter.ALL, recentPaid, product)) {
+			List<Row> matching = live.stream().filter(row -> row.moment() >= filter.fromSecond()
+					&& row.moment() < filter.toSecond()
+					&& (filter.productId() < 0 || row.productId() == filter.productId())
+					&& (filter.status() < 0 || row.status() == filter.status())).toList();
+			assertEquals(expected(matching, row -> 0L), columns.scan(filter, GroupBy.NONE, 10).groups());
+			assertEquals(expected(matching, Row::productId), columns.scan(filter, GroupBy.PRODUCT, 1000).groups());
+			assertEquals(expected(matching, row -> (long) row.status()), columns.scan(filter, GroupBy.STATUS, 10).groups());
+			assertEquals(expected(matching, row -> Math.floorDiv(row.moment(), 86_400L)),
+					columns.scan(filter, GroupBy.DAY, 1000).groups());
+			OrderItemColumns.Result byOrder = columns.scan(filter, GroupBy.ORDER, 5);
+			assertEquals(expected(matching, Row::orderId).subList(0, 5), byOrder.groups());
+			assertEquals(matching.size(), byOrder.matched());
+			assertEquals(live.size(), byOrder.scanned());
+		}
+	}
+
+	private static List<Group> expected(List<Row> rows, Function<Row, Long> key) {
+		Map<Long, long[]> totals = new HashMap<>();
+		for (Row row : rows) {
+			long[] total = totals.computeIfAbsent(key.apply(row), k -> new long[3]);
+			total[0]++;
+			total[1] += row.quantity();
+			total[2] += row.price() * row.quantity();
+		}
+		List<Group> groups = new ArrayList<>();
+		totals.forEach((k, total) -> groups.add(new Group(k, total[0], total[1], total[2])));
+		groups.sort(OrderItemColumns.BY_REVENUE);
+		return groups;
+	}
+}
@@ -0,0 +1,218 @@
+package com.educandoweb.course.services.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.educandoweb.course.dto.DailySales;
+import com.educandoweb.course.dto.SalesFigures;
+import com.educandoweb.course.dto.SalesReport;
+import com.educandoweb.course.entities.Order;
+import com.educandoweb.course.entities.OrderItem;
+import com.educandoweb.course.entities.Product;
+import com.educandoweb.course.entities.User;
+import com.educandoweb.course.entities.enums.OrderStatus;
+import com.educandoweb.course.services.OrderTransitionService;
+
+import jakarta.persistence.EntityManager;
+
+/*
+ * Compara os agregados com as somas feitas pelo banco de dados, depois
+ * da montagem e depois de cada commit que cria, altera ou apaga um
+ * Order, e que a cópia em colunas dos OrderItems acompanha. O Order do
+ * teste é apagado no fim, o que também devolve os agregados aos valores
+ * iniciais.
+ * */
+@SpringBootTest
+class SalesAnalyticsTests {
+
+	private static final long MACBOOK = 3L;
+	private static final long COMPUTERS = 3L;
+
+	@Autowired
+	private SalesAnalytics salesAnalytics;
+
+	@Autowired
+	private OrderItemSnapshot orderItemSnapshot;
+
+	@Autowired
+	private OrderAnalyticsRefresher orderAnalyticsRefresher;
+
+	@Autowired
+	private OrderTransitionService orderTransitionService;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void rebuildMatchesDatabaseTotals() {
+		salesAnalytics.rebuild();
+
+		assertEquals(databaseTotal(""), salesAnalytics.total().total());
+		assertEquals(databaseTotal("WHERE i.product_id = " + MACBOOK), salesAnalytics.product(MACBOOK).total());
+		assertEquals(databaseTotal("JOIN tb_product_category pc ON pc.product_id = i.product_id WHERE pc.category_id = "
+				+ COMPUTERS), salesAnalytics.category(COMPUTERS).total());
+	}
+
+	@Test
+	void commitsUpdateAggregatesIncrementally() {
+		salesAnalytics.rebuild();
+		SalesReport product = salesAnalytics.product(MACBOOK);
+		SalesReport category = salesAnalytics.category(COMPUTERS);
+		LocalDate day = LocalDate.of(2020, 2, 29);
+		SalesFigures dayBefore = salesAnalytics.days(day, day).get(0).sales().total();
+		long macbookRows = macbookItems();
+
+		Long orderId = transactionTemplate.execute(status -> {
+			User client = new User(null, "Analytics Client", "analytics@gmail.com", "999999999", "123456");
+			entityManager.persist(client);
+			Order order = new Order(null, Instant.parse("2020-02-29T12:00:00Z"), OrderStatus.WAITING_PAYMENT, client);
+			entityManager.persist(order);
+			entityManager.persist(new OrderItem(order, entityManager.find(Product.class, MACBOOK), 2, 1250.0));
+			return order.getId();
+		});
+		try {
+			SalesFigures added = new SalesFigures(new BigDecimal("2500.00"), 2, 1);
+			assertEquals(plus(product.total(), added), salesAnalytics.product(MACBOOK).total());
+			assertEquals(plus(category.total(), added), salesAnalytics.category(COMPUTERS).total());
+			assertEquals(plus(product.byStatus().get(OrderStatus.WAITING_PAYMENT), added),
+					salesAnalytics.product(MACBOOK).byStatus().get(OrderStatus.WAITING_PAYMENT));
+			List<DailySales> days = salesAnalytics.days(day.minusDays(1), day.plusDays(1));
+			assertEquals(3, days.size());
+			assertEquals(plus(dayBefore, added), days.get(1).sales().total());
+			assertEquals(macbookRows + 1, macbookItems());
+
+			transactionTemplate.executeWithoutResult(status -> {
+				entityManager.find(Order.class, orderId).setOrderStatus(OrderStatus.CANCELLED);
+			});
+			Map<OrderStatus, SalesFigures> byStatus = salesAnalytics.product(MACBOOK).byStatus();
+			assertEquals(product.byStatus().get(OrderStatus.WAITING_PAYMENT), byStatus.get(OrderStatus.WAITING_PAYMENT));
+			assertEquals(plus(product.byStatus().get(OrderStatus.CANCELLED), added), byStatus.get(OrderStatus.CANCELLED));
+			assertEquals(databaseTotal(""), salesAnalytics.total().total());
+		} finally {
+			transactionTemplate.executeWithoutResult(status -> {
+				Order order = entityManager.find(Order.class, orderId);
+				order.getItems().forEach(entityManager::remove);
+				entityManager.remove(order);
+				entityManager.remove(order.getClient());
+			});
+		}
+		assertEquals(product.total(), salesAnalytics.product(MACBOOK).total());
+		assertEquals(category.total(), salesAnalytics.category(COMPUTERS).total());
+		assertEquals(macbookRows, macbookItems());
+	}
+
+	/*
+	 * As mudanças de status chegam depois do commit e podem chegar fora
+	 * de ordem: uma mudança ou uma releitura com uma versão mais antiga
+	 * que a aplicada não pode desfazer a mais nova.
+	 * */
+	@Test
+	void olderVersionsDoNotUndoNewerStatus() {
+		salesAnalytics.rebuild();
+		SalesReport product = salesAnalytics.product(MACBOOK);
+		long cancelledRows = macbookItems(OrderStatus.CANCELLED);
+
+		Long orderId = transactionTemplate.execute(status -> {
+			User client = new User(null, "Version Client", "version@gmail.com", "999999999", "123456");
+			entityManager.persist(client);
+			Order order = new Order(null, Instant.parse("2020-03-01T12:00:00Z"), OrderStatus.WAITING_PAYMENT, client);
+			entityManager.persist(order);
+			entityManager.persist(new OrderItem(order, entityManager.find(Product.class, MACBOOK), 1, 1000.0));
+			return order.getId();
+		});
+		try {
+			long version = jdbcTemplate.queryForObject("SELECT version FROM tb_order WHERE id = ?", Long.class, orderId);
+			salesAnalytics.changeStatus(orderId, OrderStatus.CANCELLED, version + 2);
+			orderItemSnapshot.changeStatus(orderId, OrderStatus.CANCELLED, version + 2);
+			salesAnalytics.changeStatus(orderId, OrderStatus.SHIPPED, version + 1);
+			orderItemSnapshot.changeStatus(orderId, OrderStatus.SHIPPED, version + 1);
+			orderAnalyticsRefresher.refresh(List.of(orderId));
+
+			SalesFigures added = new SalesFigures(new BigDecimal("1000.00"), 1, 1);
+			Map<OrderStatus, SalesFigures> byStatus = salesAnalytics.product(MACBOOK).byStatus();
+			assertEquals(plus(product.byStatus().get(OrderStatus.CANCELLED), added), byStatus.get(OrderStatus.CANCELLED));
+			assertEquals(product.byStatus().get(OrderStatus.SHIPPED), byStatus.get(OrderStatus.SHIPPED));
+			assertEquals(product.byStatus().get(OrderStatus.WAITING_PAYMENT), byStatus.get(OrderStatus.WAITING_PAYMENT));
+			assertEquals(cancelledRows + 1, macbookItems(OrderStatus.CANCELLED));
+		} finally {
+			transactionTemplate.executeWithoutResult(status -> {
+				Order order = entityManager.find(Order.class, orderId);
+				order.getItems().forEach(entityManager::remove);
+				entityManager.remove(order);
+				entityManager.remove(order.getClient());
+			});
+		}
+		assertEquals(product.total(), salesAnalytics.product(MACBOOK).total());
+		assertEquals(cancelledRows, macbookItems(OrderStatus.CANCELLED));
+	}
+
+	/*
+	 * Um Order gravado por JDBC não é conhecido pelos agregados nem pela
+	 * cópia em colunas: a mudança de status relê o Order para os dois.
+	 * */
+	@Test
+	void statusChangeOfAnUnknownOrderRefreshesBothViews() {
+		salesAnalytics.rebuild();
+		orderItemSnapshot.rebuild();
+		SalesReport product = salesAnalytics.product(MACBOOK);
+		long shippedRows = macbookItems(OrderStatus.SHIPPED);
+		long orderId = 6_000_000L;
+		jdbcTemplate.update("INSERT INTO tb_order (id, moment, order_status, client_id, total, version) "
+				+ "VALUES (?, CURRENT_TIMESTAMP, ?, 1, 1000, 0)", orderId, OrderStatus.PAID.getCode());
+		jdbcTemplate.update("INSERT INTO tb_order_item (order_id, product_id, quantity, price) VALUES (?, ?, 1, 1000)",
+				orderId, MACBOOK);
+		try {
+			orderTransitionService.transition(orderId, OrderStatus.SHIPPED);
+
+			SalesFigures added = new SalesFigures(new BigDecimal("1000.00"), 1, 1);
+			assertEquals(plus(product.byStatus().get(OrderStatus.SHIPPED), added),
+					salesAnalytics.product(MACBOOK).byStatus().get(OrderStatus.SHIPPED));
+			assertEquals(shippedRows + 1, macbookItems(OrderStatus.SHIPPED));
+		} finally {
+			jdbcTemplate.update("DELETE FROM tb_order_item WHERE order_id = ?", orderId);
+			jdbcTemplate.update("DELETE FROM tb_order WHERE id = ?", orderId);
+			orderAnalyticsRefresher.refresh(List.of(orderId));
+		}
+		assertEquals(product.total(), salesAnalytics.product(MACBOOK).total());
+		assertEquals(shippedRows, macbookItems(OrderStatus.SHIPPED));
+	}
+
+	/* linhas do Macbook na cópia em colunas dos OrderItems */
+	private long macbookItems() {
+		return orderItemSnapshot.scan(new OrderItemColumns.Filter(Long.MIN_VALUE, Long.MAX_VALUE, MACBOOK, -1),
+				OrderItemColumns.GroupBy.NONE, 1).matched();
+	}
+
+	private long macbookItems(OrderStatus status) {
+		return orderItemSnapshot.scan(new OrderItemColumns.Filter(Long.MIN_VALUE, Long.MAX_VALUE, MACBOOK,
+				status.ordinal()), OrderItemColumns.GroupBy.NONE, 1).matched();
+	}
+
+	private SalesFigures databaseTotal(String where) {
+		return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(ROUND(i.price * 100) * i.quantity), 0), "
+				+ "COALESCE(SUM(i.quantity), 0), COUNT(*) FROM tb_order_item i " + where,
+				(rs, row) -> new SalesFigures(BigDecimal.valueOf(rs.getLong(1), 2), rs.getLong(2), rs.getLong(3)));
+	}
+
+	private static SalesFigures plus(SalesFigures figures, SalesFigures other) {
+		return new SalesFigures(figures.revenue().add(other.revenue()), figures.units() + other.units(),
+				figures.items() + other.items());
+	}
+}
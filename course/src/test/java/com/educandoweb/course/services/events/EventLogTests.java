@@ -0,0 +1,115 @@
+package com.educandoweb.course.services.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import com.educandoweb.course.dto.ChangeEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+
+/*
+ * Confere que o EventLog aceita um único escritor por arquivo, continua
+ * a numeração depois de reaberto (cortando uma linha incompleta) e
+ * continua lendo os eventos do segmento anterior depois de uma rotação.
+ * */
+class EventLogTests {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper().findAndRegisterModules();
+
+	private static final Instant MOMENT = Instant.parse("2026-01-01T00:00:00Z");
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void secondWriterOnTheSameFileIsRejected() throws Exception {
+		EventLog first = eventLog(dir.resolve("events.ndjson"), DataSize.ofMegabytes(1));
+		EventLog second = eventLog(dir.resolve("events.ndjson"), DataSize.ofMegabytes(1));
+		try {
+			first.append(events(2));
+			assertThrows(IllegalStateException.class, second::lastSequence);
+		} finally {
+			first.destroy();
+			second.destroy();
+		}
+	}
+
+	@Test
+	void reopenContinuesAfterTheLastCompleteEvent() throws Exception {
+		Path file = dir.resolve("events.ndjson");
+		EventLog log = eventLog(file, DataSize.ofMegabytes(1));
+		log.append(events(3));
+		log.destroy();
+		/* uma escrita interrompida no meio da linha */
+		Files.writeString(file, "{\"sequence\":4,\"aggr", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+		EventLog reopened = eventLog(file, DataSize.ofMegabytes(1));
+		try {
+			assertEquals(3, reopened.lastSequence());
+			assertEquals(List.of(4L), sequences(reopened.append(events(1))));
+			assertEquals(List.of(1L, 2L, 3L, 4L), sequences(reopened.read(0, 10)));
+		} finally {
+			reopened.destroy();
+		}
+	}
+
+	@Test
+	void rotatedEventsAreStillRead() throws Exception {
+		Path file = dir.resolve("events.ndjson");
+		/* o arquivo roda quando chega a 4 eventos, só o segmento anterior fica */
+		long line = MAPPER.writeValueAsString(events(1).get(0).withSequence(1)).length() + 1;
+		EventLog log = eventLog(file, DataSize.ofBytes(3 * line + 1));
+		log.append(events(2));
+		log.append(events(2));
+		log.append(events(1));
+		try {
+			assertEquals(List.of(1L, 2L, 3L, 4L, 5L), sequences(log.read(0, 10)));
+			assertEquals(List.of(4L, 5L), sequences(log.read(3, 10)));
+			assertEquals(List.of(1L), sequences(log.read(0, 1)));
+			log.append(events(3));
+			assertEquals(List.of(5L, 6L, 7L, 8L), sequences(log.read(0, 10)));
+		} finally {
+			log.destroy();
+		}
+
+		EventLog reopened = eventLog(file, DataSize.ofBytes(3 * line + 1));
+		try {
+			assertEquals(8, reopened.lastSequence());
+			reopened.append(events(1));
+			assertEquals(List.of(5L, 6L, 7L, 8L, 9L), sequences(reopened.read(0, 10)));
+		} finally {
+			reopened.destroy();
+		}
+	}
+
+	private static EventLog eventLog(Path file, DataSize maxSize) {
+		EventLog log = new EventLog();
+		ReflectionTestUtils.setField(log, "objectMapper", MAPPER);
+		ReflectionTestUtils.setField(log, "file", file);
+		ReflectionTestUtils.setField(log, "maxSize", maxSize);
+		return log;
+	}
+
+	private static List<ChangeEvent> events(int count) {
+		return LongStream.rangeClosed(1, count)
+				.mapToObj(id -> new ChangeEvent(0, "User", id, "CREATED", MOMENT, NullNode.getInstance()))
+				.toList();
+	}
+
+	private static List<Long> sequences(List<ChangeEvent> events) {
+		return events.stream().map(ChangeEvent::sequence).toList();
+	}
+}
@@ -0,0 +1,176 @@
+package com.educandoweb.course.services.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.educandoweb.course.dto.OrderStatusEvent;
+import com.educandoweb.course.entities.Order;
+import com.educandoweb.course.entities.User;
+import com.educandoweb.course.entities.enums.OrderStatus;
+import com.educandoweb.course.services.OrderTransitionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManager;
+
+/*
+ * Confere que GET /orders/stream entrega as mudanças de status com os
+ * filtros de client e de status, inclusive as do caminho rápido do
+ * OrderTransitionService, e que um inscrito com o buffer cheio ou preso
+ * num envio é desligado.
+ * */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class OrderStatusHubTests {
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private OrderStatusHub orderStatusHub;
+
+	@Autowired
+	private OrderTransitionService orderTransitionService;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void streamsStatusChangesFilteredByClientAndStatus() throws Exception {
+		User client = transactionTemplate.execute(status -> {
+			User user = new User(null, "Stream Client", "stream@gmail.com", "944444444", "123456");
+			entityManager.persist(user);
+			return user;
+		});
+		int before = orderStatusHub.getSubscriberCount();
+		BlockingQueue<OrderStatusEvent> ofClient = open("/orders/stream?client=" + client.getId());
+		BlockingQueue<OrderStatusEvent> delivered = open("/orders/stream?status=DELIVERED");
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (orderStatusHub.getSubscriberCount() < before + 2 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+
+		Long id = transactionTemplate.execute(status -> {
+			Order order = new Order(null, Instant.now(), OrderStatus.WAITING_PAYMENT, entityManager.merge(client));
+			entityManager.persist(order);
+			return order.getId();
+		});
+		orderTransitionService.transition(id, OrderStatus.PAID);
+		orderTransitionService.transition(id, OrderStatus.SHIPPED);
+		orderTransitionService.transition(id, OrderStatus.DELIVERED);
+
+		List<OrderStatus> statuses = List.of(OrderStatus.WAITING_PAYMENT, OrderStatus.PAID, OrderStatus.SHIPPED,
+				OrderStatus.DELIVERED);
+		for (int i = 0; i < statuses.size(); i++) {
+			OrderStatusEvent event = ofClient.poll(10, TimeUnit.SECONDS);
+			assertEquals(id, event.orderId());
+			assertEquals(client.getId(), event.clientId());
+			assertEquals(statuses.get(i), event.status());
+			assertEquals((i == 0) ? null : statuses.get(i - 1), event.previous());
+		}
+		OrderStatusEvent event = delivered.poll(10, TimeUnit.SECONDS);
+		assertEquals(id, event.orderId());
+		assertEquals(OrderStatus.SHIPPED, event.previous());
+		assertNull(delivered.poll(200, TimeUnit.MILLISECONDS));
+
+		/* o banco de dados em memória é dividido com os outros contextos de teste */
+		jdbcTemplate.update("DELETE FROM tb_payment WHERE order_id = ?", id);
+		jdbcTemplate.update("DELETE FROM tb_order WHERE id = ?", id);
+		jdbcTemplate.update("DELETE FROM tb_user WHERE id = ?", client.getId());
+	}
+
+	@Test
+	void subscriberWithAFullBufferIsEvicted() {
+		OrderStatusHub.Subscriber subscriber = new OrderStatusHub.Subscriber(new SseEmitter(), null, -1, 2);
+		Set<SseEmitter.DataWithMediaType> message = SseEmitter.event().data("x").build();
+
+		assertEquals(OrderStatusHub.Subscriber.Offer.SCHEDULE, subscriber.offer(message, false));
+		assertEquals(OrderStatusHub.Subscriber.Offer.DROPPED, subscriber.offer(message, true));
+		assertEquals(OrderStatusHub.Subscriber.Offer.QUEUED, subscriber.offer(message, false));
+		assertEquals(OrderStatusHub.Subscriber.Offer.EVICTED, subscriber.offer(message, false));
+		assertEquals(OrderStatusHub.Subscriber.Offer.DROPPED, subscriber.offer(message, false));
+
+		assertNull(subscriber.next());
+		assertTrue(subscriber.completeOnce());
+		assertFalse(subscriber.completeOnce());
+	}
+
+	@Test
+	void subscriberBlockedInASendIsEvicted() throws Exception {
+		OrderStatusHub.Subscriber subscriber = new OrderStatusHub.Subscriber(new SseEmitter(), null, -1, 4);
+		Set<SseEmitter.DataWithMediaType> message = SseEmitter.event().data("x").build();
+		subscriber.offer(message, false);
+		subscriber.offer(message, false);
+		subscriber.next();
+
+		/* um sender preso no envio, como numa escrita para um cliente que não lê */
+		CountDownLatch interrupted = new CountDownLatch(1);
+		Thread sender = new Thread(() -> {
+			try {
+				Thread.sleep(30_000);
+			} catch (InterruptedException e) {
+				interrupted.countDown();
+			}
+		});
+		sender.start();
+		long timeout = TimeUnit.SECONDS.toNanos(1);
+		subscriber.sending(sender);
+
+		assertFalse(subscriber.expire(System.nanoTime(), timeout));
+		assertTrue(subscriber.expire(System.nanoTime() + 2 * timeout, timeout));
+		assertFalse(subscriber.expire(System.nanoTime() + 2 * timeout, timeout));
+		assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+
+		assertTrue(subscriber.sent());
+		assertFalse(subscriber.sent());
+		assertNull(subscriber.next());
+		assertEquals(OrderStatusHub.Subscriber.Offer.DROPPED, subscriber.offer(message, false));
+		assertTrue(subscriber.completeOnce());
+	}
+
+	/* abre o stream e devolve a fila dos eventos recebidos */
+	private BlockingQueue<OrderStatusEvent> open(String path) {
+		BlockingQueue<OrderStatusEvent> events = new LinkedBlockingQueue<>();
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build();
+		HttpClient.newHttpClient().sendAsync(request, HttpResponse.BodyHandlers.ofLines())
+				.thenAccept(response -> response.body()
+						.filter(line -> line.startsWith("data:"))
+						.forEach(line -> {
+							try {
+								events.add(objectMapper.readValue(line.substring(5), OrderStatusEvent.class));
+							} catch (Exception e) {
+								throw new IllegalStateException(e);
+							}
+						}));
+		return events;
+	}
+}
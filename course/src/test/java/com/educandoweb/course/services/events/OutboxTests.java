@@ -0,0 +1,152 @@
+package com.educandoweb.course.services.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.educandoweb.course.dto.ChangeEvent;
+import com.educandoweb.course.dto.EventBatch;
+import com.educandoweb.course.entities.Order;
+import com.educandoweb.course.entities.User;
+import com.educandoweb.course.entities.enums.OrderStatus;
+import com.educandoweb.course.services.OrderTransitionService;
+import com.educandoweb.course.services.UserService;
+
+import jakarta.persistence.EntityManager;
+
+/*
+ * Confere que as escritas de Users, Orders e Payments chegam, em ordem,
+ * ao EventBus, ao EventLog e a GET /events, e que uma transação
+ * desfeita (rollback) não deixa evento.
+ * */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class OutboxTests {
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private OrderTransitionService orderTransitionService;
+
+	@Autowired
+	private EventBus eventBus;
+
+	@Autowired
+	private EventLog eventLog;
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void userWritesAreDeliveredInOrder() throws Exception {
+		long after = eventLog.lastSequence();
+		User user = userService.insert(new User(null, "Outbox", "outbox@gmail.com", "988888888", "123456"));
+		userService.update(user.getId(), new User(null, "Outbox Renamed", "outbox@gmail.com", "988888888", null));
+		userService.delete(user.getId());
+
+		List<ChangeEvent> events = eventsOf("User", user.getId(), after, 3);
+		assertEquals(List.of("CREATED", "UPDATED", "DELETED"), events.stream().map(ChangeEvent::type).toList());
+		assertEquals("Outbox Renamed", events.get(1).payload().get("name").asText());
+		assertTrue(!events.get(1).payload().has("password"));
+		assertTrue(events.get(2).payload().isNull());
+
+		assertEquals(events, eventLog.read(after, 1000).stream()
+				.filter(event -> event.aggregate().equals("User") && event.aggregateId().equals(user.getId())).toList());
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_outbox WHERE aggregate_id = ?",
+				Integer.class, user.getId()));
+	}
+
+	@Test
+	void rolledBackWritesLeaveNoEvent() throws Exception {
+		long after = eventLog.lastSequence();
+		Long rolledBack = transactionTemplate.execute(status -> {
+			User user = new User(null, "Rolled Back", "rollback@gmail.com", "977777777", "123456");
+			entityManager.persist(user);
+			entityManager.flush();
+			status.setRollbackOnly();
+			return user.getId();
+		});
+		User committed = userService.insert(new User(null, "Committed", "committed@gmail.com", "966666666", "123456"));
+
+		eventsOf("User", committed.getId(), after, 1);
+		assertTrue(eventLog.read(after, 1000).stream()
+				.noneMatch(event -> event.aggregate().equals("User") && event.aggregateId().equals(rolledBack)));
+		userService.delete(committed.getId());
+	}
+
+	@Test
+	void orderPaymentAndStatusEventsReachTheEndpoint() throws Exception {
+		long after = eventLog.lastSequence();
+		Long id = transactionTemplate.execute(status -> {
+			User client = new User(null, "Events Client", "events@gmail.com", "955555555", "123456");
+			entityManager.persist(client);
+			Order order = new Order(null, Instant.now(), OrderStatus.WAITING_PAYMENT, client);
+			entityManager.persist(order);
+			return order.getId();
+		});
+		orderTransitionService.transition(id, OrderStatus.PAID);
+		orderTransitionService.transition(id, OrderStatus.SHIPPED);
+		eventsOf("Order", id, after, 3);
+
+		List<String> seen = new ArrayList<>();
+		long cursor = after;
+		while (seen.size() < 4) {
+			EventBatch batch = restTemplate.getForObject("/events?after=" + cursor + "&wait=5", EventBatch.class);
+			assertTrue(!batch.events().isEmpty());
+			cursor = batch.next();
+			for (ChangeEvent event : batch.events()) {
+				if (event.aggregateId().equals(id) && !event.aggregate().equals("User")) {
+					seen.add(event.aggregate() + " " + event.type());
+				}
+			}
+		}
+		assertEquals(List.of("Order CREATED", "Order UPDATED", "Payment CREATED", "Order STATUS_CHANGED"), seen);
+
+		/* sem eventos novos a espera termina com a lista vazia e o mesmo cursor */
+		EventBatch empty = restTemplate.getForObject("/events?after=" + Long.MAX_VALUE + "&wait=1", EventBatch.class);
+		assertEquals(Long.MAX_VALUE, empty.next());
+		assertTrue(empty.events().isEmpty());
+
+		/* o banco de dados em memória é dividido com os outros contextos de teste */
+		Long clientId = jdbcTemplate.queryForObject("SELECT client_id FROM tb_order WHERE id = ?", Long.class, id);
+		jdbcTemplate.update("DELETE FROM tb_payment WHERE order_id = ?", id);
+		jdbcTemplate.update("DELETE FROM tb_order WHERE id = ?", id);
+		jdbcTemplate.update("DELETE FROM tb_user WHERE id = ?", clientId);
+	}
+
+	/* espera os count eventos da entidade publicados depois de after */
+	private List<ChangeEvent> eventsOf(String aggregate, Long id, long after, int count) throws Exception {
+		List<ChangeEvent> events = new ArrayList<>();
+		long cursor = after;
+		while (events.size() < count) {
+			List<ChangeEvent> batch = eventBus.next(cursor, 100).get(10, TimeUnit.SECONDS);
+			for (ChangeEvent event : batch) {
+				if (event.aggregate().equals(aggregate) && event.aggregateId().equals(id)) {
+					events.add(event);
+				}
+			}
+			cursor = batch.get(batch.size() - 1).sequence();
+		}
+		return events;
+	}
+}
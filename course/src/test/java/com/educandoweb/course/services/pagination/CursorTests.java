@@ -0,0 +1,26 @@
+package com.educandoweb.course.services.pagination;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+
+class CursorTests {
+
+	@Test
+	void momentKeyRoundTrips() {
+		Instant moment = Instant.parse("2019-06-20T19:53:07.123456789Z");
+		Cursor.MomentKey key = Cursor.decodeMoment(Cursor.encode(moment, 42L));
+		assertEquals(new Cursor.MomentKey(moment, 42L), key);
+	}
+
+	@Test
+	void nullMomentIsRejectedWithItsId() {
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+				() -> Cursor.encode((Instant) null, 42L));
+		assertTrue(e.getMessage().contains("42"));
+	}
+}
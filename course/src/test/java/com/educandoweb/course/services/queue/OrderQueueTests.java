@@ -0,0 +1,141 @@
+package com.educandoweb.course.services.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.educandoweb.course.entities.Product;
+import com.educandoweb.course.entities.enums.OrderStatus;
+import com.educandoweb.course.services.OrderTransitionService;
+import com.educandoweb.course.services.ProductService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/*
+ * Garante que claims concorrentes reservam Orders diferentes, que uma
+ * reserva liberada ou vencida volta para a fila e que o
+ * OrderWorkerPool envia (SHIPPED) cada Order PAID exatamente uma vez,
+ * sem esvaziar o cache de segundo nível do catálogo.
+ * */
+@SpringBootTest
+class OrderQueueTests {
+
+	private static final long FIRST_ID = 5_000_000;
+	private static final int ORDERS = 300;
+
+	@Autowired
+	private OrderQueue orderQueue;
+
+	@Autowired
+	private OrderTransitionService orderTransitionService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@BeforeEach
+	void seed() {
+		jdbcTemplate.batchUpdate("INSERT INTO tb_order (id, moment, order_status, client_id, total, version) "
+				+ "VALUES (?, CURRENT_TIMESTAMP, ?, 1, 0, 0)",
+				LongStream.range(FIRST_ID, FIRST_ID + ORDERS)
+						.mapToObj(id -> new Object[] { id, OrderStatus.PAID.getCode() }).toList());
+	}
+
+	@AfterEach
+	void clean() {
+		jdbcTemplate.update("DELETE FROM tb_order WHERE id >= ?", FIRST_ID);
+	}
+
+	@Test
+	void concurrentClaimsAreDisjoint() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Callable<OrderClaim>> tasks = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				tasks.add(() -> orderQueue.claim(OrderStatus.PAID, 25));
+			}
+			Set<Long> claimed = new HashSet<>();
+			int total = 0;
+			for (Future<OrderClaim> future : executor.invokeAll(tasks)) {
+				OrderClaim claim = future.get();
+				assertEquals(25, claim.orderIds().size());
+				claimed.addAll(claim.orderIds());
+				total += claim.orderIds().size();
+			}
+			assertEquals(total, claimed.size());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void releasedAndExpiredLeasesReturnToTheQueue() {
+		OrderClaim first = orderQueue.claim(OrderStatus.PAID, 10);
+		OrderClaim second = orderQueue.claim(OrderStatus.PAID, 10);
+		assertTrue(second.orderIds().get(0) > first.orderIds().get(9));
+
+		assertEquals(10, orderQueue.release(first));
+		assertEquals(first.orderIds(), orderQueue.claim(OrderStatus.PAID, 10).orderIds());
+
+		jdbcTemplate.update("UPDATE tb_order SET lease_until = DATEADD('MINUTE', -1, CURRENT_TIMESTAMP) "
+				+ "WHERE id IN (" + String.join(",", second.orderIds().stream().map(String::valueOf).toList()) + ")");
+		assertEquals(second.orderIds(), orderQueue.claim(OrderStatus.PAID, 10).orderIds());
+		assertEquals(0, orderQueue.release(second));
+	}
+
+	@Test
+	void claimAndReleaseKeepTheCatalogCache() {
+		productService.findById(3L);
+		assertTrue(entityManagerFactory.getCache().contains(Product.class, 3L));
+
+		OrderClaim claim = orderQueue.claim(OrderStatus.PAID, 10);
+		assertEquals(10, orderQueue.release(claim));
+
+		assertTrue(entityManagerFactory.getCache().contains(Product.class, 3L));
+	}
+
+	@Test
+	void workersShipEveryOrderExactlyOnce() throws Exception {
+		Map<Long, Integer> shipped = new ConcurrentHashMap<>();
+		try (OrderWorkerPool pool = new OrderWorkerPool(orderQueue, OrderStatus.PAID, 4, 20, claim -> {
+			for (Long id : claim.orderIds()) {
+				if (id >= FIRST_ID) {
+					orderTransitionService.transition(id, OrderStatus.SHIPPED);
+					shipped.merge(id, 1, Integer::sum);
+				}
+			}
+		}).start()) {
+			long deadline = System.currentTimeMillis() + 30_000;
+			while (shipped.size() < ORDERS && System.currentTimeMillis() < deadline) {
+				Thread.sleep(20);
+			}
+		}
+		assertEquals(ORDERS, shipped.size());
+		assertTrue(shipped.values().stream().allMatch(count -> count == 1));
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_order WHERE id >= ? AND order_status <> ?",
+				Integer.class, FIRST_ID, OrderStatus.SHIPPED.getCode()));
+	}
+}
@@ -0,0 +1,84 @@
+package com.educandoweb.course.services.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.educandoweb.course.services.exceptions.InvalidFilterException;
+
+/*
+ * Garante os filtros E/OU/NÃO, as contagens por Category, a paginação
+ * por id e a atualização e remoção de Products no índice.
+ * */
+class CategoryIndexTests {
+
+	@Test
+	void filtersWithAndOrNotAndCountsFacets() {
+		CategoryIndex index = index();
+
+		/* Products 1..100: Category 2 nos pares, 3 nos múltiplos de 3, 5 nos múltiplos de 5 */
+		CategoryIndex.Result result = index.filter(CategoryFilter.parse("2,3|5,!7"));
+
+		List<Long> expected = new ArrayList<>();
+		for (long id = 1; id <= 100; id++) {
+			if (id % 2 == 0 && (id % 3 == 0 || id % 5 == 0) && id % 7 != 0) {
+				expected.add(id);
+			}
+		}
+		assertEquals(expected.size(), result.total());
+		assertEquals(expected, result.page(null, 1000));
+		assertEquals((long) expected.size(), result.facets().get(2L));
+		assertEquals(expected.stream().filter(id -> id % 3 == 0).count(), result.facets().get(3L));
+		assertEquals(null, result.facets().get(7L));
+
+		assertEquals(100 - 14, index.filter(CategoryFilter.parse("!7")).total());
+		assertEquals(0, index.filter(CategoryFilter.parse("2,99")).total());
+	}
+
+	@Test
+	void pagesAfterId() {
+		CategoryIndex.Result result = index().filter(CategoryFilter.parse("5"));
+
+		assertEquals(List.of(5L, 10L, 15L), result.page(null, 3));
+		assertEquals(List.of(20L, 25L), result.page(15L, 2));
+		assertEquals(List.of(), result.page(100L, 2));
+	}
+
+	@Test
+	void updatesAndRemovesProducts() {
+		CategoryIndex index = index();
+		Map<Long, long[]> changes = new HashMap<>();
+		changes.put(4L, new long[] { 5 });
+		changes.put(10L, null);
+		index.update(changes);
+
+		assertEquals(List.of(4L, 5L, 15L), index.filter(CategoryFilter.parse("5")).page(null, 3));
+		assertEquals(false, index.filter(CategoryFilter.parse("2")).page(null, 100).contains(4L));
+		assertEquals(99, index.size());
+	}
+
+	@Test
+	void rejectsMalformedFilters() {
+		assertThrows(InvalidFilterException.class, () -> CategoryFilter.parse("1,,2"));
+		assertThrows(InvalidFilterException.class, () -> CategoryFilter.parse("1|x"));
+		assertThrows(InvalidFilterException.class, () -> CategoryFilter.parse(" "));
+	}
+
+	private static CategoryIndex index() {
+		CategoryIndex.Builder builder = new CategoryIndex.Builder();
+		for (long id = 1; id <= 100; id++) {
+			long productId = id;
+			builder.add(productId, LongStream.of(2, 3, 5, 7).filter(c -> productId % c == 0).toArray());
+		}
+		CategoryIndex index = new CategoryIndex();
+		index.replace(builder);
+		return index;
+	}
+}
@@ -0,0 +1,91 @@
+package com.educandoweb.course.services.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/*
+ * Garante a interseção dos termos (também com listas maiores que um
+ * bloco de saltos), a ordenação, o filtro por category, a substituição
+ * e remoção de Products e a paginação a partir do último resultado.
+ * */
+class InvertedIndexTests {
+
+	@Test
+	void matchesAllTermsAcrossSkipBlocks() {
+		InvertedIndex index = new InvertedIndex();
+		for (long id = 1; id <= 1000; id++) {
+			String name = ((id % 2 == 0) ? "Wireless " : "Wired ") + ((id % 7 == 0) ? "Keyboard" : "Mouse");
+			index.put(id, name, "Made of plastic", new long[] { id % 3 });
+		}
+
+		InvertedIndex.Result result = index.search("wireless keyboard", null, 1000, null);
+
+		List<Long> expected = new ArrayList<>();
+		for (long id = 14; id <= 1000; id += 14) {
+			expected.add(id);
+		}
+		assertEquals(expected.size(), result.total());
+		assertEquals(expected, result.hits().stream().map(InvertedIndex.Hit::productId).sorted().toList());
+		assertEquals(0, index.search("wireless tablet", null, 10, null).total());
+	}
+
+	@Test
+	void ranksNameAboveDescriptionAndFiltersByCategory() {
+		InvertedIndex index = new InvertedIndex();
+		index.put(1, "Desk Lamp", "A lamp for the office desk", new long[] { 1 });
+		index.put(2, "Office Chair", "Goes well with a desk", new long[] { 2 });
+		index.put(3, "Standing Desk", "Adjustable height", new long[] { 1, 2 });
+
+		assertEquals(List.of(1L, 3L, 2L), ids(index.search("Desk", null, 10, null)));
+		assertEquals(List.of(3L, 2L), ids(index.search("desk", 2L, 10, null)));
+		assertEquals(0, index.search("desk", 9L, 10, null).total());
+	}
+
+	@Test
+	void replacesAndRemovesProducts() {
+		InvertedIndex index = new InvertedIndex();
+		index.put(1, "Café Espresso", "", new long[0]);
+		index.put(2, "Espresso Machine", "", new long[0]);
+
+		assertEquals(List.of(1L), ids(index.search("cafe", null, 10, null)));
+
+		index.put(1, "Green Tea", "", new long[0]);
+		index.remove(2);
+
+		assertEquals(0, index.search("espresso", null, 10, null).total());
+		assertEquals(List.of(1L), ids(index.search("tea", null, 10, null)));
+		assertEquals(1, index.size());
+		assertEquals(2, index.deletedCount());
+	}
+
+	@Test
+	void pagesAfterLastHit() {
+		InvertedIndex index = new InvertedIndex();
+		for (long id = 1; id <= 250; id++) {
+			index.put(id, "Book " + id, (id % 5 == 0) ? "book book" : "", new long[0]);
+		}
+
+		List<Long> all = ids(index.search("book", null, 250, null));
+		List<Long> paged = new ArrayList<>();
+		InvertedIndex.Hit after = null;
+		InvertedIndex.Result page;
+		do {
+			page = index.search("book", null, 30, after);
+			paged.addAll(ids(page));
+			after = page.hits().isEmpty() ? null : page.hits().get(page.hits().size() - 1);
+			assertEquals(250, page.total());
+		} while (page.hits().size() == 30);
+
+		assertEquals(all, paged);
+		assertTrue(all.indexOf(5L) < all.indexOf(1L));
+	}
+
+	private static List<Long> ids(InvertedIndex.Result result) {
+		return result.hits().stream().map(InvertedIndex.Hit::productId).toList();
+	}
+}